@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import java.io.Serializable;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/** Limits and target of the {@link AdaptiveBulkSizeController}. */
+class AdaptiveBulkFlushConfig implements Serializable {
+
+    private final int minActions;
+    private final int maxActions;
+    private final long targetLatencyMillis;
+
+    AdaptiveBulkFlushConfig(int minActions, int maxActions, long targetLatencyMillis) {
+        checkArgument(minActions > 0, "Min number of actions must be larger than 0.");
+        checkArgument(
+                maxActions >= minActions,
+                "Max number of actions must be larger than or equal to the min number of actions.");
+        checkArgument(targetLatencyMillis > 0, "Target latency must be larger than 0.");
+        this.minActions = minActions;
+        this.maxActions = maxActions;
+        this.targetLatencyMillis = targetLatencyMillis;
+    }
+
+    public int getMinActions() {
+        return minActions;
+    }
+
+    public int getMaxActions() {
+        return maxActions;
+    }
+
+    public long getTargetLatencyMillis() {
+        return targetLatencyMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveBulkFlushConfig{"
+                + "minActions="
+                + minActions
+                + ", maxActions="
+                + maxActions
+                + ", targetLatencyMillis="
+                + targetLatencyMillis
+                + '}';
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Adapts the number of actions per bulk request with an additive-increase/multiplicative-decrease
+ * (AIMD) scheme.
+ *
+ * <p>As long as full bulk requests are acknowledged within the target latency, both measured on
+ * the client and reported by Opensearch as {@code took}, the target grows by the configured minimum
+ * number of actions. Once a bulk request is rejected or exceeds the target latency, the target is
+ * halved. The target always stays within the configured limits.
+ *
+ * <p>This class is not thread-safe and is only accessed from the mailbox thread of the writer.
+ */
+class AdaptiveBulkSizeController {
+
+    static final double DECREASE_FACTOR = 0.5;
+
+    private final int minActions;
+    private final int maxActions;
+    private final long targetLatencyMillis;
+
+    private int targetActions;
+
+    AdaptiveBulkSizeController(AdaptiveBulkFlushConfig config) {
+        checkNotNull(config);
+        this.minActions = config.getMinActions();
+        this.maxActions = config.getMaxActions();
+        this.targetLatencyMillis = config.getTargetLatencyMillis();
+        this.targetActions = minActions;
+    }
+
+    /** Returns the number of buffered actions after which a bulk request should be sent. */
+    int getTargetActions() {
+        return targetActions;
+    }
+
+    /**
+     * Updates the target with the outcome of a bulk request.
+     *
+     * @param numberOfActions number of actions the bulk request contained
+     * @param latencyMillis time between sending the bulk request and receiving its response
+     * @param tookMillis processing time reported by Opensearch, or -1 if unknown
+     * @param rejected whether the bulk request or any of its actions were rejected by Opensearch
+     */
+    void onBulkCompleted(
+            int numberOfActions, long latencyMillis, long tookMillis, boolean rejected) {
+        if (rejected || latencyMillis > targetLatencyMillis || tookMillis > targetLatencyMillis) {
+            targetActions = Math.max(minActions, (int) (targetActions * DECREASE_FACTOR));
+        } else if (numberOfActions >= targetActions) {
+            // only bulk requests which were limited by the target tell us that it could be larger
+            targetActions = (int) Math.min(maxActions, (long) targetActions + minActions);
+        }
+    }
+}
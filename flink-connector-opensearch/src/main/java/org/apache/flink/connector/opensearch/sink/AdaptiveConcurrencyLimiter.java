@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * Limits the number of in-flight bulk requests of a writer with a scheme similar to TCP Vegas.
+ *
+ * <p>The limiter keeps the minimum round-trip time of bulk requests as the no-load baseline and
+ * estimates the number of requests queued in the cluster as {@code limit * (1 - baseline / rtt)}.
+ * While the estimated queue is small the limit grows by one, once it becomes large the limit
+ * shrinks by one, and on rejections the limit is halved. To follow a changed no-load latency, for
+ * example after the bulk size changed, the baseline is reset to the latest round-trip time from
+ * time to time.
+ *
+ * <p>This class is not thread-safe and is only accessed from the mailbox thread of the writer.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    static final double BACKOFF_RATIO = 0.5;
+
+    /** Number of samples per unit of the limit after which the baseline is reset. */
+    static final int PROBE_MULTIPLIER = 30;
+
+    private final int maxLimit;
+
+    private int limit = 1;
+    private long baselineRttNanos = Long.MAX_VALUE;
+    private int samplesUntilProbe = PROBE_MULTIPLIER;
+
+    AdaptiveConcurrencyLimiter(int maxLimit) {
+        checkArgument(maxLimit > 0, "Max limit must be larger than 0.");
+        this.maxLimit = maxLimit;
+    }
+
+    /** Returns the number of bulk requests which may currently be in flight. */
+    int getLimit() {
+        return limit;
+    }
+
+    /** Returns the measured no-load round-trip time in milliseconds, or 0 if not known yet. */
+    long getBaselineRttMillis() {
+        return baselineRttNanos == Long.MAX_VALUE
+                ? 0
+                : TimeUnit.NANOSECONDS.toMillis(baselineRttNanos);
+    }
+
+    /**
+     * Updates the limit with the outcome of a bulk request.
+     *
+     * @param rttNanos time between sending the bulk request and receiving its response
+     * @param inFlightAtSend number of in-flight bulk requests, including this one, when it was sent
+     * @param rejected whether the bulk request or any of its actions were rejected by Opensearch
+     */
+    void onSample(long rttNanos, int inFlightAtSend, boolean rejected) {
+        if (rejected) {
+            limit = Math.max(1, (int) (limit * BACKOFF_RATIO));
+            return;
+        }
+        if (--samplesUntilProbe <= 0) {
+            baselineRttNanos = rttNanos;
+            samplesUntilProbe = PROBE_MULTIPLIER * limit;
+            return;
+        }
+        baselineRttNanos = Math.min(baselineRttNanos, Math.max(1, rttNanos));
+
+        final double queueSize = limit * (1 - (double) baselineRttNanos / Math.max(1, rttNanos));
+        final double log10Limit = Math.log10(limit);
+        if (queueSize <= Math.max(1, 3 * log10Limit)) {
+            // a limit which is not used does not tell whether the cluster could take more
+            if (inFlightAtSend * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        } else if (queueSize > Math.max(2, 6 * log10Limit)) {
+            limit = Math.max(1, limit - 1);
+        }
+    }
+}
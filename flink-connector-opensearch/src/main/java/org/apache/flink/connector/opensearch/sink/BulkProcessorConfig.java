@@ -18,18 +18,28 @@
 
 package org.apache.flink.connector.opensearch.sink;
 
+import javax.annotation.Nullable;
+
 import java.io.Serializable;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 class BulkProcessorConfig implements Serializable {
 
+    static final int DEFAULT_MAX_ITEM_FAILURES_PER_BULK = 100;
+
     private final int bulkFlushMaxActions;
     private final int bulkFlushMaxMb;
     private final long bulkFlushInterval;
     private final FlushBackoffType flushBackoffType;
     private final int bulkFlushBackoffRetries;
     private final long bulkFlushBackOffDelay;
+    private final int bulkFlushMaxInFlightRequests;
+    private final boolean bulkFlushAdaptiveInFlightRequests;
+    @Nullable private final AdaptiveBulkFlushConfig adaptiveBulkFlushConfig;
+    private final int maxItemFailuresPerBulk;
+    private final boolean splitOnTooLarge;
 
     BulkProcessorConfig(
             int bulkFlushMaxActions,
@@ -38,12 +48,71 @@ class BulkProcessorConfig implements Serializable {
             FlushBackoffType flushBackoffType,
             int bulkFlushBackoffRetries,
             long bulkFlushBackOffDelay) {
+        this(
+                bulkFlushMaxActions,
+                bulkFlushMaxMb,
+                bulkFlushInterval,
+                flushBackoffType,
+                bulkFlushBackoffRetries,
+                bulkFlushBackOffDelay,
+                1,
+                false,
+                null);
+    }
+
+    BulkProcessorConfig(
+            int bulkFlushMaxActions,
+            int bulkFlushMaxMb,
+            long bulkFlushInterval,
+            FlushBackoffType flushBackoffType,
+            int bulkFlushBackoffRetries,
+            long bulkFlushBackOffDelay,
+            int bulkFlushMaxInFlightRequests,
+            boolean bulkFlushAdaptiveInFlightRequests,
+            @Nullable AdaptiveBulkFlushConfig adaptiveBulkFlushConfig) {
+        this(
+                bulkFlushMaxActions,
+                bulkFlushMaxMb,
+                bulkFlushInterval,
+                flushBackoffType,
+                bulkFlushBackoffRetries,
+                bulkFlushBackOffDelay,
+                bulkFlushMaxInFlightRequests,
+                bulkFlushAdaptiveInFlightRequests,
+                adaptiveBulkFlushConfig,
+                DEFAULT_MAX_ITEM_FAILURES_PER_BULK,
+                false);
+    }
+
+    BulkProcessorConfig(
+            int bulkFlushMaxActions,
+            int bulkFlushMaxMb,
+            long bulkFlushInterval,
+            FlushBackoffType flushBackoffType,
+            int bulkFlushBackoffRetries,
+            long bulkFlushBackOffDelay,
+            int bulkFlushMaxInFlightRequests,
+            boolean bulkFlushAdaptiveInFlightRequests,
+            @Nullable AdaptiveBulkFlushConfig adaptiveBulkFlushConfig,
+            int maxItemFailuresPerBulk,
+            boolean splitOnTooLarge) {
+        checkArgument(
+                bulkFlushMaxInFlightRequests > 0,
+                "Max number of in-flight requests must be larger than 0.");
+        checkArgument(
+                maxItemFailuresPerBulk > 0,
+                "Max number of item failures per bulk must be larger than 0.");
         this.bulkFlushMaxActions = bulkFlushMaxActions;
         this.bulkFlushMaxMb = bulkFlushMaxMb;
         this.bulkFlushInterval = bulkFlushInterval;
         this.flushBackoffType = checkNotNull(flushBackoffType);
         this.bulkFlushBackoffRetries = bulkFlushBackoffRetries;
         this.bulkFlushBackOffDelay = bulkFlushBackOffDelay;
+        this.bulkFlushMaxInFlightRequests = bulkFlushMaxInFlightRequests;
+        this.bulkFlushAdaptiveInFlightRequests = bulkFlushAdaptiveInFlightRequests;
+        this.adaptiveBulkFlushConfig = adaptiveBulkFlushConfig;
+        this.maxItemFailuresPerBulk = maxItemFailuresPerBulk;
+        this.splitOnTooLarge = splitOnTooLarge;
     }
 
     public int getBulkFlushMaxActions() {
@@ -69,4 +138,25 @@ class BulkProcessorConfig implements Serializable {
     public long getBulkFlushBackOffDelay() {
         return bulkFlushBackOffDelay;
     }
+
+    public int getBulkFlushMaxInFlightRequests() {
+        return bulkFlushMaxInFlightRequests;
+    }
+
+    public boolean isBulkFlushAdaptiveInFlightRequests() {
+        return bulkFlushAdaptiveInFlightRequests;
+    }
+
+    @Nullable
+    public AdaptiveBulkFlushConfig getAdaptiveBulkFlushConfig() {
+        return adaptiveBulkFlushConfig;
+    }
+
+    public int getMaxItemFailuresPerBulk() {
+        return maxItemFailuresPerBulk;
+    }
+
+    public boolean isSplitOnTooLarge() {
+        return splitOnTooLarge;
+    }
 }
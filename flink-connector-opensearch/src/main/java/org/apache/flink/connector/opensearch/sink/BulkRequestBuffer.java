@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.index.IndexRequest;
+import org.opensearch.action.update.UpdateRequest;
+import org.opensearch.common.lucene.uid.Versions;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentHelper;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.DeprecationHandler;
+import org.opensearch.core.xcontent.NamedXContentRegistry;
+import org.opensearch.core.xcontent.XContentBuilder;
+import org.opensearch.core.xcontent.XContentParser;
+import org.opensearch.index.VersionType;
+import org.opensearch.index.seqno.SequenceNumbers;
+
+import javax.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * The newline delimited JSON body of a bulk request which is built up while actions are added.
+ * The body can also be encoded as SMILE, whose documents are delimited by {@code 0xFF} instead.
+ *
+ * <p>Every action is encoded right away, so the buffer holds the bytes which are sent to
+ * Opensearch and its size is exact. Sources which already are single-line JSON, or SMILE for a
+ * SMILE body, are copied as they are. The {@link PendingAction}s remember where they are located in
+ * the buffer, so that they can be copied into another buffer when they are retried.
+ */
+class BulkRequestBuffer {
+
+    private final XContentType contentType;
+    private final byte separator;
+    private final BodyOutputStream out = new BodyOutputStream();
+    private final List<PendingAction> actions = new ArrayList<>();
+
+    BulkRequestBuffer() {
+        this(XContentType.JSON);
+    }
+
+    /**
+     * Creates a buffer encoding the bulk request with the given content type.
+     *
+     * @param contentType either {@link XContentType#JSON} or {@link XContentType#SMILE}, the other
+     *         content types cannot delimit the documents of a bulk request
+     */
+    BulkRequestBuffer(XContentType contentType) {
+        checkArgument(
+                contentType == XContentType.JSON || contentType == XContentType.SMILE,
+                "Bulk requests can only be encoded as JSON or SMILE.");
+        this.contentType = contentType;
+        this.separator = contentType.xContent().streamSeparator();
+    }
+
+    /** Encodes the request and adds it to the buffer. */
+    PendingAction add(DocWriteRequest<?> request) throws IOException {
+        final int offset = out.size();
+        writeMetadata(out, request);
+        writeSource(out, request);
+        return append(new PendingAction(request.index(), request.id(), request.opType()), offset);
+    }
+
+    /** Adds the action with the already serialized JSON source without parsing it. */
+    PendingAction add(
+            String index,
+            @Nullable String id,
+            DocWriteRequest.OpType opType,
+            byte[] source,
+            int sourceOffset,
+            int sourceLength,
+            @Nullable String routing,
+            @Nullable String pipeline)
+            throws IOException {
+        checkArgument(
+                opType != DocWriteRequest.OpType.DELETE,
+                "Delete actions have no source, add a DeleteRequest instead.");
+        if (opType == DocWriteRequest.OpType.UPDATE) {
+            checkArgument(id != null, "Update actions require an id.");
+            checkArgument(pipeline == null, "Pipelines are not supported for update actions.");
+        }
+        final int offset = out.size();
+        try (final XContentBuilder metadata = XContentFactory.contentBuilder(contentType, out)) {
+            metadata.startObject().startObject(opType.getLowercase());
+            metadata.field("_index", index);
+            if (id != null) {
+                metadata.field("_id", id);
+            }
+            if (routing != null) {
+                metadata.field("routing", routing);
+            }
+            if (pipeline != null) {
+                metadata.field("pipeline", pipeline);
+            }
+            metadata.endObject().endObject();
+        }
+        out.write(separator);
+        if (contentType == XContentType.JSON) {
+            out.write(source, sourceOffset, sourceLength);
+        } else {
+            try (final XContentParser parser =
+                            XContentType.JSON
+                                    .xContent()
+                                    .createParser(
+                                            NamedXContentRegistry.EMPTY,
+                                            DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
+                                            source,
+                                            sourceOffset,
+                                            sourceLength);
+                    final XContentBuilder builder =
+                            XContentFactory.contentBuilder(contentType, out)) {
+                builder.copyCurrentStructure(parser);
+            }
+        }
+        out.write(separator);
+        return append(new PendingAction(index, id, opType), offset);
+    }
+
+    /** Copies the already encoded action from the buffer it was added to before. */
+    void add(PendingAction action) {
+        final int offset = out.size();
+        action.writeTo(out);
+        append(action, offset);
+    }
+
+    /**
+     * Adds an action which was encoded by another buffer, e.g. before a restore. Actions encoded
+     * with another content type are converted.
+     */
+    PendingAction add(byte[] encodedAction) throws IOException {
+        checkArgument(encodedAction.length > 0, "The encoded action is empty.");
+        // the metadata of a JSON action is an object, SMILE documents start with a header
+        final XContentType encodedType =
+                encodedAction[0] == '{' ? XContentType.JSON : XContentType.SMILE;
+        final int offset = out.size();
+        if (encodedType == contentType) {
+            out.write(encodedAction);
+        } else {
+            writeConverted(encodedAction, encodedType);
+        }
+        final PendingAction action;
+        try (final XContentParser parser =
+                encodedType
+                        .xContent()
+                        .createParser(
+                                NamedXContentRegistry.EMPTY,
+                                DeprecationHandler.IGNORE_DEPRECATIONS,
+                                encodedAction)) {
+            action = parseMetadata(parser);
+        }
+        return append(action, offset);
+    }
+
+    int numberOfActions() {
+        return actions.size();
+    }
+
+    int sizeInBytes() {
+        return out.size();
+    }
+
+    boolean isEmpty() {
+        return actions.isEmpty();
+    }
+
+    List<PendingAction> getActions() {
+        return Collections.unmodifiableList(actions);
+    }
+
+    /** Returns the array holding the body, which is valid up to {@link #sizeInBytes()}. */
+    byte[] getBody() {
+        return out.buffer();
+    }
+
+    /** Encodes the request into a new array, which can be added with {@link #add(byte[])}. */
+    static byte[] encode(DocWriteRequest<?> request) throws IOException {
+        final BulkRequestBuffer buffer = new BulkRequestBuffer();
+        buffer.add(request);
+        return buffer.getActions().get(0).toByteArray();
+    }
+
+    private void writeConverted(byte[] encodedAction, XContentType encodedType)
+            throws IOException {
+        final byte encodedSeparator = encodedType.xContent().streamSeparator();
+        int start = 0;
+        for (int i = 0; i < encodedAction.length; i++) {
+            if (encodedAction[i] != encodedSeparator) {
+                continue;
+            }
+            try (final XContentParser parser =
+                            encodedType
+                                    .xContent()
+                                    .createParser(
+                                            NamedXContentRegistry.EMPTY,
+                                            DeprecationHandler.IGNORE_DEPRECATIONS,
+                                            encodedAction,
+                                            start,
+                                            i - start);
+                    final XContentBuilder builder =
+                            XContentFactory.contentBuilder(contentType, out)) {
+                builder.copyCurrentStructure(parser);
+            }
+            out.write(separator);
+            start = i + 1;
+        }
+    }
+
+    private PendingAction append(PendingAction action, int offset) {
+        action.setLocation(this, offset, out.size() - offset);
+        actions.add(action);
+        return action;
+    }
+
+    private void writeMetadata(OutputStream out, DocWriteRequest<?> request) throws IOException {
+        final DocWriteRequest.OpType opType = request.opType();
+        try (final XContentBuilder metadata = XContentFactory.contentBuilder(contentType, out)) {
+            metadata.startObject().startObject(opType.getLowercase());
+            if (hasLength(request.index())) {
+                metadata.field("_index", request.index());
+            }
+            if (hasLength(request.id())) {
+                metadata.field("_id", request.id());
+            }
+            if (hasLength(request.routing())) {
+                metadata.field("routing", request.routing());
+            }
+            if (request.version() != Versions.MATCH_ANY) {
+                metadata.field("version", request.version());
+            }
+            if (request.versionType() == VersionType.EXTERNAL) {
+                metadata.field("version_type", "external");
+            } else if (request.versionType() == VersionType.EXTERNAL_GTE) {
+                metadata.field("version_type", "external_gte");
+            }
+            if (request.ifSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                metadata.field("if_seq_no", request.ifSeqNo());
+                metadata.field("if_primary_term", request.ifPrimaryTerm());
+            }
+            if (opType == DocWriteRequest.OpType.INDEX || opType == DocWriteRequest.OpType.CREATE) {
+                final IndexRequest indexRequest = (IndexRequest) request;
+                if (hasLength(indexRequest.getPipeline())) {
+                    metadata.field("pipeline", indexRequest.getPipeline());
+                }
+            } else if (opType == DocWriteRequest.OpType.UPDATE) {
+                final UpdateRequest updateRequest = (UpdateRequest) request;
+                if (updateRequest.retryOnConflict() > 0) {
+                    metadata.field("retry_on_conflict", updateRequest.retryOnConflict());
+                }
+                if (updateRequest.fetchSource() != null) {
+                    metadata.field("_source", updateRequest.fetchSource());
+                }
+            }
+            if (request.isRequireAlias()) {
+                metadata.field("require_alias", true);
+            }
+            metadata.endObject().endObject();
+        }
+        out.write(separator);
+    }
+
+    private void writeSource(OutputStream out, DocWriteRequest<?> request) throws IOException {
+        switch (request.opType()) {
+            case INDEX:
+            case CREATE:
+                final IndexRequest indexRequest = (IndexRequest) request;
+                checkArgument(indexRequest.source() != null, "The index request has no source.");
+                if (indexRequest.getContentType() == contentType
+                        && (contentType != XContentType.JSON
+                                || indexRequest.source().indexOf(separator, 0) < 0)) {
+                    indexRequest.source().writeTo(out);
+                } else {
+                    // other content types and pretty printed JSON have to be rewritten into a
+                    // single document of the content type of the body
+                    try (final XContentParser parser =
+                                    XContentHelper.createParser(
+                                            NamedXContentRegistry.EMPTY,
+                                            DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
+                                            indexRequest.source(),
+                                            indexRequest.getContentType());
+                            final XContentBuilder builder =
+                                    XContentFactory.contentBuilder(contentType, out)) {
+                        builder.copyCurrentStructure(parser);
+                    }
+                }
+                break;
+            case UPDATE:
+                XContentHelper.toXContent((UpdateRequest) request, contentType, false)
+                        .writeTo(out);
+                break;
+            case DELETE:
+                return;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + request.opType());
+        }
+        out.write(separator);
+    }
+
+    private static PendingAction parseMetadata(XContentParser parser) throws IOException {
+        String index = null;
+        String id = null;
+        checkArgument(parser.nextToken() == XContentParser.Token.START_OBJECT);
+        checkArgument(parser.nextToken() == XContentParser.Token.FIELD_NAME);
+        final DocWriteRequest.OpType opType =
+                DocWriteRequest.OpType.fromString(parser.currentName());
+        checkArgument(parser.nextToken() == XContentParser.Token.START_OBJECT);
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            final String field = parser.currentName();
+            parser.nextToken();
+            if ("_index".equals(field)) {
+                index = parser.text();
+            } else if ("_id".equals(field)) {
+                id = parser.text();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new PendingAction(index, id, opType);
+    }
+
+    private static boolean hasLength(@Nullable String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    /** Gives access to the written bytes without copying them. */
+    private static class BodyOutputStream extends ByteArrayOutputStream {
+
+        private BodyOutputStream() {
+            super(1024);
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
+    }
+}
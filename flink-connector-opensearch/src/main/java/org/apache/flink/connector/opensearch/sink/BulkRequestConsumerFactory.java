@@ -20,16 +20,15 @@ package org.apache.flink.connector.opensearch.sink;
 
 import org.apache.flink.annotation.Internal;
 
-import org.opensearch.action.bulk.BulkRequest;
-import org.opensearch.action.bulk.BulkResponse;
 import org.opensearch.core.action.ActionListener;
 
 import java.util.function.BiConsumer;
 
 /**
  * {@link BulkRequestConsumerFactory} is used to bridge incompatible Opensearch Java API calls
- * across different Opensearch versions.
+ * across different Opensearch versions. It sends the encoded body of a {@link BulkRequestBuffer}
+ * and hands the parsed response to the listener.
  */
 @Internal
 interface BulkRequestConsumerFactory
-        extends BiConsumer<BulkRequest, ActionListener<BulkResponse>> {}
+        extends BiConsumer<BulkRequestBuffer, ActionListener<BulkResult>> {}
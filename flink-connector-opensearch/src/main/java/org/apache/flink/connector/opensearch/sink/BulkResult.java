@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.opensearch.core.rest.RestStatus;
+import org.opensearch.core.xcontent.XContentParser;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The parts of the response of a bulk request the {@link OpensearchWriter} needs: the time
+ * Opensearch took, and the position, status and failure of every failed item.
+ *
+ * <p>The response is parsed token by token instead of into a {@code BulkResponse}, which builds
+ * the full document write response of every item and an exception, with its causes, of every
+ * failed item. This keeps the response classes and the exception registry of the Opensearch server
+ * out of the writer. Only the type and reason of errors are kept, no message is formatted.
+ * Successful items are only counted, and skipped entirely if the response
+ * reports that no item failed. Bulk requests ask Opensearch to leave out everything else with
+ * {@link #FILTER_PATH}.
+ */
+class BulkResult {
+
+    /** The {@code filter_path} of bulk requests leaving out everything the result does not need. */
+    static final String FILTER_PATH =
+            "took,errors,items.*.status,items.*.error.type,items.*.error.reason";
+
+    private static final int[] NO_ITEMS = new int[0];
+
+    private final long tookMillis;
+    private final int numberOfItems;
+    private final int numberOfFailures;
+    private final int[] failedItems;
+    private final int[] failedStatuses;
+    private final String[] errorTypes;
+    private final String[] reasons;
+
+    private BulkResult(
+            long tookMillis,
+            int numberOfItems,
+            int numberOfFailures,
+            int[] failedItems,
+            int[] failedStatuses,
+            String[] errorTypes,
+            String[] reasons) {
+        this.tookMillis = tookMillis;
+        this.numberOfItems = numberOfItems;
+        this.numberOfFailures = numberOfFailures;
+        this.failedItems = failedItems;
+        this.failedStatuses = failedStatuses;
+        this.errorTypes = errorTypes;
+        this.reasons = reasons;
+    }
+
+    /** Returns the time Opensearch took to process the bulk request, or -1 if unknown. */
+    long getTookMillis() {
+        return tookMillis;
+    }
+
+    int numberOfItems() {
+        return numberOfItems;
+    }
+
+    boolean hasFailures() {
+        return numberOfFailures > 0;
+    }
+
+    int numberOfFailures() {
+        return numberOfFailures;
+    }
+
+    /** Returns the position of the n-th failed item in the bulk request, in ascending order. */
+    int getFailedItem(int failure) {
+        return failedItems[failure];
+    }
+
+    RestStatus getFailedStatus(int failure) {
+        return RestStatus.fromCode(failedStatuses[failure]);
+    }
+
+    /** Returns the type of the error of the n-th failure, e.g. {@code mapper_parsing_exception}. */
+    @Nullable
+    String getErrorType(int failure) {
+        return errorTypes[failure];
+    }
+
+    @Nullable
+    String getReason(int failure) {
+        return reasons[failure];
+    }
+
+    /**
+     * Parses the response of a bulk request.
+     *
+     * @param parser parser positioned before the response
+     * @param expectedItems the number of actions of the bulk request
+     * @return the parsed result
+     * @throws IOException if the response is malformed or has another number of items
+     */
+    static BulkResult parse(XContentParser parser, int expectedItems) throws IOException {
+        if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+            throw new IOException("The bulk response is not an object.");
+        }
+        long tookMillis = -1;
+        boolean errors = true;
+        int numberOfItems = 0;
+        int numberOfFailures = 0;
+        int[] failedItems = NO_ITEMS;
+        int[] failedStatuses = NO_ITEMS;
+        String[] errorTypes = new String[0];
+        String[] reasons = errorTypes;
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            final String field = parser.currentName();
+            final XContentParser.Token token = parser.nextToken();
+            if ("took".equals(field)) {
+                tookMillis = parser.longValue();
+            } else if ("errors".equals(field)) {
+                errors = parser.booleanValue();
+            } else if ("items".equals(field) && token == XContentParser.Token.START_ARRAY) {
+                while (parser.nextToken() == XContentParser.Token.START_OBJECT) {
+                    if (!errors) {
+                        // Opensearch reports the errors flag before the items
+                        parser.skipChildren();
+                        numberOfItems++;
+                        continue;
+                    }
+                    final FailedItem failedItem = parseItem(parser);
+                    if (failedItem != null) {
+                        if (numberOfFailures == failedItems.length) {
+                            final int capacity = Math.max(4, numberOfFailures * 2);
+                            failedItems = Arrays.copyOf(failedItems, capacity);
+                            failedStatuses = Arrays.copyOf(failedStatuses, capacity);
+                            errorTypes = Arrays.copyOf(errorTypes, capacity);
+                            reasons = Arrays.copyOf(reasons, capacity);
+                        }
+                        failedItems[numberOfFailures] = numberOfItems;
+                        failedStatuses[numberOfFailures] = failedItem.status;
+                        errorTypes[numberOfFailures] = failedItem.errorType;
+                        reasons[numberOfFailures] = failedItem.reason;
+                        numberOfFailures++;
+                    }
+                    numberOfItems++;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (numberOfItems != expectedItems) {
+            throw new IOException(
+                    String.format(
+                            "The bulk response has %d items, but %d actions were sent.",
+                            numberOfItems, expectedItems));
+        }
+        return new BulkResult(
+                tookMillis,
+                numberOfItems,
+                numberOfFailures,
+                failedItems,
+                failedStatuses,
+                errorTypes,
+                reasons);
+    }
+
+    /**
+     * Parses an item of the form {@code {"<op type>": {"status": 201, "error": {...}, ...}}}.
+     *
+     * @return the failure of the item, or null if it succeeded
+     */
+    @Nullable
+    private static FailedItem parseItem(XContentParser parser) throws IOException {
+        FailedItem failure = null;
+        int status = 0;
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            if (parser.nextToken() != XContentParser.Token.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+                final String field = parser.currentName();
+                final XContentParser.Token token = parser.nextToken();
+                if ("status".equals(field)) {
+                    status = parser.intValue();
+                } else if ("error".equals(field)) {
+                    failure = new FailedItem();
+                    if (token == XContentParser.Token.START_OBJECT) {
+                        parseError(parser, failure);
+                    } else {
+                        failure.reason = parser.text();
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (failure != null) {
+            failure.status = status;
+        }
+        return failure;
+    }
+
+    private static void parseError(XContentParser parser, FailedItem failure) throws IOException {
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            final String field = parser.currentName();
+            parser.nextToken();
+            if ("type".equals(field)) {
+                failure.errorType = parser.text();
+            } else if ("reason".equals(field)) {
+                failure.reason = parser.textOrNull();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static class FailedItem {
+
+        private int status;
+        @Nullable private String errorType;
+        @Nullable private String reason;
+    }
+}
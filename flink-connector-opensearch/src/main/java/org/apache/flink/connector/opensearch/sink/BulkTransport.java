@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import javax.annotation.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Sends the bodies of the bulk requests of an {@link OpensearchSink} writer to Opensearch instead
+ * of the low-level {@link org.opensearch.client.RestClient}. Transports are created by a {@link
+ * BulkTransportFactory}, one per writer, and must allow several bulk requests to be in flight at
+ * the same time.
+ */
+@PublicEvolving
+public interface BulkTransport extends Closeable {
+
+    /**
+     * Sends a bulk request asynchronously. The response is requested in the same content type and
+     * encoding as the body.
+     *
+     * @param body the newline delimited JSON, or SMILE, body of the request, which must not be
+     *         modified
+     * @param length the number of bytes of the body, starting at its first byte
+     * @param contentType the media type of the body, e.g. {@code application/json}
+     * @param contentEncoding the compression of the body, or null if it is not compressed
+     * @param listener notified once the response has been received or the request failed
+     */
+    void sendBulk(
+            byte[] body,
+            int length,
+            String contentType,
+            @Nullable String contentEncoding,
+            ResponseListener listener);
+
+    /** Listener for the response of a bulk request sent by a {@link BulkTransport}. */
+    @PublicEvolving
+    interface ResponseListener {
+
+        /**
+         * Called with the response of the bulk request, whatever its status code.
+         *
+         * @param statusCode the HTTP status code of the response
+         * @param contentEncoding the compression of the response body, or null if it is not
+         *         compressed
+         * @param body the response body
+         */
+        void onResponse(int statusCode, @Nullable String contentEncoding, byte[] body);
+
+        /**
+         * Called if no response has been received, e.g. because the node was not reachable.
+         *
+         * @param exception the cause of the failure
+         */
+        void onFailure(Exception exception);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import org.apache.http.HttpHost;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A factory for the {@link BulkTransport} the writers of an {@link OpensearchSink} send their bulk
+ * requests with. If no factory is configured, the bulk requests are sent with the low-level REST
+ * client configured by the {@link RestClientFactory}.
+ */
+@PublicEvolving
+public interface BulkTransportFactory extends Serializable {
+
+    /**
+     * Creates the transport of a writer.
+     *
+     * @param hosts the configured Opensearch cluster nodes
+     * @param clientConfig the client network configuration
+     * @return the transport, which is closed with the writer
+     */
+    BulkTransport createBulkTransport(
+            List<HttpHost> hosts, RestClientFactory.RestClientConfig clientConfig);
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.http.HttpHost;
+import org.opensearch.client.Request;
+import org.opensearch.client.Response;
+import org.opensearch.client.ResponseListener;
+import org.opensearch.client.RestClient;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.DeprecationHandler;
+import org.opensearch.core.xcontent.NamedXContentRegistry;
+import org.opensearch.core.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/** Helpers to request information about the nodes and indices of the Opensearch cluster. */
+final class ClusterInfoRequests {
+
+    private ClusterInfoRequests() {}
+
+    /**
+     * Performs a request with the low-level client and parses the JSON response into a map.
+     *
+     * @param client the client to perform the request with
+     * @param request the request returning a JSON object
+     * @return the parsed response
+     */
+    static Map<String, Object> performRequest(RestClient client, Request request)
+            throws IOException {
+        return parse(client.performRequest(request));
+    }
+
+    /**
+     * Performs a request with the low-level client without blocking the calling thread, and parses
+     * the JSON response into a map on the I/O thread of the client.
+     *
+     * @param client the client to perform the request with
+     * @param request the request returning a JSON object
+     * @return the parsed response, or the failure of the request
+     */
+    static CompletableFuture<Map<String, Object>> performRequestAsync(
+            RestClient client, Request request) {
+        final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        client.performRequestAsync(
+                request,
+                new ResponseListener() {
+                    @Override
+                    public void onSuccess(Response response) {
+                        try {
+                            result.complete(parse(response));
+                        } catch (Exception e) {
+                            result.completeExceptionally(e);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Exception exception) {
+                        result.completeExceptionally(exception);
+                    }
+                });
+        return result;
+    }
+
+    private static Map<String, Object> parse(Response response) throws IOException {
+        try (final InputStream content = response.getEntity().getContent();
+                final XContentParser parser =
+                        XContentType.JSON
+                                .xContent()
+                                .createParser(
+                                        NamedXContentRegistry.EMPTY,
+                                        DeprecationHandler.IGNORE_DEPRECATIONS,
+                                        content)) {
+            return parser.map();
+        }
+    }
+
+    /**
+     * Converts the HTTP publish address of a node, which may be prefixed with the host name of
+     * the node, to a host.
+     *
+     * @param publishAddress the address as reported by the nodes info API
+     * @param scheme the scheme the node is reachable with
+     * @return the host
+     */
+    static HttpHost toHttpHost(String publishAddress, String scheme) {
+        final int hostNameEnd = publishAddress.indexOf('/');
+        final String address =
+                hostNameEnd >= 0 ? publishAddress.substring(hostNameEnd + 1) : publishAddress;
+        return HttpHost.create(scheme + "://" + address);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/** Used to control whether and how the sink compresses the bodies of its bulk requests. */
+@PublicEvolving
+public enum CompressionType {
+    /** The bulk requests are sent uncompressed. */
+    NONE(null),
+    /** The bulk requests are compressed with gzip. */
+    GZIP("gzip") {
+        @Override
+        OutputStream compress(OutputStream out, int level) throws IOException {
+            return new GZIPOutputStream(out) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+
+        @Override
+        InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in);
+        }
+    },
+    /** The bulk requests are compressed with deflate in the zlib format. */
+    DEFLATE("deflate") {
+        @Override
+        OutputStream compress(OutputStream out, int level) {
+            final Deflater deflater = new Deflater(level);
+            return new DeflaterOutputStream(out, deflater) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        deflater.end();
+                    }
+                }
+            };
+        }
+
+        @Override
+        InputStream decompress(InputStream in) {
+            return new InflaterInputStream(in);
+        }
+    };
+
+    /** The compression level used if none is configured. */
+    static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    private final String contentEncoding;
+
+    CompressionType(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /** Returns the compression of a response with the given Content-Encoding header. */
+    static CompressionType fromContentEncoding(@Nullable String contentEncoding) {
+        for (final CompressionType compressionType : values()) {
+            if (compressionType.contentEncoding != null
+                    && compressionType.contentEncoding.equalsIgnoreCase(contentEncoding)) {
+                return compressionType;
+            }
+        }
+        return NONE;
+    }
+
+    /** Returns the value of the Content-Encoding and Accept-Encoding headers. */
+    String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    OutputStream compress(OutputStream out, int level) throws IOException {
+        return out;
+    }
+
+    InputStream decompress(InputStream in) throws IOException {
+        return in;
+    }
+}
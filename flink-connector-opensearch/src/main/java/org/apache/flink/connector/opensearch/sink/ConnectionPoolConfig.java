@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * I/O reactor, connection pool and keep-alive settings of the HTTP client of the {@link
+ * OpensearchSink}. Settings which are not set keep the defaults of the client.
+ */
+class ConnectionPoolConfig implements Serializable {
+
+    @Nullable private final Integer ioThreadCount;
+    @Nullable private final Integer maxConnectionsTotal;
+    @Nullable private final Integer maxConnectionsPerRoute;
+    @Nullable private final Long connectionTimeToLive;
+    @Nullable private final Long keepAlive;
+    @Nullable private final Boolean tcpNoDelay;
+    @Nullable private final Integer sendBufferSize;
+    private final boolean metricsEnabled;
+
+    ConnectionPoolConfig(
+            @Nullable Integer ioThreadCount,
+            @Nullable Integer maxConnectionsTotal,
+            @Nullable Integer maxConnectionsPerRoute,
+            @Nullable Long connectionTimeToLive,
+            @Nullable Long keepAlive,
+            @Nullable Boolean tcpNoDelay,
+            @Nullable Integer sendBufferSize,
+            boolean metricsEnabled) {
+        this.ioThreadCount = ioThreadCount;
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.connectionTimeToLive = connectionTimeToLive;
+        this.keepAlive = keepAlive;
+        this.tcpNoDelay = tcpNoDelay;
+        this.sendBufferSize = sendBufferSize;
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    /** Returns a configuration keeping all defaults of the client. */
+    static ConnectionPoolConfig defaults() {
+        return new ConnectionPoolConfig(null, null, null, null, null, null, null, false);
+    }
+
+    @Nullable
+    public Integer getIoThreadCount() {
+        return ioThreadCount;
+    }
+
+    @Nullable
+    public Integer getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    @Nullable
+    public Integer getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    @Nullable
+    public Long getConnectionTimeToLive() {
+        return connectionTimeToLive;
+    }
+
+    @Nullable
+    public Long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public Optional<Boolean> isTcpNoDelay() {
+        return Optional.ofNullable(tcpNoDelay);
+    }
+
+    @Nullable
+    public Integer getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ConnectionPoolConfig that = (ConnectionPoolConfig) o;
+        return metricsEnabled == that.metricsEnabled
+                && Objects.equals(ioThreadCount, that.ioThreadCount)
+                && Objects.equals(maxConnectionsTotal, that.maxConnectionsTotal)
+                && Objects.equals(maxConnectionsPerRoute, that.maxConnectionsPerRoute)
+                && Objects.equals(connectionTimeToLive, that.connectionTimeToLive)
+                && Objects.equals(keepAlive, that.keepAlive)
+                && Objects.equals(tcpNoDelay, that.tcpNoDelay)
+                && Objects.equals(sendBufferSize, that.sendBufferSize);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                ioThreadCount,
+                maxConnectionsTotal,
+                maxConnectionsPerRoute,
+                connectionTimeToLive,
+                keepAlive,
+                tcpNoDelay,
+                sendBufferSize,
+                metricsEnabled);
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolConfig{"
+                + "ioThreadCount="
+                + ioThreadCount
+                + ", maxConnectionsTotal="
+                + maxConnectionsTotal
+                + ", maxConnectionsPerRoute="
+                + maxConnectionsPerRoute
+                + ", connectionTimeToLive="
+                + connectionTimeToLive
+                + ", keepAlive="
+                + keepAlive
+                + ", tcpNoDelay="
+                + tcpNoDelay
+                + ", sendBufferSize="
+                + sendBufferSize
+                + ", metricsEnabled="
+                + metricsEnabled
+                + '}';
+    }
+}
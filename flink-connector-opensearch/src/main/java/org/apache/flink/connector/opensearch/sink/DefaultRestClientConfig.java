@@ -1,5 +1,7 @@
 package org.apache.flink.connector.opensearch.sink;
 
+import org.apache.http.pool.ConnPoolControl;
+
 import javax.annotation.Nullable;
 
 import java.util.Optional;
@@ -7,6 +9,7 @@ import java.util.Optional;
 /** Provides the default implementation for {@link RestClientFactory.RestClientConfig}. */
 class DefaultRestClientConfig implements RestClientFactory.RestClientConfig {
     private final NetworkClientConfig networkClientConfig;
+    @Nullable private volatile ConnPoolControl<?> connectionPool;
 
     DefaultRestClientConfig(NetworkClientConfig networkClientConfig) {
         this.networkClientConfig = networkClientConfig;
@@ -46,4 +49,55 @@ class DefaultRestClientConfig implements RestClientFactory.RestClientConfig {
     public Optional<Boolean> isAllowInsecure() {
         return networkClientConfig.isAllowInsecure();
     }
+
+    @Override
+    public @Nullable Integer getIoThreadCount() {
+        return networkClientConfig.getConnectionPoolConfig().getIoThreadCount();
+    }
+
+    @Override
+    public @Nullable Integer getMaxConnectionsTotal() {
+        return networkClientConfig.getConnectionPoolConfig().getMaxConnectionsTotal();
+    }
+
+    @Override
+    public @Nullable Integer getMaxConnectionsPerRoute() {
+        return networkClientConfig.getConnectionPoolConfig().getMaxConnectionsPerRoute();
+    }
+
+    @Override
+    public @Nullable Long getConnectionTimeToLive() {
+        return networkClientConfig.getConnectionPoolConfig().getConnectionTimeToLive();
+    }
+
+    @Override
+    public @Nullable Long getKeepAlive() {
+        return networkClientConfig.getConnectionPoolConfig().getKeepAlive();
+    }
+
+    @Override
+    public Optional<Boolean> isTcpNoDelay() {
+        return networkClientConfig.getConnectionPoolConfig().isTcpNoDelay();
+    }
+
+    @Override
+    public @Nullable Integer getSendBufferSize() {
+        return networkClientConfig.getConnectionPoolConfig().getSendBufferSize();
+    }
+
+    @Override
+    public boolean isConnectionPoolMetricsEnabled() {
+        return networkClientConfig.getConnectionPoolConfig().isMetricsEnabled();
+    }
+
+    @Override
+    public void registerConnectionPool(ConnPoolControl<?> connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /** Returns the connection pool registered by the {@link RestClientFactory}, if any. */
+    @Nullable
+    ConnPoolControl<?> getConnectionPool() {
+        return connectionPool;
+    }
 }
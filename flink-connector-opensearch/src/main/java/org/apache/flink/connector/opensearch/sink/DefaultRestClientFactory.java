@@ -21,17 +21,36 @@ package org.apache.flink.connector.opensearch.sink;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.ssl.TrustAllStrategy;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.http.ssl.SSLContexts;
 import org.opensearch.client.RestClientBuilder;
 
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLContext;
+
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
 
-/** Provides the default implementation for {@link RestClientFactory}. */
+/**
+ * Provides the default implementation for {@link RestClientFactory}.
+ *
+ * <p>Factories of the same class are equal, so that writers using them can share a client.
+ * Subclasses with a configuration of their own should override {@link #equals} and {@link
+ * #hashCode}.
+ */
 public class DefaultRestClientFactory implements RestClientFactory {
     private static final long serialVersionUID = 1L;
 
@@ -72,6 +91,8 @@ public class DefaultRestClientFactory implements RestClientFactory {
 
     protected void configureHttpClientBuilder(
             HttpAsyncClientBuilder httpClientBuilder, RestClientConfig networkClientConfig) {
+        configureConnectionPool(httpClientBuilder, networkClientConfig);
+
         if (networkClientConfig.getPassword() != null
                 && networkClientConfig.getUsername() != null) {
             final CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
@@ -84,14 +105,144 @@ public class DefaultRestClientFactory implements RestClientFactory {
         }
 
         if (networkClientConfig.isAllowInsecure().orElse(false)) {
-            try {
-                httpClientBuilder.setSSLContext(
-                        SSLContexts.custom().loadTrustMaterial(new TrustAllStrategy()).build());
-            } catch (final NoSuchAlgorithmException
-                    | KeyStoreException
-                    | KeyManagementException ex) {
-                throw new IllegalStateException("Unable to create custom SSL context", ex);
+            httpClientBuilder.setSSLContext(createTrustAllSSLContext());
+        }
+    }
+
+    /**
+     * Applies the I/O reactor, connection pool and keep-alive settings to the HTTP client.
+     *
+     * <p>If the metrics of the connection pool are enabled, the pool is created here instead of by
+     * the HTTP client, so that its statistics can be read. The HTTP client then ignores the SSL
+     * context set on its builder, and the pool uses the default SSL context, or one trusting all
+     * certificates if insecure connections are allowed. Subclasses configuring a custom SSL context
+     * must not enable the metrics, or register a pool of their own.
+     */
+    protected void configureConnectionPool(
+            HttpAsyncClientBuilder httpClientBuilder, RestClientConfig networkClientConfig) {
+        final IOReactorConfig ioReactorConfig = createIOReactorConfig(networkClientConfig);
+        final Long connectionTimeToLive = networkClientConfig.getConnectionTimeToLive();
+        if (networkClientConfig.isConnectionPoolMetricsEnabled()) {
+            final PoolingNHttpClientConnectionManager connectionManager =
+                    createConnectionManager(
+                            networkClientConfig,
+                            ioReactorConfig != null ? ioReactorConfig : IOReactorConfig.DEFAULT,
+                            connectionTimeToLive != null ? connectionTimeToLive : -1);
+            httpClientBuilder.setConnectionManager(connectionManager);
+            networkClientConfig.registerConnectionPool(connectionManager);
+        } else {
+            if (ioReactorConfig != null) {
+                httpClientBuilder.setDefaultIOReactorConfig(ioReactorConfig);
             }
+            if (networkClientConfig.getMaxConnectionsTotal() != null) {
+                httpClientBuilder.setMaxConnTotal(networkClientConfig.getMaxConnectionsTotal());
+            }
+            if (networkClientConfig.getMaxConnectionsPerRoute() != null) {
+                httpClientBuilder.setMaxConnPerRoute(
+                        networkClientConfig.getMaxConnectionsPerRoute());
+            }
+            if (connectionTimeToLive != null) {
+                httpClientBuilder.setConnectionTimeToLive(
+                        connectionTimeToLive, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        final Long keepAlive = networkClientConfig.getKeepAlive();
+        if (keepAlive != null) {
+            // a shorter keep-alive announced by the server still applies
+            httpClientBuilder.setKeepAliveStrategy(
+                    (response, context) -> {
+                        final long serverKeepAlive =
+                                DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(
+                                        response, context);
+                        return serverKeepAlive > 0
+                                ? Math.min(serverKeepAlive, keepAlive)
+                                : keepAlive;
+                    });
+        }
+    }
+
+    @Nullable
+    private static IOReactorConfig createIOReactorConfig(RestClientConfig networkClientConfig) {
+        if (networkClientConfig.getIoThreadCount() == null
+                && !networkClientConfig.isTcpNoDelay().isPresent()
+                && networkClientConfig.getSendBufferSize() == null) {
+            return null;
+        }
+        final IOReactorConfig.Builder builder = IOReactorConfig.custom();
+        if (networkClientConfig.getIoThreadCount() != null) {
+            builder.setIoThreadCount(networkClientConfig.getIoThreadCount());
+        }
+        networkClientConfig.isTcpNoDelay().ifPresent(builder::setTcpNoDelay);
+        if (networkClientConfig.getSendBufferSize() != null) {
+            builder.setSndBufSize(networkClientConfig.getSendBufferSize());
+        }
+        return builder.build();
+    }
+
+    private static PoolingNHttpClientConnectionManager createConnectionManager(
+            RestClientConfig networkClientConfig,
+            IOReactorConfig ioReactorConfig,
+            long connectionTimeToLive) {
+        final SSLContext sslContext;
+        try {
+            sslContext =
+                    networkClientConfig.isAllowInsecure().orElse(false)
+                            ? createTrustAllSSLContext()
+                            : SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to get the default SSL context", e);
+        }
+        final PoolingNHttpClientConnectionManager connectionManager;
+        try {
+            connectionManager =
+                    new PoolingNHttpClientConnectionManager(
+                            new DefaultConnectingIOReactor(ioReactorConfig),
+                            null,
+                            RegistryBuilder.<SchemeIOSessionStrategy>create()
+                                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                                    .register(
+                                            "https",
+                                            new SSLIOSessionStrategy(
+                                                    sslContext,
+                                                    null,
+                                                    null,
+                                                    SSLIOSessionStrategy
+                                                            .getDefaultHostnameVerifier()))
+                                    .build(),
+                            null,
+                            null,
+                            connectionTimeToLive,
+                            TimeUnit.MILLISECONDS);
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("Unable to create the I/O reactor", e);
+        }
+        connectionManager.setMaxTotal(
+                networkClientConfig.getMaxConnectionsTotal() != null
+                        ? networkClientConfig.getMaxConnectionsTotal()
+                        : RestClientBuilder.DEFAULT_MAX_CONN_TOTAL);
+        connectionManager.setDefaultMaxPerRoute(
+                networkClientConfig.getMaxConnectionsPerRoute() != null
+                        ? networkClientConfig.getMaxConnectionsPerRoute()
+                        : RestClientBuilder.DEFAULT_MAX_CONN_PER_ROUTE);
+        return connectionManager;
+    }
+
+    static SSLContext createTrustAllSSLContext() {
+        try {
+            return SSLContexts.custom().loadTrustMaterial(new TrustAllStrategy()).build();
+        } catch (final NoSuchAlgorithmException | KeyStoreException | KeyManagementException ex) {
+            throw new IllegalStateException("Unable to create custom SSL context", ex);
         }
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o != null && getClass() == o.getClass());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
 }
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.support.BasicRequestProducer;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.http.HttpHost;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * {@link BulkTransport} sending the bulk requests with an HTTP/2 client of Apache HttpClient 5,
+ * which multiplexes them over one connection per node. The nodes are used in turns, and a bulk
+ * request failing on a node is not sent to another one, the writer retries it instead.
+ */
+class Http2BulkTransport implements BulkTransport {
+
+    private final CloseableHttpAsyncClient client;
+    private final List<org.apache.hc.core5.http.HttpHost> hosts;
+    private final String bulkPath;
+    @Nullable private final String authorization;
+    private final AtomicInteger nextHost = new AtomicInteger();
+
+    Http2BulkTransport(
+            CloseableHttpAsyncClient client,
+            List<HttpHost> hosts,
+            @Nullable String pathPrefix,
+            @Nullable String authorization) {
+        checkArgument(!hosts.isEmpty(), "Hosts cannot be empty.");
+        this.client = checkNotNull(client);
+        this.hosts =
+                hosts.stream()
+                        .map(
+                                host ->
+                                        new org.apache.hc.core5.http.HttpHost(
+                                                host.getSchemeName(),
+                                                host.getHostName(),
+                                                host.getPort()))
+                        .collect(Collectors.toList());
+        this.bulkPath = bulkPath(pathPrefix);
+        this.authorization = authorization;
+    }
+
+    @Override
+    public void sendBulk(
+            byte[] body,
+            int length,
+            String contentType,
+            @Nullable String contentEncoding,
+            ResponseListener listener) {
+        final BasicHttpRequest request = new BasicHttpRequest(Method.POST, nextHost(), bulkPath);
+        request.addHeader(HttpHeaders.ACCEPT, contentType);
+        if (contentEncoding != null) {
+            request.addHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, contentEncoding);
+        }
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+
+        client.execute(
+                new BasicRequestProducer(
+                        request, new ByteArraySliceProducer(body, length, contentType)),
+                SimpleResponseConsumer.create(),
+                new FutureCallback<SimpleHttpResponse>() {
+                    @Override
+                    public void completed(SimpleHttpResponse response) {
+                        final Header responseEncoding =
+                                response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+                        final byte[] responseBody = response.getBodyBytes();
+                        listener.onResponse(
+                                response.getCode(),
+                                responseEncoding != null ? responseEncoding.getValue() : null,
+                                responseBody != null ? responseBody : new byte[0]);
+                    }
+
+                    @Override
+                    public void failed(Exception exception) {
+                        listener.onFailure(exception);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        listener.onFailure(
+                                new CancellationException("The bulk request was cancelled."));
+                    }
+                });
+    }
+
+    @Override
+    public void close() {
+        client.close(CloseMode.GRACEFUL);
+    }
+
+    private org.apache.hc.core5.http.HttpHost nextHost() {
+        return hosts.get(Math.floorMod(nextHost.getAndIncrement(), hosts.size()));
+    }
+
+    private static String bulkPath(@Nullable String pathPrefix) {
+        final String path = "/_bulk?filter_path=" + BulkResult.FILTER_PATH;
+        if (pathPrefix == null || pathPrefix.isEmpty()) {
+            return path;
+        }
+        String prefix = pathPrefix.startsWith("/") ? pathPrefix : "/" + pathPrefix;
+        if (prefix.endsWith("/")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+        return prefix + path;
+    }
+
+    /**
+     * Produces the first bytes of an array as request entity. The body of a bulk request is mostly
+     * only a part of the buffer it was encoded into, which is sent without copying it.
+     */
+    private static final class ByteArraySliceProducer implements AsyncEntityProducer {
+
+        private final ByteBuffer content;
+        private final String contentType;
+
+        private ByteArraySliceProducer(byte[] body, int length, String contentType) {
+            this.content = ByteBuffer.wrap(body, 0, length).slice();
+            this.contentType = contentType;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return content.capacity();
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        @Nullable
+        public String getContentEncoding() {
+            // the header is set on the request, the body is already encoded
+            return null;
+        }
+
+        @Override
+        public boolean isChunked() {
+            return false;
+        }
+
+        @Override
+        public Set<String> getTrailerNames() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public int available() {
+            return content.remaining();
+        }
+
+        @Override
+        public void produce(DataStreamChannel channel) throws IOException {
+            if (content.hasRemaining()) {
+                channel.write(content);
+            }
+            if (!content.hasRemaining()) {
+                channel.endStream();
+            }
+        }
+
+        @Override
+        public void failed(Exception cause) {}
+
+        @Override
+        public void releaseResources() {
+            // rewinds the content, so the request can be sent again
+            content.clear();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.http.HttpHost;
+
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLContext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Creates {@link BulkTransport transports} which send the bulk requests over HTTP/2 with Apache
+ * HttpClient 5. All bulk requests of a writer to the same node are multiplexed over a single
+ * connection, so concurrent bulk requests neither need a connection nor a TLS session each.
+ *
+ * <p>The Opensearch nodes must accept HTTP/2, negotiated with ALPN for HTTPS and with prior
+ * knowledge for plain HTTP. The credentials, timeouts, connection path prefix, insecure HTTPS
+ * connections and the I/O reactor settings of the sink apply; the connection pool settings do not,
+ * since there is only one connection per node. Requires {@code org.apache.httpcomponents.client5:
+ * httpclient5} on the classpath.
+ */
+@PublicEvolving
+public class Http2BulkTransportFactory implements BulkTransportFactory {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public BulkTransport createBulkTransport(
+            List<HttpHost> hosts, RestClientFactory.RestClientConfig clientConfig) {
+        final H2AsyncClientBuilder builder =
+                HttpAsyncClients.customHttp2()
+                        .setTlsStrategy(
+                                ClientTlsStrategyBuilder.create()
+                                        .setSslContext(createSSLContext(clientConfig))
+                                        .build())
+                        .setIOReactorConfig(createIOReactorConfig(clientConfig))
+                        .setDefaultRequestConfig(createRequestConfig(clientConfig));
+        configureHttpClientBuilder(builder, clientConfig);
+
+        final CloseableHttpAsyncClient client = builder.build();
+        client.start();
+        return new Http2BulkTransport(
+                client,
+                hosts,
+                clientConfig.getConnectionPathPrefix(),
+                createAuthorization(clientConfig));
+    }
+
+    /**
+     * Hook to further configure the HTTP client, e.g. with a custom TLS strategy.
+     *
+     * @param httpClientBuilder the builder of the HTTP client
+     * @param clientConfig the client network configuration
+     */
+    protected void configureHttpClientBuilder(
+            H2AsyncClientBuilder httpClientBuilder,
+            RestClientFactory.RestClientConfig clientConfig) {}
+
+    private static SSLContext createSSLContext(RestClientFactory.RestClientConfig clientConfig) {
+        if (clientConfig.isAllowInsecure().orElse(false)) {
+            return DefaultRestClientFactory.createTrustAllSSLContext();
+        }
+        try {
+            return SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to get the default SSL context", e);
+        }
+    }
+
+    private static IOReactorConfig createIOReactorConfig(
+            RestClientFactory.RestClientConfig clientConfig) {
+        final IOReactorConfig.Builder builder = IOReactorConfig.custom();
+        if (clientConfig.getIoThreadCount() != null) {
+            builder.setIoThreadCount(clientConfig.getIoThreadCount());
+        }
+        clientConfig.isTcpNoDelay().ifPresent(builder::setTcpNoDelay);
+        if (clientConfig.getSendBufferSize() != null) {
+            builder.setSndBufSize(clientConfig.getSendBufferSize());
+        }
+        if (clientConfig.getSocketTimeout() != null) {
+            builder.setSoTimeout(Timeout.ofMilliseconds(clientConfig.getSocketTimeout()));
+        }
+        return builder.build();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static RequestConfig createRequestConfig(
+            RestClientFactory.RestClientConfig clientConfig) {
+        final RequestConfig.Builder builder = RequestConfig.custom();
+        if (clientConfig.getConnectionRequestTimeout() != null) {
+            builder.setConnectionRequestTimeout(
+                    Timeout.ofMilliseconds(clientConfig.getConnectionRequestTimeout()));
+        }
+        if (clientConfig.getConnectionTimeout() != null) {
+            builder.setConnectTimeout(Timeout.ofMilliseconds(clientConfig.getConnectionTimeout()));
+        }
+        if (clientConfig.getSocketTimeout() != null) {
+            builder.setResponseTimeout(Timeout.ofMilliseconds(clientConfig.getSocketTimeout()));
+        }
+        return builder.build();
+    }
+
+    /** Returns the value of the Authorization header sent with every bulk request, if any. */
+    @Nullable
+    private static String createAuthorization(RestClientFactory.RestClientConfig clientConfig) {
+        if (clientConfig.getUsername() == null || clientConfig.getPassword() == null) {
+            return null;
+        }
+        final String credentials = clientConfig.getUsername() + ":" + clientConfig.getPassword();
+        return "Basic "
+                + Base64.getEncoder()
+                        .encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+}
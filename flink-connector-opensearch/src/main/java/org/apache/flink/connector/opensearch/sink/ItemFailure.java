@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.core.rest.RestStatus;
+
+import javax.annotation.Nullable;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * An action of a bulk request which Opensearch failed to execute and which is not retried, as
+ * handed to an {@link ItemFailureHandler}.
+ *
+ * <p>It only holds the structured parts of the failure. Messages and exceptions are created on
+ * request, and the action itself is only copied out of the bulk request on request, as long as the
+ * sink still holds it.
+ */
+@PublicEvolving
+public final class ItemFailure {
+
+    private final PendingAction action;
+    private final RestStatus status;
+    @Nullable private final String errorType;
+    @Nullable private final String reason;
+
+    ItemFailure(
+            PendingAction action,
+            RestStatus status,
+            @Nullable String errorType,
+            @Nullable String reason) {
+        this.action = checkNotNull(action);
+        this.status = checkNotNull(status);
+        this.errorType = errorType;
+        this.reason = reason;
+    }
+
+    /** Returns the index the action was sent to, or null if the bulk request has a default one. */
+    @Nullable
+    public String getIndex() {
+        return action.getIndex();
+    }
+
+    /** Returns the id of the document, or null if Opensearch was to generate it. */
+    @Nullable
+    public String getId() {
+        return action.getId();
+    }
+
+    public DocWriteRequest.OpType getOpType() {
+        return action.getOpType();
+    }
+
+    public RestStatus getStatus() {
+        return status;
+    }
+
+    /** Returns the type of the error, e.g. {@code mapper_parsing_exception}, if reported. */
+    @Nullable
+    public String getErrorType() {
+        return errorType;
+    }
+
+    @Nullable
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Returns a copy of the action as it was encoded in the bulk request: its metadata line
+     * followed by the source line, if it has one, in the content type of the bulk requests.
+     *
+     * @return the encoded action, or null if the sink released it when sending the bulk request,
+     *         because the action was not to be sent again
+     */
+    @Nullable
+    public byte[] getEncodedAction() {
+        return action.isReleased() ? null : action.toByteArray();
+    }
+
+    /** Renders a message describing the failure, without the source of the action. */
+    public String getMessage() {
+        return String.format(
+                "Single action %s of bulk request failed with status %s: "
+                        + "Opensearch exception [type=%s, reason=%s]",
+                action, status.getStatus(), errorType, reason);
+    }
+
+    /** Creates the exception the {@link FailureHandler} receives for this failure. */
+    public Throwable toException() {
+        return OpensearchWriter.wrapException(
+                status,
+                new FlinkRuntimeException(
+                        String.format(
+                                "Opensearch exception [type=%s, reason=%s]", errorType, reason)),
+                action);
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
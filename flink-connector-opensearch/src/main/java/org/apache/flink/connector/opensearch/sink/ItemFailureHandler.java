@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import java.util.List;
+
+/**
+ * A {@link FailureHandler} which receives the failed actions of a bulk request in a structured
+ * form instead of as chained exceptions, so that no message or exception is built for failures
+ * which are only counted or logged selectively.
+ *
+ * <p>The {@link OpensearchSink} hands at most the configured maximum number of failures per bulk
+ * request to the handler, see {@link OpensearchSinkBuilder#setMaxItemFailuresPerBulk(int)}. Other
+ * failures reported as exceptions are passed to {@link #onFailure(Throwable)}, which rethrows them
+ * by default. The {@link OpensearchCommittingSink} only reports exceptions and does not accept
+ * this handler.
+ */
+@PublicEvolving
+@FunctionalInterface
+public interface ItemFailureHandler extends FailureHandler {
+
+    /**
+     * Handles the actions of a bulk request which failed and are not retried.
+     *
+     * @param failures the first failed actions of the bulk request, in the order of the request
+     * @param numberOfFailures the number of failed actions of the bulk request, which exceeds the
+     *         size of the list if failures were left out because of the maximum
+     */
+    void onItemFailures(List<ItemFailure> failures, int numberOfFailures);
+
+    @Override
+    default void onFailure(Throwable failure) {
+        throw new FlinkRuntimeException(failure);
+    }
+}
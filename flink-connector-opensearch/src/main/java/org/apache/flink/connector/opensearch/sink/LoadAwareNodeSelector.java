@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.MetricGroup;
+
+import org.apache.http.HttpHost;
+import org.opensearch.client.Node;
+import org.opensearch.client.NodeSelector;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Sends every bulk request to the host with the lowest expected completion time instead of
+ * rotating through the hosts.
+ *
+ * <p>For every host, the selector tracks the number of in-flight bulk requests and an
+ * exponentially weighted moving average of their latency. The expected completion time of a new
+ * bulk request is the average latency times the number of bulk requests it would share the host
+ * with. Following the power of two choices, two random hosts are compared instead of all of them,
+ * which keeps writers sharing the same statistics from piling onto the same host. Hosts without
+ * latency samples are preferred until they have one.
+ *
+ * <p>Only requests sent within {@link #selectForBulk(Consumer)} are routed this way, other
+ * requests of the client, e.g. of the {@link NodeSniffer}, still rotate through the hosts. Since
+ * the client has only the chosen host to try, a bulk request does not fail over to another host
+ * within the client, and the writer retries bulk requests failing without a response instead.
+ *
+ * <p>A request is routed with the statistics of the selector it was sent through, no matter which
+ * selector the client was built with. This lets writers sharing a client keep their own
+ * statistics. The statistics of hosts which are removed from the client, e.g. by sniffing, are
+ * dropped. Since metrics cannot be unregistered, the gauges of such hosts report zero until they
+ * return.
+ */
+class LoadAwareNodeSelector implements NodeSelector {
+
+    /** Weight of the latest latency sample in the moving average. */
+    static final double LATENCY_SMOOTHING = 0.3;
+
+    /** Name of the group of the metrics of a host. */
+    static final String HOST_GROUP = "host";
+
+    /** Name of the gauge reporting the moving average of the bulk latency of a host. */
+    static final String HOST_BULK_LATENCY_GAUGE = "bulkLatencyMillis";
+
+    /** Name of the gauge reporting the number of in-flight bulk requests of a host. */
+    static final String HOST_IN_FLIGHT_REQUESTS_GAUGE = "inFlightBulkRequests";
+
+    /** Name of the counter of bulk requests sent to a host. */
+    static final String HOST_SELECTIONS_COUNTER = "numBulkRequestsSelected";
+
+    private final MetricGroup metricGroup;
+    private final Supplier<Random> random;
+    private final Map<HttpHost, HostLoad> hostLoads = new ConcurrentHashMap<>();
+
+    /** Counters of the hosts which metrics were registered for, they are kept if a host leaves. */
+    private final Map<HttpHost, Counter> hostSelections = new ConcurrentHashMap<>();
+
+    /** The nodes of the client the statistics were last pruned with. */
+    @Nullable private volatile List<Node> retainedNodes;
+
+    /** The selection of the bulk request currently being sent by this thread, if any. */
+    private static final ThreadLocal<Selection> PENDING_SELECTION = new ThreadLocal<>();
+
+    LoadAwareNodeSelector(MetricGroup metricGroup) {
+        // hosts are selected on the threads sending bulk requests, each uses its own random
+        this(metricGroup, ThreadLocalRandom::current);
+    }
+
+    @VisibleForTesting
+    LoadAwareNodeSelector(MetricGroup metricGroup, Supplier<Random> random) {
+        this.metricGroup = checkNotNull(metricGroup);
+        this.random = checkNotNull(random);
+    }
+
+    /**
+     * Drops the statistics of the hosts which are not among the given nodes of the client anymore.
+     * Does nothing if the client still has the nodes of the previous call.
+     *
+     * @param nodes the current nodes of the client
+     */
+    void retainHosts(List<Node> nodes) {
+        if (nodes == retainedNodes) {
+            return;
+        }
+        retainedNodes = nodes;
+        final Set<HttpHost> hosts = nodes.stream().map(Node::getHost).collect(Collectors.toSet());
+        hostLoads.keySet().retainAll(hosts);
+    }
+
+    /**
+     * Runs the given action, which must send exactly one bulk request with a client using a
+     * load-aware node selector, and routes the request to the least loaded host.
+     *
+     * @param send sends the bulk request and completes the given selection once the request has
+     *         finished
+     */
+    void selectForBulk(Consumer<Selection> send) {
+        final Selection selection = new Selection(this);
+        PENDING_SELECTION.set(selection);
+        try {
+            send.accept(selection);
+        } finally {
+            PENDING_SELECTION.remove();
+        }
+    }
+
+    @Override
+    public void select(Iterable<Node> nodes) {
+        final Selection selection = PENDING_SELECTION.get();
+        if (selection == null || selection.hostLoad != null) {
+            return;
+        }
+        selection.selector.selectLeastLoaded(nodes, selection);
+    }
+
+    private void selectLeastLoaded(Iterable<Node> nodes, Selection selection) {
+        final List<Node> candidates = new ArrayList<>();
+        nodes.forEach(candidates::add);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        final Node chosen = chooseNode(candidates);
+        for (final Iterator<Node> iterator = nodes.iterator(); iterator.hasNext(); ) {
+            if (iterator.next() != chosen) {
+                iterator.remove();
+            }
+        }
+        selection.start(hostLoadOf(chosen.getHost()));
+    }
+
+    private Node chooseNode(List<Node> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        final Random random = this.random.get();
+        final int first = random.nextInt(candidates.size());
+        final int second = (first + 1 + random.nextInt(candidates.size() - 1)) % candidates.size();
+        final Node firstNode = candidates.get(first);
+        final Node secondNode = candidates.get(second);
+        return hostLoadOf(secondNode.getHost()).expectedCompletionNanos()
+                        < hostLoadOf(firstNode.getHost()).expectedCompletionNanos()
+                ? secondNode
+                : firstNode;
+    }
+
+    @VisibleForTesting
+    HostLoad hostLoadOf(HttpHost host) {
+        return hostLoads.computeIfAbsent(
+                host,
+                ignored -> new HostLoad(hostSelections.computeIfAbsent(host, this::register)));
+    }
+
+    /**
+     * Registers the metrics of a host once. The gauges read the current statistics of the host, so
+     * they stay valid after the statistics were dropped and created again.
+     */
+    private Counter register(HttpHost host) {
+        final MetricGroup hostMetricGroup = metricGroup.addGroup(HOST_GROUP, host.toHostString());
+        hostMetricGroup.gauge(
+                HOST_BULK_LATENCY_GAUGE,
+                () -> {
+                    final HostLoad hostLoad = hostLoads.get(host);
+                    return hostLoad != null ? hostLoad.getLatencyMillis() : 0L;
+                });
+        hostMetricGroup.gauge(
+                HOST_IN_FLIGHT_REQUESTS_GAUGE,
+                () -> {
+                    final HostLoad hostLoad = hostLoads.get(host);
+                    return hostLoad != null ? hostLoad.getInFlightRequests() : 0;
+                });
+        return hostMetricGroup.counter(HOST_SELECTIONS_COUNTER);
+    }
+
+    @Override
+    public String toString() {
+        return "LEAST_LOADED";
+    }
+
+    /** The host chosen for a single bulk request. */
+    static class Selection {
+
+        private final LoadAwareNodeSelector selector;
+        @Nullable private HostLoad hostLoad;
+        private long startNanos;
+
+        private Selection(LoadAwareNodeSelector selector) {
+            this.selector = selector;
+        }
+
+        private void start(HostLoad hostLoad) {
+            this.hostLoad = hostLoad;
+            this.startNanos = System.nanoTime();
+            hostLoad.onStart();
+        }
+
+        /**
+         * Records the latency of the bulk request for its host. Does nothing if the request was
+         * not sent to any host.
+         */
+        void complete() {
+            if (hostLoad != null) {
+                hostLoad.onComplete(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    /** In-flight bulk requests and latency of a single host. */
+    static class HostLoad {
+
+        private final Counter selections;
+        private int inFlightRequests;
+        private double latencyNanos = -1;
+
+        HostLoad(Counter selections) {
+            this.selections = selections;
+        }
+
+        synchronized void onStart() {
+            inFlightRequests++;
+            selections.inc();
+        }
+
+        synchronized void onComplete(long sampleNanos) {
+            checkState(inFlightRequests > 0, "No bulk request is in flight.");
+            inFlightRequests--;
+            latencyNanos =
+                    latencyNanos < 0
+                            ? sampleNanos
+                            : LATENCY_SMOOTHING * sampleNanos
+                                    + (1 - LATENCY_SMOOTHING) * latencyNanos;
+        }
+
+        synchronized double expectedCompletionNanos() {
+            return latencyNanos < 0 ? 0 : latencyNanos * (inFlightRequests + 1);
+        }
+
+        synchronized int getInFlightRequests() {
+            return inFlightRequests;
+        }
+
+        synchronized long getLatencyMillis() {
+            return latencyNanos < 0 ? 0 : TimeUnit.NANOSECONDS.toMillis((long) latencyNanos);
+        }
+    }
+}
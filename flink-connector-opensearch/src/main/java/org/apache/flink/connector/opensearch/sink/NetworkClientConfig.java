@@ -18,11 +18,19 @@
 
 package org.apache.flink.connector.opensearch.sink;
 
+import org.apache.flink.annotation.VisibleForTesting;
+
+import org.opensearch.common.xcontent.XContentType;
+
 import javax.annotation.Nullable;
 
 import java.io.Serializable;
+import java.util.Objects;
 import java.util.Optional;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
 class NetworkClientConfig implements Serializable {
 
     @Nullable private final String username;
@@ -32,7 +40,16 @@ class NetworkClientConfig implements Serializable {
     @Nullable private final Integer connectionTimeout;
     @Nullable private final Integer socketTimeout;
     @Nullable private final Boolean allowInsecure;
+    private final CompressionType compressionType;
+    private final int compressionLevel;
+    @Nullable private final NodeSniffingConfig nodeSniffingConfig;
+    @Nullable private final ZoneAwareNodeSelectionConfig zoneAwareNodeSelectionConfig;
+    private final boolean loadAwareHostSelection;
+    private final boolean sharedClient;
+    private final ConnectionPoolConfig connectionPoolConfig;
+    private final XContentType bulkContentType;
 
+    @VisibleForTesting
     NetworkClientConfig(
             @Nullable String username,
             @Nullable String password,
@@ -41,6 +58,68 @@ class NetworkClientConfig implements Serializable {
             @Nullable Integer connectionTimeout,
             @Nullable Integer socketTimeout,
             @Nullable Boolean allowInsecure) {
+        this(
+                username,
+                password,
+                connectionPathPrefix,
+                connectionRequestTimeout,
+                connectionTimeout,
+                socketTimeout,
+                allowInsecure,
+                CompressionType.NONE,
+                CompressionType.DEFAULT_LEVEL);
+    }
+
+    NetworkClientConfig(
+            @Nullable String username,
+            @Nullable String password,
+            @Nullable String connectionPathPrefix,
+            @Nullable Integer connectionRequestTimeout,
+            @Nullable Integer connectionTimeout,
+            @Nullable Integer socketTimeout,
+            @Nullable Boolean allowInsecure,
+            CompressionType compressionType,
+            int compressionLevel) {
+        this(
+                username,
+                password,
+                connectionPathPrefix,
+                connectionRequestTimeout,
+                connectionTimeout,
+                socketTimeout,
+                allowInsecure,
+                compressionType,
+                compressionLevel,
+                null,
+                null,
+                false,
+                false,
+                ConnectionPoolConfig.defaults(),
+                XContentType.JSON);
+    }
+
+    NetworkClientConfig(
+            @Nullable String username,
+            @Nullable String password,
+            @Nullable String connectionPathPrefix,
+            @Nullable Integer connectionRequestTimeout,
+            @Nullable Integer connectionTimeout,
+            @Nullable Integer socketTimeout,
+            @Nullable Boolean allowInsecure,
+            CompressionType compressionType,
+            int compressionLevel,
+            @Nullable NodeSniffingConfig nodeSniffingConfig,
+            @Nullable ZoneAwareNodeSelectionConfig zoneAwareNodeSelectionConfig,
+            boolean loadAwareHostSelection,
+            boolean sharedClient,
+            ConnectionPoolConfig connectionPoolConfig,
+            XContentType bulkContentType) {
+        checkArgument(
+                compressionLevel >= -1 && compressionLevel <= 9,
+                "Compression level must be between -1 and 9.");
+        checkArgument(
+                bulkContentType == XContentType.JSON || bulkContentType == XContentType.SMILE,
+                "Bulk requests can only be encoded as JSON or SMILE.");
         this.username = username;
         this.password = password;
         this.connectionPathPrefix = connectionPathPrefix;
@@ -48,6 +127,14 @@ class NetworkClientConfig implements Serializable {
         this.connectionTimeout = connectionTimeout;
         this.socketTimeout = socketTimeout;
         this.allowInsecure = allowInsecure;
+        this.compressionType = checkNotNull(compressionType);
+        this.compressionLevel = compressionLevel;
+        this.nodeSniffingConfig = nodeSniffingConfig;
+        this.zoneAwareNodeSelectionConfig = zoneAwareNodeSelectionConfig;
+        this.loadAwareHostSelection = loadAwareHostSelection;
+        this.sharedClient = sharedClient;
+        this.connectionPoolConfig = checkNotNull(connectionPoolConfig);
+        this.bulkContentType = bulkContentType;
     }
 
     @Nullable
@@ -83,4 +170,84 @@ class NetworkClientConfig implements Serializable {
     public Optional<Boolean> isAllowInsecure() {
         return Optional.ofNullable(allowInsecure);
     }
+
+    public CompressionType getCompressionType() {
+        return compressionType;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    @Nullable
+    public NodeSniffingConfig getNodeSniffingConfig() {
+        return nodeSniffingConfig;
+    }
+
+    @Nullable
+    public ZoneAwareNodeSelectionConfig getZoneAwareNodeSelectionConfig() {
+        return zoneAwareNodeSelectionConfig;
+    }
+
+    public boolean isLoadAwareHostSelection() {
+        return loadAwareHostSelection;
+    }
+
+    public boolean isSharedClient() {
+        return sharedClient;
+    }
+
+    public ConnectionPoolConfig getConnectionPoolConfig() {
+        return connectionPoolConfig;
+    }
+
+    public XContentType getBulkContentType() {
+        return bulkContentType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final NetworkClientConfig that = (NetworkClientConfig) o;
+        return compressionLevel == that.compressionLevel
+                && loadAwareHostSelection == that.loadAwareHostSelection
+                && sharedClient == that.sharedClient
+                && Objects.equals(username, that.username)
+                && Objects.equals(password, that.password)
+                && Objects.equals(connectionPathPrefix, that.connectionPathPrefix)
+                && Objects.equals(connectionRequestTimeout, that.connectionRequestTimeout)
+                && Objects.equals(connectionTimeout, that.connectionTimeout)
+                && Objects.equals(socketTimeout, that.socketTimeout)
+                && Objects.equals(allowInsecure, that.allowInsecure)
+                && compressionType == that.compressionType
+                && Objects.equals(nodeSniffingConfig, that.nodeSniffingConfig)
+                && Objects.equals(zoneAwareNodeSelectionConfig, that.zoneAwareNodeSelectionConfig)
+                && connectionPoolConfig.equals(that.connectionPoolConfig)
+                && bulkContentType == that.bulkContentType;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                username,
+                password,
+                connectionPathPrefix,
+                connectionRequestTimeout,
+                connectionTimeout,
+                socketTimeout,
+                allowInsecure,
+                compressionType,
+                compressionLevel,
+                nodeSniffingConfig,
+                zoneAwareNodeSelectionConfig,
+                loadAwareHostSelection,
+                sharedClient,
+                connectionPoolConfig,
+                bulkContentType);
+    }
 }
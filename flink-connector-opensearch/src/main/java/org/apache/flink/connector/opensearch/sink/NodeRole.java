@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import java.util.Collection;
+
+/** Roles of the Opensearch nodes which the sink sends its requests to when sniffing nodes. */
+@PublicEvolving
+public enum NodeRole {
+    /** Nodes with the ingest role, which run ingest pipelines before indexing. */
+    INGEST,
+    /** Nodes with the data role, which hold shards. */
+    DATA,
+    /**
+     * Nodes without the cluster manager, data and ingest roles, which only coordinate requests.
+     */
+    COORDINATING_ONLY;
+
+    /**
+     * Checks whether a node with the given roles, as reported by the nodes info API, has this role.
+     *
+     * @param roles the names of the roles of the node
+     * @return true if the node has this role
+     */
+    boolean matches(Collection<String> roles) {
+        switch (this) {
+            case INGEST:
+                return roles.contains("ingest");
+            case DATA:
+                return roles.contains("data");
+            case COORDINATING_ONLY:
+                return !roles.contains("ingest")
+                        && !roles.contains("data")
+                        && !isClusterManagerEligible(roles);
+            default:
+                throw new IllegalStateException("Unknown node role " + this);
+        }
+    }
+
+    /**
+     * Checks whether a node with the given roles can be elected as cluster manager. Older nodes
+     * report the role under its former name master.
+     *
+     * @param roles the names of the roles of the node
+     * @return true if the node is cluster manager eligible
+     */
+    static boolean isClusterManagerEligible(Collection<String> roles) {
+        return roles.contains("cluster_manager") || roles.contains("master");
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.util.ExceptionUtils;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.methods.HttpGet;
+import org.opensearch.client.Node;
+import org.opensearch.client.Request;
+import org.opensearch.client.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.apache.flink.connector.opensearch.sink.ClusterInfoRequests.performRequestAsync;
+import static org.apache.flink.connector.opensearch.sink.ClusterInfoRequests.toHttpHost;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Discovers the nodes of the Opensearch cluster through the nodes info API and lets the client
+ * send its requests to the nodes with one of the configured roles, similar to the sniffer of the
+ * low-level client.
+ *
+ * <p>The nodes are sniffed when the client is started, in a fixed interval and shortly after a
+ * request to a node has failed. If sniffing fails or no node has one of the roles, the client
+ * keeps its current nodes. The nodes info API is requested asynchronously, so that sniffing never
+ * blocks the scheduler thread, which is shared with the periodic flushes and possibly other
+ * writers. A sniff is skipped while the previous one is still outstanding.
+ */
+class NodeSniffer extends RestClient.FailureListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NodeSniffer.class);
+
+    private final NodeSniffingConfig config;
+    private final String scheme;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean sniffAfterFailureScheduled = new AtomicBoolean(false);
+    private volatile RestClient client;
+    private volatile CompletableFuture<Void> lastSniff = CompletableFuture.completedFuture(null);
+
+    NodeSniffer(NodeSniffingConfig config, String scheme, ScheduledExecutorService scheduler) {
+        this.config = checkNotNull(config);
+        this.scheme = checkNotNull(scheme);
+        this.scheduler = checkNotNull(scheduler);
+    }
+
+    /**
+     * Starts sniffing the nodes for the given client.
+     *
+     * @param client the client whose nodes are updated
+     */
+    void start(RestClient client) {
+        this.client = checkNotNull(client);
+        scheduler.scheduleWithFixedDelay(
+                this::sniff, 0, config.getSniffIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onFailure(Node node) {
+        if (client == null || !sniffAfterFailureScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        LOG.debug("Request to {} failed, sniffing the nodes of the cluster.", node.getHost());
+        try {
+            scheduler.schedule(
+                    () -> {
+                        sniffAfterFailureScheduled.set(false);
+                        sniff();
+                    },
+                    config.getSniffAfterFailureDelayMillis(),
+                    TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the writer is closed
+            sniffAfterFailureScheduled.set(false);
+        }
+    }
+
+    /** Sniffs the nodes, unless the previous sniff is still outstanding, without blocking. */
+    void sniff() {
+        if (!lastSniff.isDone()) {
+            LOG.debug("The previous sniff is still outstanding, skipping this one.");
+            return;
+        }
+        final Request request = new Request(HttpGet.METHOD_NAME, "/_nodes/http");
+        request.addParameter(
+                "filter_path",
+                "nodes.*.name,nodes.*.version,nodes.*.roles,nodes.*.attributes,"
+                        + "nodes.*.http.publish_address");
+        lastSniff =
+                performRequestAsync(client, request)
+                        .thenApply(
+                                nodesInfo ->
+                                        parseNodes(
+                                                nodesInfo,
+                                                scheme,
+                                                config.getRoles(),
+                                                config.isSkipClusterManagerEligibleNodes()))
+                        .handle(this::updateNodes);
+    }
+
+    /** Returns the last sniff, which completes once the nodes are updated or sniffing failed. */
+    @VisibleForTesting
+    CompletableFuture<Void> getLastSniff() {
+        return lastSniff;
+    }
+
+    private Void updateNodes(@Nullable List<Node> nodes, @Nullable Throwable failure) {
+        if (failure != null) {
+            LOG.warn(
+                    "Failed to sniff the nodes of the cluster, keeping {}.",
+                    hostsOf(client),
+                    ExceptionUtils.stripCompletionException(failure));
+            return null;
+        }
+        if (nodes.isEmpty()) {
+            LOG.warn(
+                    "No sniffed node has one of the roles {}, keeping {}.",
+                    config.getRoles(),
+                    hostsOf(client));
+            return null;
+        }
+        final Set<HttpHost> hosts = hostsOf(nodes);
+        if (!hosts.equals(hostsOf(client))) {
+            LOG.info("Sending requests to the sniffed nodes {}.", hosts);
+        }
+        client.setNodes(nodes);
+        return null;
+    }
+
+    /**
+     * Parses the response of the nodes info API.
+     *
+     * @param nodesInfo the parsed response
+     * @param scheme the scheme the nodes are reachable with
+     * @param roles the roles of which a node must have at least one
+     * @param skipClusterManagerEligibleNodes whether nodes which can be elected as cluster manager
+     *         are left out, even if they have one of the roles
+     * @return the nodes with an HTTP address and one of the roles
+     */
+    @SuppressWarnings("unchecked")
+    static List<Node> parseNodes(
+            Map<String, Object> nodesInfo,
+            String scheme,
+            Collection<NodeRole> roles,
+            boolean skipClusterManagerEligibleNodes) {
+        final Object nodes = nodesInfo.get("nodes");
+        if (nodes == null) {
+            return Collections.emptyList();
+        }
+        final List<Node> result = new ArrayList<>();
+        for (final Object value : ((Map<String, Object>) nodes).values()) {
+            final Map<String, Object> node = (Map<String, Object>) value;
+            final Map<String, Object> http = (Map<String, Object>) node.get("http");
+            if (http == null || http.get("publish_address") == null) {
+                // the node does not accept HTTP requests
+                continue;
+            }
+            final List<String> nodeRoles =
+                    (List<String>) node.getOrDefault("roles", Collections.emptyList());
+            if (roles.stream().noneMatch(role -> role.matches(nodeRoles))
+                    || (skipClusterManagerEligibleNodes
+                            && NodeRole.isClusterManagerEligible(nodeRoles))) {
+                continue;
+            }
+            final Map<String, List<String>> attributes = new HashMap<>();
+            ((Map<String, Object>) node.getOrDefault("attributes", Collections.emptyMap()))
+                    .forEach(
+                            (key, attribute) ->
+                                    attributes.put(
+                                            key,
+                                            Collections.singletonList(String.valueOf(attribute))));
+            result.add(
+                    new Node(
+                            toHttpHost(http.get("publish_address").toString(), scheme),
+                            null,
+                            (String) node.get("name"),
+                            (String) node.get("version"),
+                            new Node.Roles(new TreeSet<>(nodeRoles)),
+                            attributes));
+        }
+        return result;
+    }
+
+    private static Set<HttpHost> hostsOf(RestClient client) {
+        return hostsOf(client.getNodes());
+    }
+
+    private static Set<HttpHost> hostsOf(List<Node> nodes) {
+        return nodes.stream().map(Node::getHost).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Objects;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/** Interval and node roles of the {@link NodeSniffer}. */
+class NodeSniffingConfig implements Serializable {
+
+    private final long sniffIntervalMillis;
+    private final long sniffAfterFailureDelayMillis;
+    private final EnumSet<NodeRole> roles;
+    private final boolean skipClusterManagerEligibleNodes;
+
+    NodeSniffingConfig(
+            long sniffIntervalMillis,
+            long sniffAfterFailureDelayMillis,
+            Collection<NodeRole> roles,
+            boolean skipClusterManagerEligibleNodes) {
+        checkArgument(sniffIntervalMillis > 0, "Sniff interval must be larger than 0.");
+        checkArgument(
+                sniffAfterFailureDelayMillis >= 0,
+                "Sniff delay after failures must be larger than or equal to 0.");
+        checkArgument(!checkNotNull(roles).isEmpty(), "Node roles cannot be empty.");
+        this.sniffIntervalMillis = sniffIntervalMillis;
+        this.sniffAfterFailureDelayMillis = sniffAfterFailureDelayMillis;
+        this.roles = EnumSet.copyOf(roles);
+        this.skipClusterManagerEligibleNodes = skipClusterManagerEligibleNodes;
+    }
+
+    public long getSniffIntervalMillis() {
+        return sniffIntervalMillis;
+    }
+
+    public long getSniffAfterFailureDelayMillis() {
+        return sniffAfterFailureDelayMillis;
+    }
+
+    public EnumSet<NodeRole> getRoles() {
+        return EnumSet.copyOf(roles);
+    }
+
+    public boolean isSkipClusterManagerEligibleNodes() {
+        return skipClusterManagerEligibleNodes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final NodeSniffingConfig that = (NodeSniffingConfig) o;
+        return sniffIntervalMillis == that.sniffIntervalMillis
+                && sniffAfterFailureDelayMillis == that.sniffAfterFailureDelayMillis
+                && roles.equals(that.roles)
+                && skipClusterManagerEligibleNodes == that.skipClusterManagerEligibleNodes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                sniffIntervalMillis,
+                sniffAfterFailureDelayMillis,
+                roles,
+                skipClusterManagerEligibleNodes);
+    }
+
+    @Override
+    public String toString() {
+        return "NodeSniffingConfig{"
+                + "sniffIntervalMillis="
+                + sniffIntervalMillis
+                + ", sniffAfterFailureDelayMillis="
+                + sniffAfterFailureDelayMillis
+                + ", roles="
+                + roles
+                + ", skipClusterManagerEligibleNodes="
+                + skipClusterManagerEligibleNodes
+                + '}';
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import org.opensearch.action.DocWriteRequest;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Committable of an {@link OpensearchCommittingSink}: a sealed batch of actions which is sent to
+ * Opensearch as one bulk request once the checkpoint it belongs to has completed.
+ */
+@PublicEvolving
+public final class OpensearchCommittable {
+
+    private final List<DocWriteRequest<?>> requests;
+
+    OpensearchCommittable(List<DocWriteRequest<?>> requests) {
+        this.requests = Collections.unmodifiableList(checkNotNull(requests));
+    }
+
+    List<DocWriteRequest<?>> getRequests() {
+        return requests;
+    }
+
+    @Override
+    public String toString() {
+        return "OpensearchCommittable{" + "requests=" + requests.size() + '}';
+    }
+}
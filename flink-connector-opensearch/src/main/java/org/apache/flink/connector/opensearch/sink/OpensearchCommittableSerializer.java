@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.core.io.SimpleVersionedSerializer;
+
+import org.opensearch.Version;
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.core.common.bytes.BytesReference;
+import org.opensearch.core.common.io.stream.StreamInput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializes the {@link OpensearchCommittable} with the transport wire format of Opensearch. The
+ * Opensearch version the requests were written with is stored as well, so that they can be read
+ * by committers using a newer Opensearch client.
+ */
+@Internal
+class OpensearchCommittableSerializer implements SimpleVersionedSerializer<OpensearchCommittable> {
+
+    private static final int VERSION = 1;
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public byte[] serialize(OpensearchCommittable committable) throws IOException {
+        try (final BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(Version.CURRENT);
+            out.writeVInt(Version.CURRENT.id);
+            out.writeVInt(committable.getRequests().size());
+            for (final DocWriteRequest<?> request : committable.getRequests()) {
+                DocWriteRequest.writeDocumentRequest(out, request);
+            }
+            return BytesReference.toBytes(out.bytes());
+        }
+    }
+
+    @Override
+    public OpensearchCommittable deserialize(int version, byte[] serialized) throws IOException {
+        if (version != VERSION) {
+            throw new IOException("Unrecognized version or corrupt committable: " + version);
+        }
+        try (final StreamInput in = StreamInput.wrap(serialized)) {
+            in.setVersion(Version.fromId(in.readVInt()));
+            final int numberOfRequests = in.readVInt();
+            final List<DocWriteRequest<?>> requests = new ArrayList<>(numberOfRequests);
+            for (int i = 0; i < numberOfRequests; i++) {
+                requests.add(DocWriteRequest.readDocumentRequest(null, in));
+            }
+            return new OpensearchCommittable(requests);
+        }
+    }
+}
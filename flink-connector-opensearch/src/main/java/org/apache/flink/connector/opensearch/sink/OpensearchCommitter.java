@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.api.connector.sink2.Committer;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import org.apache.http.HttpHost;
+import org.opensearch.ExceptionsHelper;
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.RestClient;
+import org.opensearch.client.RestClientBuilder;
+import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.core.action.ActionListener;
+import org.opensearch.core.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+import static org.apache.flink.connector.opensearch.sink.OpensearchWriter.isRetryable;
+import static org.apache.flink.connector.opensearch.sink.OpensearchWriter.wrapException;
+import static org.apache.flink.util.ExceptionUtils.firstOrSuppressed;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Committer of the {@link OpensearchCommittingSink}. It sends every {@link OpensearchCommittable}
+ * as one bulk request once the checkpoint it belongs to has completed, so that waiting for
+ * Opensearch never delays a checkpoint barrier.
+ *
+ * <p>The committables of a checkpoint are sent concurrently, bounded by the configured number of
+ * in-flight bulk requests. Every committable is sent once per commit: actions which failed with a
+ * retryable status, or whose complete bulk request failed with a retryable error, are handed back
+ * to Flink to be committed again later, instead of blocking the commit while backing off. All
+ * other failures are passed to the {@link FailureHandler}, chained into one exception per bulk
+ * request. Like the {@link OpensearchWriter}, at most the configured maximum number of failures per
+ * bulk request is turned into an exception, further failures are only counted.
+ */
+class OpensearchCommitter implements Committer<OpensearchCommittable> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpensearchCommitter.class);
+
+    private final RestHighLevelClient client;
+    private final Semaphore inFlightRequests;
+    private final FailureHandler failureHandler;
+    private final int maxItemFailuresPerBulk;
+
+    /**
+     * Constructor creating an Opensearch committer.
+     *
+     * @param hosts the reachable Opensearch cluster nodes
+     * @param bulkProcessorConfig describing the concurrency of the bulk requests and the maximum
+     *         number of failures reported per bulk request
+     * @param networkClientConfig describing properties of the network connection used to connect to
+     *         the Opensearch cluster
+     * @param restClientFactory configuring the rest client
+     * @param failureHandler handling the actions which failed with a non-retryable status
+     */
+    OpensearchCommitter(
+            List<HttpHost> hosts,
+            BulkProcessorConfig bulkProcessorConfig,
+            NetworkClientConfig networkClientConfig,
+            RestClientFactory restClientFactory,
+            FailureHandler failureHandler) {
+        checkNotNull(bulkProcessorConfig);
+        final RestClientBuilder builder = RestClient.builder(hosts.toArray(new HttpHost[0]));
+        checkNotNull(restClientFactory)
+                .configureRestClientBuilder(
+                        builder, new DefaultRestClientConfig(networkClientConfig));
+        this.client = new RestHighLevelClient(builder);
+        this.inFlightRequests =
+                new Semaphore(bulkProcessorConfig.getBulkFlushMaxInFlightRequests());
+        this.failureHandler = checkNotNull(failureHandler);
+        this.maxItemFailuresPerBulk = bulkProcessorConfig.getMaxItemFailuresPerBulk();
+    }
+
+    @Override
+    public void commit(Collection<CommitRequest<OpensearchCommittable>> commitRequests)
+            throws IOException, InterruptedException {
+        final List<CompletableFuture<BulkOutcome>> outcomes = new ArrayList<>();
+        long sentBytes = 0;
+        for (final CommitRequest<OpensearchCommittable> commitRequest : commitRequests) {
+            inFlightRequests.acquire();
+            final BulkRequest bulkRequest = new BulkRequest();
+            commitRequest.getCommittable().getRequests().forEach(bulkRequest::add);
+            sentBytes += bulkRequest.estimatedSizeInBytes();
+            final CompletableFuture<BulkOutcome> outcome = send(bulkRequest);
+            outcome.whenComplete((ignored, failure) -> inFlightRequests.release());
+            outcomes.add(outcome);
+        }
+        LOG.debug("Sent {} bulk requests of {} bytes.", outcomes.size(), sentBytes);
+
+        // only the responses of this attempt are awaited, retries are left to Flink
+        int i = 0;
+        for (final CommitRequest<OpensearchCommittable> commitRequest : commitRequests) {
+            final BulkOutcome outcome;
+            try {
+                outcome = outcomes.get(i++).get();
+            } catch (ExecutionException e) {
+                commitRequest.signalFailedWithUnknownReason(e.getCause());
+                continue;
+            }
+            handleOutcome(commitRequest, outcome);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        client.close();
+    }
+
+    private void handleOutcome(
+            CommitRequest<OpensearchCommittable> commitRequest, BulkOutcome outcome) {
+        if (outcome.bulkFailure != null) {
+            commitRequest.signalFailedWithUnknownReason(
+                    new FlinkRuntimeException("Complete bulk has failed.", outcome.bulkFailure));
+            return;
+        }
+        if (outcome.failures != null) {
+            failureHandler.onFailure(outcome.failures);
+        }
+        if (outcome.retryLater.isEmpty()) {
+            return;
+        }
+        LOG.warn(
+                "Committing {} actions again later after {} attempts.",
+                outcome.retryLater.size(),
+                commitRequest.getNumberOfRetries() + 1);
+        if (outcome.retryLater.size() == commitRequest.getCommittable().getRequests().size()) {
+            commitRequest.retryLater();
+        } else {
+            commitRequest.updateAndRetryLater(new OpensearchCommittable(outcome.retryLater));
+        }
+    }
+
+    private CompletableFuture<BulkOutcome> send(BulkRequest bulkRequest) {
+        final List<DocWriteRequest<?>> actions = bulkRequest.requests();
+        LOG.debug("Committing bulk of {} actions to Opensearch.", actions.size());
+
+        final CompletableFuture<BulkOutcome> outcome = new CompletableFuture<>();
+        client.bulkAsync(
+                bulkRequest,
+                RequestOptions.DEFAULT,
+                new ActionListener<BulkResponse>() {
+                    @Override
+                    public void onResponse(BulkResponse response) {
+                        outcome.complete(handleResponse(actions, response));
+                    }
+
+                    @Override
+                    public void onFailure(Exception failure) {
+                        outcome.complete(handleBulkFailure(actions, failure));
+                    }
+                });
+        return outcome;
+    }
+
+    private BulkOutcome handleResponse(List<DocWriteRequest<?>> actions, BulkResponse response) {
+        final BulkOutcome outcome = new BulkOutcome();
+        if (!response.hasFailures()) {
+            return outcome;
+        }
+
+        Throwable chainedFailures = null;
+        int numberOfFailures = 0;
+        for (int i = 0; i < response.getItems().length; i++) {
+            final BulkItemResponse itemResponse = response.getItems()[i];
+            if (!itemResponse.isFailed()) {
+                continue;
+            }
+            final RestStatus restStatus = itemResponse.getFailure().getStatus();
+            if (isRetryable(restStatus)) {
+                outcome.retryLater.add(actions.get(i));
+                continue;
+            }
+            final Throwable failure = itemResponse.getFailure().getCause();
+            if (failure != null && numberOfFailures++ < maxItemFailuresPerBulk) {
+                chainedFailures =
+                        firstOrSuppressed(
+                                wrapException(restStatus, failure, actions.get(i)),
+                                chainedFailures);
+            }
+        }
+        if (chainedFailures != null && numberOfFailures > maxItemFailuresPerBulk) {
+            chainedFailures.addSuppressed(
+                    new FlinkRuntimeException(
+                            String.format(
+                                    "%d more actions of the bulk request failed.",
+                                    numberOfFailures - maxItemFailuresPerBulk)));
+        }
+        outcome.failures = chainedFailures;
+        return outcome;
+    }
+
+    private BulkOutcome handleBulkFailure(List<DocWriteRequest<?>> actions, Exception failure) {
+        final BulkOutcome outcome = new BulkOutcome();
+        if (failure instanceof IOException || isRetryable(ExceptionsHelper.status(failure))) {
+            LOG.warn(
+                    "Bulk of {} actions has failed, committing it again later.",
+                    actions.size(),
+                    failure);
+            outcome.retryLater.addAll(actions);
+        } else {
+            outcome.bulkFailure = failure;
+        }
+        return outcome;
+    }
+
+    /** Result of sending one committable. */
+    private static class BulkOutcome {
+
+        /** Actions which failed with a retryable status and are committed again later. */
+        private final List<DocWriteRequest<?>> retryLater = new ArrayList<>();
+
+        /** Chained failures of the actions which failed with a non-retryable status. */
+        @Nullable private Throwable failures;
+
+        /** Failure of the complete bulk request if it cannot be retried. */
+        @Nullable private Exception bulkFailure;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+import org.apache.flink.api.connector.sink2.Committer;
+import org.apache.flink.api.connector.sink2.TwoPhaseCommittingSink;
+import org.apache.flink.core.io.SimpleVersionedSerializer;
+
+import org.apache.http.HttpHost;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Flink Sink to insert or update data in an Opensearch index which sends the actions only after
+ * the checkpoint they belong to has completed. It provides {@link
+ * org.apache.flink.connector.base.DeliveryGuarantee#AT_LEAST_ONCE} semantics.
+ *
+ * <p>In contrast to the {@link OpensearchSink}, the writer never waits for Opensearch. On a
+ * checkpoint it seals the buffered actions into batches which become part of the checkpoint, and
+ * the committer sends and retries them once the checkpoint has completed. Checkpoint barriers are
+ * therefore never held back by a slow cluster, which works well with unaligned checkpoints. The
+ * trade-off is that actions only become visible in Opensearch after the checkpoint completed.
+ *
+ * <p>Batches might be sent to Opensearch multiple times when Flink restarts, so idempotent
+ * actions with deterministic ids should be used.
+ *
+ * @param <IN> type of the records converted to Opensearch actions
+ * @see OpensearchSinkBuilder#buildTwoPhaseCommitting() on how to construct a
+ *     OpensearchCommittingSink
+ */
+@PublicEvolving
+public class OpensearchCommittingSink<IN>
+        implements TwoPhaseCommittingSink<IN, OpensearchCommittable> {
+
+    private final List<HttpHost> hosts;
+    private final OpensearchEmitter<? super IN> emitter;
+    private final BulkProcessorConfig buildBulkProcessorConfig;
+    private final NetworkClientConfig networkClientConfig;
+    private final RestClientFactory restClientFactory;
+    private final FailureHandler failureHandler;
+
+    OpensearchCommittingSink(
+            List<HttpHost> hosts,
+            OpensearchEmitter<? super IN> emitter,
+            BulkProcessorConfig buildBulkProcessorConfig,
+            NetworkClientConfig networkClientConfig,
+            RestClientFactory restClientFactory,
+            FailureHandler failureHandler) {
+        this.hosts = checkNotNull(hosts);
+        checkArgument(!hosts.isEmpty(), "Hosts cannot be empty.");
+        this.emitter = checkNotNull(emitter);
+        this.buildBulkProcessorConfig = checkNotNull(buildBulkProcessorConfig);
+        this.networkClientConfig = checkNotNull(networkClientConfig);
+        this.restClientFactory = checkNotNull(restClientFactory);
+        this.failureHandler = checkNotNull(failureHandler);
+    }
+
+    @Override
+    public PrecommittingSinkWriter<IN, OpensearchCommittable> createWriter(InitContext context)
+            throws IOException {
+        return new OpensearchCommittingWriter<>(
+                emitter, buildBulkProcessorConfig, context.metricGroup());
+    }
+
+    @Override
+    public Committer<OpensearchCommittable> createCommitter() throws IOException {
+        return new OpensearchCommitter(
+                hosts,
+                buildBulkProcessorConfig,
+                networkClientConfig,
+                restClientFactory,
+                failureHandler);
+    }
+
+    @Override
+    public SimpleVersionedSerializer<OpensearchCommittable> getCommittableSerializer() {
+        return new OpensearchCommittableSerializer();
+    }
+}
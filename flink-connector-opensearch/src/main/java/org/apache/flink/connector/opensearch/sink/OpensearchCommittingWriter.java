@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.api.connector.sink2.TwoPhaseCommittingSink.PrecommittingSinkWriter;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.groups.SinkWriterMetricGroup;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.delete.DeleteRequest;
+import org.opensearch.action.index.IndexRequest;
+import org.opensearch.action.update.UpdateRequest;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.common.unit.ByteSizeUnit;
+import org.opensearch.core.common.unit.ByteSizeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Writer of the {@link OpensearchCommittingSink}. It only seals the actions produced by the {@link
+ * OpensearchEmitter} into batches and hands them to the {@link OpensearchCommitter} on {@link
+ * #prepareCommit()}, so it never waits for Opensearch.
+ *
+ * <p>A batch is sealed once it reaches the configured maximum number of actions or size, and in
+ * any case on {@link #prepareCommit()}. As the writer sends nothing, it does not count any bytes
+ * out. The sealed batches are held in memory until the next checkpoint and are not bounded: all
+ * actions a writer receives within one checkpoint interval must fit into its heap.
+ */
+class OpensearchCommittingWriter<IN> implements PrecommittingSinkWriter<IN, OpensearchCommittable> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpensearchCommittingWriter.class);
+
+    /** Number of actions after which a batch is sealed if nothing is configured. */
+    private static final int DEFAULT_BATCH_ACTIONS = 1000;
+
+    /** Size after which a batch is sealed if nothing is configured. */
+    private static final long DEFAULT_BATCH_SIZE_BYTES =
+            new ByteSizeValue(5, ByteSizeUnit.MB).getBytes();
+
+    private final OpensearchEmitter<? super IN> emitter;
+    private final int batchMaxActions;
+    private final long batchMaxBytes;
+    private final RequestIndexer requestIndexer;
+
+    private List<OpensearchCommittable> sealedBatches = new ArrayList<>();
+    private BulkRequest currentBatch = new BulkRequest();
+
+    /**
+     * Constructor creating a committing Opensearch writer.
+     *
+     * @param emitter converting incoming records to Opensearch actions
+     * @param bulkProcessorConfig describing the maximum number of actions and size of a batch
+     * @param metricGroup for the sink writer
+     */
+    OpensearchCommittingWriter(
+            OpensearchEmitter<? super IN> emitter,
+            BulkProcessorConfig bulkProcessorConfig,
+            SinkWriterMetricGroup metricGroup) {
+        this.emitter = checkNotNull(emitter);
+        checkNotNull(bulkProcessorConfig);
+        this.batchMaxActions =
+                bulkProcessorConfig.getBulkFlushMaxActions() != -1
+                        ? bulkProcessorConfig.getBulkFlushMaxActions()
+                        : DEFAULT_BATCH_ACTIONS;
+        this.batchMaxBytes =
+                bulkProcessorConfig.getBulkFlushMaxMb() != -1
+                        ? new ByteSizeValue(
+                                        bulkProcessorConfig.getBulkFlushMaxMb(), ByteSizeUnit.MB)
+                                .getBytes()
+                        : DEFAULT_BATCH_SIZE_BYTES;
+        checkNotNull(metricGroup);
+        this.requestIndexer = new BatchingRequestIndexer(metricGroup.getNumRecordsSendCounter());
+        try {
+            emitter.open();
+        } catch (Exception e) {
+            throw new FlinkRuntimeException("Failed to open the OpensearchEmitter", e);
+        }
+    }
+
+    @Override
+    public void write(IN element, Context context) throws IOException, InterruptedException {
+        emitter.emit(element, context, requestIndexer);
+    }
+
+    @Override
+    public void flush(boolean endOfInput) {
+        // nothing is sent by the writer, the batches are handed over on prepareCommit
+    }
+
+    @Override
+    public Collection<OpensearchCommittable> prepareCommit() {
+        if (currentBatch.numberOfActions() > 0) {
+            sealCurrentBatch();
+        }
+        final List<OpensearchCommittable> committables = sealedBatches;
+        sealedBatches = new ArrayList<>();
+        LOG.debug("Handing {} batches over to the committer.", committables.size());
+        return committables;
+    }
+
+    @Override
+    public void close() throws Exception {
+        emitter.close();
+    }
+
+    private void addAction(DocWriteRequest<?> actionRequest) {
+        currentBatch.add(actionRequest);
+        if (currentBatch.numberOfActions() >= batchMaxActions
+                || currentBatch.estimatedSizeInBytes() >= batchMaxBytes) {
+            sealCurrentBatch();
+        }
+    }
+
+    private void sealCurrentBatch() {
+        sealedBatches.add(new OpensearchCommittable(new ArrayList<>(currentBatch.requests())));
+        currentBatch = new BulkRequest();
+    }
+
+    private class BatchingRequestIndexer implements RequestIndexer {
+
+        private final Counter numRecordsSendCounter;
+
+        public BatchingRequestIndexer(Counter numRecordsSendCounter) {
+            this.numRecordsSendCounter = checkNotNull(numRecordsSendCounter);
+        }
+
+        @Override
+        public void add(DeleteRequest... deleteRequests) {
+            for (final DeleteRequest deleteRequest : deleteRequests) {
+                numRecordsSendCounter.inc();
+                addAction(deleteRequest);
+            }
+        }
+
+        @Override
+        public void add(IndexRequest... indexRequests) {
+            for (final IndexRequest indexRequest : indexRequests) {
+                numRecordsSendCounter.inc();
+                addAction(indexRequest);
+            }
+        }
+
+        @Override
+        public void add(UpdateRequest... updateRequests) {
+            for (final UpdateRequest updateRequest : updateRequests) {
+                numRecordsSendCounter.inc();
+                addAction(updateRequest);
+            }
+        }
+
+        @Override
+        public void add(
+                String index,
+                @Nullable String id,
+                DocWriteRequest.OpType opType,
+                byte[] source,
+                int offset,
+                int length,
+                @Nullable String routing,
+                @Nullable String pipeline) {
+            if (opType != DocWriteRequest.OpType.INDEX && opType != DocWriteRequest.OpType.CREATE) {
+                // update bodies are parsed into the request, delete actions are rejected
+                RequestIndexer.super.add(
+                        index, id, opType, source, offset, length, routing, pipeline);
+                return;
+            }
+            // the batch holds on to the document until the checkpoint completes, while the caller
+            // may reuse the array once this method returns
+            add(
+                    new IndexRequest(index)
+                            .id(id)
+                            .opType(opType)
+                            .routing(routing)
+                            .setPipeline(pipeline)
+                            .source(
+                                    Arrays.copyOfRange(source, offset, offset + length),
+                                    XContentType.JSON));
+        }
+    }
+}
@@ -20,13 +20,18 @@ package org.apache.flink.connector.opensearch.sink;
 
 import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.annotation.VisibleForTesting;
-import org.apache.flink.api.connector.sink2.Sink;
-import org.apache.flink.api.connector.sink2.SinkWriter;
+import org.apache.flink.api.connector.sink2.StatefulSink;
 import org.apache.flink.connector.base.DeliveryGuarantee;
+import org.apache.flink.core.io.SimpleVersionedSerializer;
+import org.apache.flink.streaming.api.connector.sink2.WithPreWriteTopology;
+import org.apache.flink.streaming.api.datastream.DataStream;
 
 import org.apache.http.HttpHost;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
@@ -45,57 +50,135 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  *       buffered actions are flushed to and acknowledged by Opensearch. No actions will be lost but
  *       actions might be sent to Opensearch multiple times when Flink restarts. These additional
  *       requests may cause inconsistent data in Opensearch right after the restart, but eventually
- *       everything will be consistent again.
+ *       everything will be consistent again. If the pending actions are stored in state, the
+ *       checkpoint does not wait for Opensearch, instead all actions which are not acknowledged yet
+ *       are stored in the checkpoint and sent again after a restore.
  * </ul>
  *
+ * <p>With shard-aware partitioning, the records are partitioned before the writers by the shard of
+ * the target index they are routed to, so that the bulk requests of every writer only hit the
+ * shards assigned to it.
+ *
  * @param <IN> type of the records converted to Opensearch actions
  * @see OpensearchSinkBuilder on how to construct a OpensearchSink
  */
 @PublicEvolving
-public class OpensearchSink<IN> implements Sink<IN> {
+public class OpensearchSink<IN>
+        implements StatefulSink<IN, OpensearchWriterState>, WithPreWriteTopology<IN> {
 
     private final List<HttpHost> hosts;
     private final OpensearchEmitter<? super IN> emitter;
     private final BulkProcessorConfig buildBulkProcessorConfig;
     private final NetworkClientConfig networkClientConfig;
     private final DeliveryGuarantee deliveryGuarantee;
+    private final boolean storePendingActionsInState;
     private final RestClientFactory restClientFactory;
+    @Nullable private final BulkTransportFactory bulkTransportFactory;
     private final FailureHandler failureHandler;
+    @Nullable private final ShardAwarePartitioningConfig<? super IN> shardAwarePartitioningConfig;
 
     OpensearchSink(
             List<HttpHost> hosts,
             OpensearchEmitter<? super IN> emitter,
             DeliveryGuarantee deliveryGuarantee,
+            boolean storePendingActionsInState,
             BulkProcessorConfig buildBulkProcessorConfig,
             NetworkClientConfig networkClientConfig,
             RestClientFactory restClientFactory,
-            FailureHandler failureHandler) {
+            @Nullable BulkTransportFactory bulkTransportFactory,
+            FailureHandler failureHandler,
+            @Nullable ShardAwarePartitioningConfig<? super IN> shardAwarePartitioningConfig) {
         this.hosts = checkNotNull(hosts);
         checkArgument(!hosts.isEmpty(), "Hosts cannot be empty.");
         this.emitter = checkNotNull(emitter);
         this.deliveryGuarantee = checkNotNull(deliveryGuarantee);
+        this.storePendingActionsInState = storePendingActionsInState;
         this.buildBulkProcessorConfig = checkNotNull(buildBulkProcessorConfig);
         this.networkClientConfig = checkNotNull(networkClientConfig);
         this.restClientFactory = checkNotNull(restClientFactory);
+        this.bulkTransportFactory = bulkTransportFactory;
         this.failureHandler = checkNotNull(failureHandler);
+        this.shardAwarePartitioningConfig = shardAwarePartitioningConfig;
+    }
+
+    @Override
+    public DataStream<IN> addPreWriteTopology(DataStream<IN> inputDataStream) {
+        if (shardAwarePartitioningConfig == null) {
+            return inputDataStream;
+        }
+        return inputDataStream.partitionCustom(
+                new ShardPartitioner(),
+                new ShardKeySelector<>(
+                        hosts,
+                        networkClientConfig,
+                        restClientFactory,
+                        shardAwarePartitioningConfig));
+    }
+
+    @Override
+    public StatefulSinkWriter<IN, OpensearchWriterState> createWriter(InitContext context)
+            throws IOException {
+        return createOpensearchWriter(context);
+    }
+
+    @Override
+    public StatefulSinkWriter<IN, OpensearchWriterState> restoreWriter(
+            InitContext context, Collection<OpensearchWriterState> recoveredState)
+            throws IOException {
+        final OpensearchWriter<IN> writer = createOpensearchWriter(context);
+        writer.initializeState(recoveredState);
+        return writer;
     }
 
     @Override
-    public SinkWriter<IN> createWriter(InitContext context) throws IOException {
+    public SimpleVersionedSerializer<OpensearchWriterState> getWriterStateSerializer() {
+        return new OpensearchWriterStateSerializer();
+    }
+
+    private OpensearchWriter<IN> createOpensearchWriter(InitContext context) {
+        final boolean atLeastOnce = deliveryGuarantee == DeliveryGuarantee.AT_LEAST_ONCE;
         return new OpensearchWriter<>(
                 hosts,
                 emitter,
-                deliveryGuarantee == DeliveryGuarantee.AT_LEAST_ONCE,
+                atLeastOnce && !storePendingActionsInState,
+                atLeastOnce && storePendingActionsInState,
                 buildBulkProcessorConfig,
                 networkClientConfig,
                 context.metricGroup(),
                 context.getMailboxExecutor(),
                 restClientFactory,
-                failureHandler);
+                failureHandler,
+                createPrimaryNodeTargeting(context),
+                bulkTransportFactory);
+    }
+
+    @Nullable
+    private ShardPrimaryNodeTargeting createPrimaryNodeTargeting(InitContext context) {
+        if (shardAwarePartitioningConfig == null
+                || !shardAwarePartitioningConfig.isSendToPrimaryNodes()) {
+            return null;
+        }
+        return new ShardPrimaryNodeTargeting(
+                shardAwarePartitioningConfig.getIndex(),
+                hosts,
+                context.getSubtaskId(),
+                context.getNumberOfParallelSubtasks(),
+                shardAwarePartitioningConfig.getTopologyRefreshIntervalMillis());
     }
 
     @VisibleForTesting
     DeliveryGuarantee getDeliveryGuarantee() {
         return deliveryGuarantee;
     }
+
+    @VisibleForTesting
+    boolean isStorePendingActionsInState() {
+        return storePendingActionsInState;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    ShardAwarePartitioningConfig<? super IN> getShardAwarePartitioningConfig() {
+        return shardAwarePartitioningConfig;
+    }
 }
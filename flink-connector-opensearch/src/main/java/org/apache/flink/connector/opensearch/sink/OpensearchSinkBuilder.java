@@ -23,8 +23,10 @@ import org.apache.flink.connector.base.DeliveryGuarantee;
 import org.apache.flink.util.InstantiationUtil;
 
 import org.apache.http.HttpHost;
+import org.opensearch.common.xcontent.XContentType;
 
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.apache.flink.connector.opensearch.sink.OpensearchWriter.DEFAULT_FAILURE_HANDLER;
@@ -57,13 +59,22 @@ import static org.apache.flink.util.Preconditions.checkState;
 @PublicEvolving
 public class OpensearchSinkBuilder<IN> {
 
+    private static final long DEFAULT_SHARD_TOPOLOGY_REFRESH_INTERVAL_MILLIS = 60_000L;
+
+    private static final long DEFAULT_SNIFF_AFTER_FAILURE_DELAY_MILLIS = 1_000L;
+
     private int bulkFlushMaxActions = 1000;
     private int bulkFlushMaxMb = -1;
     private long bulkFlushInterval = -1;
     private FlushBackoffType bulkFlushBackoffType = FlushBackoffType.NONE;
     private int bulkFlushBackoffRetries = -1;
     private long bulkFlushBackOffDelay = -1;
+    private int bulkFlushMaxInFlightRequests = 1;
+    private boolean bulkFlushAdaptiveInFlightRequests = false;
+    private AdaptiveBulkFlushConfig adaptiveBulkFlushConfig;
     private DeliveryGuarantee deliveryGuarantee = DeliveryGuarantee.AT_LEAST_ONCE;
+    private boolean storePendingActionsInState = false;
+    private ShardAwarePartitioningConfig<? super IN> shardAwarePartitioningConfig;
     private List<HttpHost> hosts;
     protected OpensearchEmitter<? super IN> emitter;
     private String username;
@@ -73,8 +84,26 @@ public class OpensearchSinkBuilder<IN> {
     private Integer connectionRequestTimeout;
     private Integer socketTimeout;
     private Boolean allowInsecure;
+    private Integer ioThreadCount;
+    private Integer maxConnectionsTotal;
+    private Integer maxConnectionsPerRoute;
+    private Long connectionTimeToLive;
+    private Long keepAlive;
+    private Boolean tcpNoDelay;
+    private Integer sendBufferSize;
+    private boolean connectionPoolMetrics = false;
+    private CompressionType compressionType = CompressionType.NONE;
+    private int compressionLevel = CompressionType.DEFAULT_LEVEL;
+    private XContentType bulkContentType = XContentType.JSON;
+    private NodeSniffingConfig nodeSniffingConfig;
+    private ZoneAwareNodeSelectionConfig zoneAwareNodeSelectionConfig;
+    private boolean loadAwareHostSelection = false;
+    private boolean sharedClient = false;
     private RestClientFactory restClientFactory;
+    private BulkTransportFactory bulkTransportFactory;
     private FailureHandler failureHandler = DEFAULT_FAILURE_HANDLER;
+    private int maxItemFailuresPerBulk = BulkProcessorConfig.DEFAULT_MAX_ITEM_FAILURES_PER_BULK;
+    private boolean bulkFlushSplitOnTooLarge = false;
 
     public OpensearchSinkBuilder() {
         restClientFactory = new DefaultRestClientFactory();
@@ -131,6 +160,79 @@ public class OpensearchSinkBuilder<IN> {
         return self();
     }
 
+    /**
+     * Sets whether the actions which are not acknowledged by Opensearch yet are stored in the
+     * checkpoint instead of being flushed on it. This only has an effect with {@link
+     * DeliveryGuarantee#AT_LEAST_ONCE}: checkpoints no longer wait for Opensearch and the stored
+     * actions are sent again after a restore. The default is false.
+     *
+     * @param storePendingActionsInState whether to store pending actions in the writer state
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setStorePendingActionsInState(
+            boolean storePendingActionsInState) {
+        this.storePendingActionsInState = storePendingActionsInState;
+        return self();
+    }
+
+    /**
+     * Partitions the records by the shard of the given index they are routed to, so that all
+     * records of a shard are written by the same sink writer, and sends the bulk requests of every
+     * writer to the nodes holding the primaries of its shards. The primaries of the shards are
+     * refreshed every minute. The index must exist when the first record is partitioned.
+     *
+     * @param index the index the records are written to, or an alias of a single index
+     * @param keyExtractor extracting the id and routing of the documents from the records
+     * @return this builder
+     * @see #setShardAwarePartitioning(String, ShardRoutingKeyExtractor, boolean, long)
+     */
+    public OpensearchSinkBuilder<IN> setShardAwarePartitioning(
+            String index, ShardRoutingKeyExtractor<? super IN> keyExtractor) {
+        return setShardAwarePartitioning(
+                index, keyExtractor, true, DEFAULT_SHARD_TOPOLOGY_REFRESH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Partitions the records by the shard of the given index they are routed to, so that all
+     * records of a shard are written by the same sink writer. The shard is computed with the
+     * routing formula of Opensearch from the id, or the custom routing, of the document and the
+     * number of shards of the index.
+     *
+     * <p>Writer {@code i} receives the shards whose number modulo the sink parallelism is {@code
+     * i}, so the parallelism should divide the number of shards. The shards are fetched once, when
+     * the first record is partitioned, and kept for the lifetime of the task, so that the records
+     * of a document are never sent to another writer. If they cannot be fetched, e.g. because the
+     * index does not exist yet, records are partitioned by the hash of their id or routing, unless
+     * the bulk requests are sent to the primary nodes, which requires the shards, so the job fails.
+     *
+     * @param index the index the records are written to, or an alias of a single index
+     * @param keyExtractor extracting the id and routing of the documents from the records
+     * @param sendToPrimaryNodes whether the bulk requests of every writer are sent to the nodes
+     *         holding the primaries of its shards, which must be reachable under their published
+     *         HTTP addresses
+     * @param topologyRefreshIntervalMillis the interval in which the primaries of the shards are
+     *         fetched again by the writers sending to them
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setShardAwarePartitioning(
+            String index,
+            ShardRoutingKeyExtractor<? super IN> keyExtractor,
+            boolean sendToPrimaryNodes,
+            long topologyRefreshIntervalMillis) {
+        checkNotNull(index);
+        checkNotNull(keyExtractor);
+        checkState(
+                InstantiationUtil.isSerializable(keyExtractor),
+                "The shard routing key extractor must be serializable.");
+        checkState(
+                topologyRefreshIntervalMillis > 0,
+                "Topology refresh interval must be larger than 0.");
+        this.shardAwarePartitioningConfig =
+                new ShardAwarePartitioningConfig<>(
+                        index, keyExtractor, sendToPrimaryNodes, topologyRefreshIntervalMillis);
+        return self();
+    }
+
     /**
      * Sets the maximum number of actions to buffer for each bulk request. You can pass -1 to
      * disable it. The default flush size 1000.
@@ -176,6 +278,89 @@ public class OpensearchSinkBuilder<IN> {
         return self();
     }
 
+    /**
+     * Sets the maximum number of bulk requests a single sink writer may have sent to Opensearch
+     * without having received their responses yet. While this limit is reached, the writer does not
+     * send further bulk requests and applies backpressure once its buffer is full. The default is
+     * 1.
+     *
+     * @param maxInFlightRequests the maximum number of concurrent bulk requests per writer.
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setBulkFlushMaxInFlightRequests(int maxInFlightRequests) {
+        checkState(
+                maxInFlightRequests > 0,
+                "Max number of in-flight bulk requests must be larger than 0.");
+        this.bulkFlushMaxInFlightRequests = maxInFlightRequests;
+        return self();
+    }
+
+    /**
+     * Lets every sink writer split bulk requests which Opensearch rejects with status 413, because
+     * they exceed its {@code http.max_content_length}, into halves and send them again. Halves
+     * which are still too large are split again. A single action which is too large is handed to
+     * the failure handler. The splits are counted by the {@code bulkRequestSplits} metric.
+     * Disabled by default.
+     *
+     * <p>Splitting needs the encoded actions of a bulk request until its response, so if enabled,
+     * actions are no longer released as soon as their bulk request is sent. If disabled, a bulk
+     * request which is too large fails the job.
+     *
+     * @param splitOnTooLarge whether too large bulk requests are split
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setBulkFlushSplitOnTooLarge(boolean splitOnTooLarge) {
+        this.bulkFlushSplitOnTooLarge = splitOnTooLarge;
+        return self();
+    }
+
+    /**
+     * Lets every sink writer adapt the number of in-flight bulk requests to the load of the
+     * Opensearch cluster. The limit configured by {@link #setBulkFlushMaxInFlightRequests(int)}
+     * becomes the upper bound of the adaptive limit.
+     *
+     * <p>The writer compares the round-trip time of bulk requests with the lowest round-trip time
+     * it has observed. The limit grows while both are close and shrinks when the round-trip time
+     * rises because requests queue up in the cluster. Rejected bulk requests halve the limit.
+     *
+     * @param adaptiveInFlightRequests whether the number of in-flight requests is adapted.
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setBulkFlushAdaptiveInFlightRequests(
+            boolean adaptiveInFlightRequests) {
+        this.bulkFlushAdaptiveInFlightRequests = adaptiveInFlightRequests;
+        return self();
+    }
+
+    /**
+     * Lets the sink adapt the number of actions per bulk request to the observed load of the
+     * Opensearch cluster instead of using a fixed {@link #setBulkFlushMaxActions(int) maximum
+     * number of actions}.
+     *
+     * <p>Starting at {@code minActions}, the number of actions grows by {@code minActions} after
+     * every full bulk request that was acknowledged within the target latency, measured on the
+     * client as well as reported by Opensearch. It is halved whenever a bulk request or one of its
+     * actions is rejected, or the target latency is exceeded. It never leaves the configured
+     * limits. The maximum size in mb, if configured, still applies.
+     *
+     * @param minActions the minimum number of actions to buffer per bulk request.
+     * @param maxActions the maximum number of actions to buffer per bulk request.
+     * @param targetLatencyMillis the latency, in milliseconds, bulk requests should stay under.
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setBulkFlushAdaptiveSizing(
+            int minActions, int maxActions, long targetLatencyMillis) {
+        checkState(minActions > 0, "Min number of actions must be larger than 0.");
+        checkState(
+                maxActions >= minActions,
+                "Max number of actions must be larger than or equal to the min number of "
+                        + "actions.");
+        checkState(targetLatencyMillis > 0, "Target latency must be larger than 0.");
+        this.adaptiveBulkFlushConfig =
+                new AdaptiveBulkFlushConfig(minActions, maxActions, targetLatencyMillis);
+        return self();
+    }
+
     /**
      * Sets the type of back off to use when flushing bulk requests. The default bulk flush back off
      * type is {@link FlushBackoffType#NONE}.
@@ -290,6 +475,284 @@ public class OpensearchSinkBuilder<IN> {
         return self();
     }
 
+    /**
+     * Sets the number of I/O threads of the HTTP client. The default is the number of available
+     * processors.
+     *
+     * @param ioThreadCount the number of I/O threads
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setIoThreadCount(int ioThreadCount) {
+        checkState(ioThreadCount > 0, "Number of I/O threads must be larger than 0.");
+        this.ioThreadCount = ioThreadCount;
+        return self();
+    }
+
+    /**
+     * Sets the maximum number of connections of the HTTP client, in total and per host. The
+     * defaults are 30 connections in total and 10 per host.
+     *
+     * @param maxTotal the maximum number of connections in total
+     * @param maxPerRoute the maximum number of connections per host
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setMaxConnections(int maxTotal, int maxPerRoute) {
+        checkState(maxPerRoute > 0, "Max connections per route must be larger than 0.");
+        checkState(
+                maxTotal >= maxPerRoute,
+                "Max connections in total must be larger than or equal to the max connections per "
+                        + "route.");
+        this.maxConnectionsTotal = maxTotal;
+        this.maxConnectionsPerRoute = maxPerRoute;
+        return self();
+    }
+
+    /**
+     * Sets the time after which connections are closed, even if they are still used, so that the
+     * load is spread over nodes joining the cluster or behind a load balancer. By default,
+     * connections live forever.
+     *
+     * @param connectionTimeToLive the time to live of connections, in milliseconds
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setConnectionTimeToLive(long connectionTimeToLive) {
+        checkState(connectionTimeToLive > 0, "Connection time to live must be larger than 0.");
+        this.connectionTimeToLive = connectionTimeToLive;
+        return self();
+    }
+
+    /**
+     * Sets the maximum time idle connections are kept alive. A shorter duration announced by
+     * Opensearch in the {@code Keep-Alive} header takes precedence. By default, idle connections
+     * are kept alive for the duration announced by Opensearch, or forever if there is none, which
+     * fails requests on connections closed by load balancers or firewalls in the meantime.
+     *
+     * @param keepAlive the maximum time idle connections are kept alive, in milliseconds
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setKeepAlive(long keepAlive) {
+        checkState(keepAlive > 0, "Keep alive must be larger than 0.");
+        this.keepAlive = keepAlive;
+        return self();
+    }
+
+    /**
+     * Sets whether Nagle's algorithm is disabled on the connections. The default is {@code true}.
+     *
+     * @param tcpNoDelay whether TCP_NODELAY is set on the connections
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return self();
+    }
+
+    /**
+     * Sets the size of the socket send buffer. The default is the size chosen by the operating
+     * system.
+     *
+     * @param sendBufferSize the size of the socket send buffer, in bytes
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setSendBufferSize(int sendBufferSize) {
+        checkState(sendBufferSize > 0, "Send buffer size must be larger than 0.");
+        this.sendBufferSize = sendBufferSize;
+        return self();
+    }
+
+    /**
+     * Lets every sink writer report the leased, pending and available connections of the
+     * connection pool of its HTTP client as the metrics {@code connectionsLeased}, {@code
+     * connectionsPending} and {@code connectionsAvailable}.
+     *
+     * <p>The {@link DefaultRestClientFactory} creates the connection pool itself for that, so SSL
+     * contexts set on the HTTP client builder by subclasses do not apply. A custom {@link
+     * RestClientFactory} has to {@link RestClientFactory.RestClientConfig#registerConnectionPool
+     * register} its own pool to report these metrics.
+     *
+     * @param connectionPoolMetrics whether the metrics of the connection pool are reported
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setConnectionPoolMetrics(boolean connectionPoolMetrics) {
+        this.connectionPoolMetrics = connectionPoolMetrics;
+        return self();
+    }
+
+    /**
+     * Sets the compression of the bulk request bodies with the default compression level. The
+     * responses are requested with the same compression. The default is {@link
+     * CompressionType#NONE}.
+     *
+     * @param compressionType the compression of the bulk requests
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setCompression(CompressionType compressionType) {
+        return setCompression(compressionType, CompressionType.DEFAULT_LEVEL);
+    }
+
+    /**
+     * Sets the compression of the bulk request bodies. The responses are requested with the same
+     * compression.
+     *
+     * @param compressionType the compression of the bulk requests
+     * @param compressionLevel the level from 0 (none) to 9 (best), or -1 for the default level
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setCompression(
+            CompressionType compressionType, int compressionLevel) {
+        checkNotNull(compressionType);
+        checkState(
+                compressionLevel >= -1 && compressionLevel <= 9,
+                "Compression level must be between -1 and 9.");
+        this.compressionType = compressionType;
+        this.compressionLevel = compressionLevel;
+        return self();
+    }
+
+    /**
+     * Sets the content type the bulk requests are encoded in. The responses are requested in the
+     * same content type. The binary {@link XContentType#SMILE} encoding is smaller and cheaper to
+     * produce and parse than JSON, in particular for numeric fields. Sources given as JSON are
+     * transcoded. The default is {@link XContentType#JSON}.
+     *
+     * @param bulkContentType either {@link XContentType#JSON} or {@link XContentType#SMILE}
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setBulkContentType(XContentType bulkContentType) {
+        checkNotNull(bulkContentType);
+        checkState(
+                bulkContentType == XContentType.JSON || bulkContentType == XContentType.SMILE,
+                "Bulk requests can only be encoded as JSON or SMILE.");
+        this.bulkContentType = bulkContentType;
+        return self();
+    }
+
+    /**
+     * Lets every sink writer discover the nodes of the Opensearch cluster through the nodes info
+     * API and send its bulk requests to the discovered nodes with at least one of the given roles,
+     * instead of the configured hosts. The configured hosts are only used to discover the nodes
+     * initially. The nodes are discovered again in the given interval and shortly after a request
+     * to a node failed, unless the {@link RestClientFactory} sets its own failure listener. If no
+     * role is given, all nodes except the dedicated cluster managers are used.
+     *
+     * <p>Nodes which have one of the roles but can also be elected as cluster manager still receive
+     * bulk requests, use {@link #setNodeSniffing(long, boolean, NodeRole...)} to skip them.
+     *
+     * @param sniffIntervalMillis the interval in which the nodes are discovered again
+     * @param roles the roles of which the nodes receiving bulk requests must have at least one
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setNodeSniffing(long sniffIntervalMillis, NodeRole... roles) {
+        return setNodeSniffing(sniffIntervalMillis, false, roles);
+    }
+
+    /**
+     * Lets every sink writer discover the nodes of the Opensearch cluster like {@link
+     * #setNodeSniffing(long, NodeRole...)}, optionally skipping all cluster manager eligible
+     * nodes, so bulk requests do not load the nodes which may have to manage the cluster. In
+     * small clusters, where every node is cluster manager eligible, no node is left and the
+     * writers keep sending to the configured hosts.
+     *
+     * @param sniffIntervalMillis the interval in which the nodes are discovered again
+     * @param skipClusterManagerEligibleNodes whether nodes which can be elected as cluster manager
+     *         receive no bulk requests, even if they have one of the roles
+     * @param roles the roles of which the nodes receiving bulk requests must have at least one
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setNodeSniffing(
+            long sniffIntervalMillis, boolean skipClusterManagerEligibleNodes, NodeRole... roles) {
+        checkNotNull(roles);
+        checkState(sniffIntervalMillis > 0, "Sniff interval must be larger than 0.");
+        this.nodeSniffingConfig =
+                new NodeSniffingConfig(
+                        sniffIntervalMillis,
+                        DEFAULT_SNIFF_AFTER_FAILURE_DELAY_MILLIS,
+                        roles.length > 0
+                                ? Arrays.asList(roles)
+                                : EnumSet.allOf(NodeRole.class),
+                        skipClusterManagerEligibleNodes);
+        return self();
+    }
+
+    /**
+     * Lets every sink writer prefer the nodes in the zone of its task manager. The zone of a node
+     * is read from the given node attribute, e.g. {@code zone} for nodes started with {@code
+     * node.attr.zone}, and is only known for nodes discovered by {@link #setNodeSniffing(long,
+     * NodeRole...) node sniffing}. Requests are sent to other zones only while no node of the
+     * local zone is healthy.
+     *
+     * @param zoneAttribute the node attribute containing the zone of a node
+     * @param localZone the zone of the task managers running the sink
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setZoneAwareNodeSelection(
+            String zoneAttribute, String localZone) {
+        checkNotNull(zoneAttribute);
+        checkNotNull(localZone);
+        this.zoneAwareNodeSelectionConfig =
+                new ZoneAwareNodeSelectionConfig(zoneAttribute, localZone, null);
+        return self();
+    }
+
+    /**
+     * Lets every sink writer prefer the nodes in the zone of its task manager, which is read from
+     * the given environment variable of the task manager.
+     *
+     * @param zoneAttribute the node attribute containing the zone of a node
+     * @param environmentVariable the environment variable containing the zone of a task manager
+     * @return this builder
+     * @see #setZoneAwareNodeSelection(String, String)
+     */
+    public OpensearchSinkBuilder<IN> setZoneAwareNodeSelectionFromEnvironment(
+            String zoneAttribute, String environmentVariable) {
+        checkNotNull(zoneAttribute);
+        checkNotNull(environmentVariable);
+        this.zoneAwareNodeSelectionConfig =
+                new ZoneAwareNodeSelectionConfig(zoneAttribute, null, environmentVariable);
+        return self();
+    }
+
+    /**
+     * Lets every sink writer send each bulk request to the host with the lowest expected
+     * completion time instead of rotating through the hosts, so that a slow node, e.g. during a
+     * garbage collection or a merge, receives fewer bulk requests.
+     *
+     * <p>The writer tracks the in-flight bulk requests and a moving average of the bulk latency
+     * per host, and picks the better of two random hosts for every bulk request. Because the client
+     * does not fail over to other hosts within such a bulk request, bulk requests failing without
+     * a response are retried with the configured {@link #setBulkFlushBackoffStrategy backoff}.
+     *
+     * @param loadAwareHostSelection whether bulk requests are sent to the least loaded host
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setLoadAwareHostSelection(boolean loadAwareHostSelection) {
+        this.loadAwareHostSelection = loadAwareHostSelection;
+        return self();
+    }
+
+    /**
+     * Lets all sink writers in the same JVM which connect to the same hosts with the same network
+     * configuration share one Opensearch client, instead of every writer creating its own client
+     * with its own I/O threads, connection pool and scheduler thread. The client is closed with the
+     * last writer using it. Every writer still buffers, retries and reports the metrics of its own
+     * actions.
+     *
+     * <p>The client is configured by the {@link RestClientFactory} of the writer creating it, so
+     * writers only share a client if their factories are of the same class and equal. The {@link
+     * DefaultRestClientFactory} equals the factories of its class, other factories need to
+     * implement {@link Object#equals} to share a client between writers. Writers of different jobs
+     * only share a client if the connector is loaded by the same class loader, e.g. from the
+     * {@code lib} directory of Flink. Shared clients cannot be combined with sending bulk requests
+     * to the primary nodes of the shard-aware partitioning.
+     *
+     * @param sharedClient whether the writers share their client
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setSharedClient(boolean sharedClient) {
+        this.sharedClient = sharedClient;
+        return self();
+    }
+
     /**
      * Sets the {@link RestClientFactory} to be used for configuring the instance of the OpenSearch
      * REST client.
@@ -302,9 +765,31 @@ public class OpensearchSinkBuilder<IN> {
         return self();
     }
 
+    /**
+     * Sets the {@link BulkTransportFactory} creating the transport the sink writers send their bulk
+     * requests with, e.g. the {@link Http2BulkTransportFactory} multiplexing concurrent bulk
+     * requests over HTTP/2. By default, the bulk requests are sent over HTTP/1.1 with the REST
+     * client configured by the {@link RestClientFactory}.
+     *
+     * <p>Transports only send bulk requests, so they cannot be combined with node sniffing, zone-
+     * or load-aware node selection, shared clients, the metrics of the connection pool, or sending
+     * bulk requests to the primary nodes of the shard-aware partitioning. The transport only
+     * applies to the {@link OpensearchSink}.
+     *
+     * @param bulkTransportFactory the {@link BulkTransportFactory} instance
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setBulkTransportFactory(
+            BulkTransportFactory bulkTransportFactory) {
+        this.bulkTransportFactory = checkNotNull(bulkTransportFactory);
+        return self();
+    }
+
     /**
      * Allows to set custom failure handler. If not set, then the DEFAULT_FAILURE_HANDLER will be
-     * used which throws a runtime exception upon receiving a failure.
+     * used which throws a runtime exception upon receiving a failure. An {@link
+     * ItemFailureHandler} receives the failed actions of the {@link OpensearchSink} in a structured
+     * form instead of as exceptions, it cannot be used with {@link #buildTwoPhaseCommitting()}.
      *
      * @param failureHandler the custom handler
      * @return this builder
@@ -315,6 +800,23 @@ public class OpensearchSinkBuilder<IN> {
         return self();
     }
 
+    /**
+     * Sets the maximum number of failed actions per bulk request the sink hands to the failure
+     * handler. Further failures of the same bulk request are only counted, so that a
+     * bulk request in which every action fails does not build thousands of exceptions. The default
+     * is 100.
+     *
+     * @param maxItemFailuresPerBulk the maximum number of failures reported per bulk request
+     * @return this builder
+     */
+    public OpensearchSinkBuilder<IN> setMaxItemFailuresPerBulk(int maxItemFailuresPerBulk) {
+        checkState(
+                maxItemFailuresPerBulk > 0,
+                "Max number of item failures per bulk must be larger than 0.");
+        this.maxItemFailuresPerBulk = maxItemFailuresPerBulk;
+        return self();
+    }
+
     /**
      * Constructs the {@link OpensearchSink} with the properties configured this builder.
      *
@@ -323,6 +825,33 @@ public class OpensearchSinkBuilder<IN> {
     public OpensearchSink<IN> build() {
         checkNotNull(emitter);
         checkNotNull(hosts);
+        checkState(
+                nodeSniffingConfig == null
+                        || shardAwarePartitioningConfig == null
+                        || !shardAwarePartitioningConfig.isSendToPrimaryNodes(),
+                "Node sniffing cannot be combined with sending bulk requests to the primary nodes "
+                        + "of the shard-aware partitioning.");
+        checkState(
+                zoneAwareNodeSelectionConfig == null || nodeSniffingConfig != null,
+                "Zone-aware node selection requires node sniffing to discover the zones of the "
+                        + "nodes.");
+        checkState(
+                !sharedClient
+                        || shardAwarePartitioningConfig == null
+                        || !shardAwarePartitioningConfig.isSendToPrimaryNodes(),
+                "Shared clients cannot be combined with sending bulk requests to the primary nodes "
+                        + "of the shard-aware partitioning.");
+        checkState(
+                bulkTransportFactory == null
+                        || (nodeSniffingConfig == null
+                                && !loadAwareHostSelection
+                                && !sharedClient
+                                && !connectionPoolMetrics
+                                && (shardAwarePartitioningConfig == null
+                                        || !shardAwarePartitioningConfig.isSendToPrimaryNodes())),
+                "Bulk transports cannot be combined with node sniffing, load-aware host selection, "
+                        + "shared clients, connection pool metrics or sending bulk requests to "
+                        + "the primary nodes of the shard-aware partitioning.");
 
         NetworkClientConfig networkClientConfig = buildNetworkClientConfig();
         BulkProcessorConfig bulkProcessorConfig = buildBulkProcessorConfig();
@@ -331,6 +860,77 @@ public class OpensearchSinkBuilder<IN> {
                 hosts,
                 emitter,
                 deliveryGuarantee,
+                storePendingActionsInState,
+                bulkProcessorConfig,
+                networkClientConfig,
+                restClientFactory,
+                bulkTransportFactory,
+                failureHandler,
+                shardAwarePartitioningConfig);
+    }
+
+    /**
+     * Constructs the {@link OpensearchCommittingSink} with the properties configured this builder.
+     * The committing sink always provides {@link DeliveryGuarantee#AT_LEAST_ONCE}, the adaptive
+     * bulk settings only apply to the {@link OpensearchSink}. Failed actions are committed again by
+     * Flink, so no flush backoff can be configured. Storing pending actions in the state,
+     * shard-aware partitioning, bulk transports, compression, other bulk content types than JSON,
+     * splitting too large bulk requests and the host selection and connection sharing of the
+     * client of the {@link OpensearchSink} are not supported either. The committer receives failed
+     * actions as exceptions from its client, so they are handed to the failure handler chained,
+     * capped at {@link #setMaxItemFailuresPerBulk(int)}, and an {@link ItemFailureHandler} cannot
+     * be used.
+     *
+     * <p>The writers hold all actions they receive between two checkpoints in memory, sealed into
+     * batches of the configured maximum number of actions or size, and hand them to the committer
+     * on the checkpoint. This memory is not bounded, so the checkpoint interval must be short
+     * enough for the actions of one interval to fit into the heap of a task manager.
+     *
+     * @return {@link OpensearchCommittingSink}
+     * @throws IllegalStateException if one of the unsupported settings is configured
+     */
+    public OpensearchCommittingSink<IN> buildTwoPhaseCommitting() {
+        checkNotNull(emitter);
+        checkNotNull(hosts);
+        checkState(
+                !storePendingActionsInState,
+                "The two-phase committing sink keeps its actions in the committables and cannot "
+                        + "store pending actions in the state.");
+        checkState(
+                bulkFlushBackoffType == FlushBackoffType.NONE,
+                "The two-phase committing sink leaves the retries of failed actions to Flink and "
+                        + "cannot back off.");
+        checkState(
+                shardAwarePartitioningConfig == null,
+                "Shard-aware partitioning cannot be combined with the two-phase committing sink.");
+        checkState(
+                bulkTransportFactory == null
+                        && compressionType == CompressionType.NONE
+                        && bulkContentType == XContentType.JSON
+                        && !bulkFlushSplitOnTooLarge,
+                "The two-phase committing sink sends plain JSON bulk requests with its own client "
+                        + "and cannot be combined with bulk transports, compression, other bulk "
+                        + "content types or splitting too large bulk requests.");
+        checkState(
+                nodeSniffingConfig == null
+                        && zoneAwareNodeSelectionConfig == null
+                        && !loadAwareHostSelection
+                        && !sharedClient
+                        && !connectionPoolMetrics,
+                "The two-phase committing sink cannot be combined with node sniffing, zone-aware "
+                        + "or load-aware host selection, shared clients or connection pool "
+                        + "metrics.");
+        checkState(
+                !(failureHandler instanceof ItemFailureHandler),
+                "The two-phase committing sink reports failed actions as exceptions and cannot "
+                        + "use an ItemFailureHandler.");
+
+        NetworkClientConfig networkClientConfig = buildNetworkClientConfig();
+        BulkProcessorConfig bulkProcessorConfig = buildBulkProcessorConfig();
+
+        return new OpensearchCommittingSink<>(
+                hosts,
+                emitter,
                 bulkProcessorConfig,
                 networkClientConfig,
                 restClientFactory,
@@ -347,7 +947,23 @@ public class OpensearchSinkBuilder<IN> {
                 connectionRequestTimeout,
                 connectionTimeout,
                 socketTimeout,
-                allowInsecure);
+                allowInsecure,
+                compressionType,
+                compressionLevel,
+                nodeSniffingConfig,
+                zoneAwareNodeSelectionConfig,
+                loadAwareHostSelection,
+                sharedClient,
+                new ConnectionPoolConfig(
+                        ioThreadCount,
+                        maxConnectionsTotal,
+                        maxConnectionsPerRoute,
+                        connectionTimeToLive,
+                        keepAlive,
+                        tcpNoDelay,
+                        sendBufferSize,
+                        connectionPoolMetrics),
+                bulkContentType);
     }
 
     private BulkProcessorConfig buildBulkProcessorConfig() {
@@ -357,7 +973,12 @@ public class OpensearchSinkBuilder<IN> {
                 bulkFlushInterval,
                 bulkFlushBackoffType,
                 bulkFlushBackoffRetries,
-                bulkFlushBackOffDelay);
+                bulkFlushBackOffDelay,
+                bulkFlushMaxInFlightRequests,
+                bulkFlushAdaptiveInFlightRequests,
+                adaptiveBulkFlushConfig,
+                maxItemFailuresPerBulk,
+                bulkFlushSplitOnTooLarge);
     }
 
     @Override
@@ -375,8 +996,20 @@ public class OpensearchSinkBuilder<IN> {
                 + bulkFlushBackoffRetries
                 + ", bulkFlushBackOffDelay="
                 + bulkFlushBackOffDelay
+                + ", bulkFlushMaxInFlightRequests="
+                + bulkFlushMaxInFlightRequests
+                + ", bulkFlushAdaptiveInFlightRequests="
+                + bulkFlushAdaptiveInFlightRequests
+                + ", adaptiveBulkFlushConfig="
+                + adaptiveBulkFlushConfig
+                + ", bulkFlushSplitOnTooLarge="
+                + bulkFlushSplitOnTooLarge
                 + ", deliveryGuarantee="
                 + deliveryGuarantee
+                + ", storePendingActionsInState="
+                + storePendingActionsInState
+                + ", shardAwarePartitioningConfig="
+                + shardAwarePartitioningConfig
                 + ", hosts="
                 + hosts
                 + ", emitter="
@@ -393,6 +1026,40 @@ public class OpensearchSinkBuilder<IN> {
                 + ", allowInsecure='"
                 + allowInsecure
                 + '\''
+                + ", compressionType="
+                + compressionType
+                + ", compressionLevel="
+                + compressionLevel
+                + ", bulkContentType="
+                + bulkContentType
+                + ", nodeSniffingConfig="
+                + nodeSniffingConfig
+                + ", zoneAwareNodeSelectionConfig="
+                + zoneAwareNodeSelectionConfig
+                + ", loadAwareHostSelection="
+                + loadAwareHostSelection
+                + ", sharedClient="
+                + sharedClient
+                + ", ioThreadCount="
+                + ioThreadCount
+                + ", maxConnectionsTotal="
+                + maxConnectionsTotal
+                + ", maxConnectionsPerRoute="
+                + maxConnectionsPerRoute
+                + ", connectionTimeToLive="
+                + connectionTimeToLive
+                + ", keepAlive="
+                + keepAlive
+                + ", tcpNoDelay="
+                + tcpNoDelay
+                + ", sendBufferSize="
+                + sendBufferSize
+                + ", connectionPoolMetrics="
+                + connectionPoolMetrics
+                + ", bulkTransportFactory="
+                + bulkTransportFactory
+                + ", maxItemFailuresPerBulk="
+                + maxItemFailuresPerBulk
                 + '}';
     }
 }
@@ -20,41 +20,99 @@ package org.apache.flink.connector.opensearch.sink;
 
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.operators.MailboxExecutor;
-import org.apache.flink.api.connector.sink2.SinkWriter;
+import org.apache.flink.api.connector.sink2.StatefulSink.StatefulSinkWriter;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.groups.SinkWriterMetricGroup;
 import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.concurrent.ExecutorThreadFactory;
 import org.apache.flink.util.function.ThrowingRunnable;
 
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.pool.ConnPoolControl;
+import org.opensearch.ExceptionsHelper;
+import org.opensearch.OpenSearchStatusException;
 import org.opensearch.action.DocWriteRequest;
 import org.opensearch.action.bulk.BackoffPolicy;
-import org.opensearch.action.bulk.BulkItemResponse;
-import org.opensearch.action.bulk.BulkProcessor;
-import org.opensearch.action.bulk.BulkRequest;
-import org.opensearch.action.bulk.BulkResponse;
 import org.opensearch.action.delete.DeleteRequest;
 import org.opensearch.action.index.IndexRequest;
 import org.opensearch.action.update.UpdateRequest;
+import org.opensearch.client.NodeSelector;
+import org.opensearch.client.Request;
 import org.opensearch.client.RequestOptions;
+import org.opensearch.client.Response;
+import org.opensearch.client.ResponseException;
+import org.opensearch.client.ResponseListener;
 import org.opensearch.client.RestClient;
 import org.opensearch.client.RestClientBuilder;
-import org.opensearch.client.RestHighLevelClient;
 import org.opensearch.common.unit.TimeValue;
+import org.opensearch.common.xcontent.XContentType;
 import org.opensearch.core.action.ActionListener;
 import org.opensearch.core.common.unit.ByteSizeUnit;
 import org.opensearch.core.common.unit.ByteSizeValue;
 import org.opensearch.core.rest.RestStatus;
+import org.opensearch.core.xcontent.DeprecationHandler;
+import org.opensearch.core.xcontent.NamedXContentRegistry;
+import org.opensearch.core.xcontent.XContentParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.flink.util.ExceptionUtils.firstOrSuppressed;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
-class OpensearchWriter<IN> implements SinkWriter<IN> {
+/**
+ * Buffers the actions produced by the {@link OpensearchEmitter} and sends them as bulk requests to
+ * Opensearch.
+ *
+ * <p>The actions are encoded into the newline delimited JSON body of the next bulk request as soon
+ * as they are added, see {@link BulkRequestBuffer}, and the body is sent with the low-level {@link
+ * RestClient}, or with the {@link BulkTransport} if one is configured. Only the parts of the
+ * response the writer needs are parsed, see {@link BulkResult}.
+ *
+ * <p>Once a bulk request is sent, an action only keeps its index, id and operation, unless it may
+ * still be sent again, i.e. it has retries left, pending actions are stored in state, or bulk
+ * requests which are too large for Opensearch are split. Actions to retry are copied out of their
+ * bulk request while they wait for their backoff, unless they make up most of it.
+ *
+ * <p>All state of the writer is only accessed from the mailbox thread. Bulk requests are
+ * dispatched asynchronously. Their responses are analysed on the thread receiving them and only
+ * the outcome is handed back to the mailbox, so emitting a record never waits for network I/O or
+ * for failed items being scanned. Backpressure is applied by yielding to the mailbox while the
+ * buffer is full and no more bulk requests may be in flight.
+ *
+ * <p>If the pending actions are stored in state, a checkpoint does not wait for Opensearch at all.
+ * Instead, all actions which are not acknowledged yet are part of the snapshot and are sent again
+ * after a restore.
+ */
+class OpensearchWriter<IN> implements StatefulSinkWriter<IN, OpensearchWriterState> {
 
     private static final Logger LOG = LoggerFactory.getLogger(OpensearchWriter.class);
 
@@ -63,17 +121,104 @@ class OpensearchWriter<IN> implements SinkWriter<IN> {
                 throw new FlinkRuntimeException(ex);
             };
 
+    /** Statuses of failed actions which are sent again after a backoff instead of failing. */
+    private static final EnumSet<RestStatus> RETRYABLE_STATUSES =
+            EnumSet.of(
+                    RestStatus.TOO_MANY_REQUESTS,
+                    RestStatus.BAD_GATEWAY,
+                    RestStatus.SERVICE_UNAVAILABLE,
+                    RestStatus.GATEWAY_TIMEOUT);
+
+    /** Name of the gauge reporting the number of bulk requests awaiting their response. */
+    static final String IN_FLIGHT_REQUESTS_GAUGE = "inFlightBulkRequests";
+
+    /** Name of the gauge reporting the current limit of in-flight bulk requests. */
+    static final String IN_FLIGHT_REQUESTS_LIMIT_GAUGE = "inFlightBulkRequestsLimit";
+
+    /** Name of the gauge reporting the no-load round-trip time of bulk requests. */
+    static final String RTT_BASELINE_GAUGE = "bulkRoundTripTimeBaseline";
+
+    /** Name of the gauge reporting the number of actions the adaptive bulk sizing aims for. */
+    static final String BULK_FLUSH_TARGET_ACTIONS_GAUGE = "bulkFlushTargetActions";
+
+    /** Name of the counter of bulk request bytes before compression. */
+    static final String BULK_BYTES_UNCOMPRESSED_COUNTER = "bulkBytesUncompressed";
+
+    /** Name of the counter of bulk request bytes after compression. */
+    static final String BULK_BYTES_COMPRESSED_COUNTER = "bulkBytesCompressed";
+
+    /** Name of the counter of the time spent compressing bulk requests, in nanoseconds. */
+    static final String BULK_COMPRESSION_TIME_COUNTER = "bulkCompressionTimeNanos";
+
+    /** Name of the gauge reporting the connections of the pool which are in use. */
+    static final String CONNECTIONS_LEASED_GAUGE = "connectionsLeased";
+
+    /** Name of the gauge reporting the requests waiting for a connection of the pool. */
+    static final String CONNECTIONS_PENDING_GAUGE = "connectionsPending";
+
+    /** Name of the gauge reporting the idle connections of the pool. */
+    static final String CONNECTIONS_AVAILABLE_GAUGE = "connectionsAvailable";
+
+    /** Name of the gauge reporting the bytes of encoded actions the writer holds on to. */
+    static final String RETAINED_BYTES_GAUGE = "retainedActionBytes";
+
+    /** Name of the counter of bulk requests split because they were too large for Opensearch. */
+    static final String BULK_REQUEST_SPLITS_COUNTER = "bulkRequestSplits";
+
+    /** Number of buffered actions after which a bulk request is sent if nothing is configured. */
+    private static final int DEFAULT_BULK_ACTIONS = 1000;
+
+    /** Buffered size after which a bulk request is sent if nothing is configured. */
+    private static final long DEFAULT_BULK_SIZE_BYTES =
+            new ByteSizeValue(5, ByteSizeUnit.MB).getBytes();
+
     private final OpensearchEmitter<? super IN> emitter;
     private final MailboxExecutor mailboxExecutor;
     private final boolean flushOnCheckpoint;
-    private final BulkProcessor bulkProcessor;
-    private final RestHighLevelClient client;
+    private final boolean storePendingActionsInState;
+    private final int bulkFlushMaxActions;
+    private final long bulkFlushMaxBytes;
+    private final int bulkFlushMaxInFlightRequests;
+    @Nullable private final AdaptiveBulkSizeController bulkSizeController;
+    @Nullable private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    @Nullable private final LoadAwareNodeSelector loadAwareNodeSelector;
+    @Nullable private final RestClient client;
+    @Nullable private final SharedRestClient sharedClient;
+    @Nullable private final BulkTransport bulkTransport;
+    private final BulkRequestConsumerFactory bulkRequestConsumer;
+    private final ScheduledThreadPoolExecutor scheduler;
+    @Nullable private final ScheduledFuture<?> intervalFlush;
+    private final List<TimeValue> retryBackoffDelays;
     private final RequestIndexer requestIndexer;
     private final Counter numBytesOutCounter;
+    private final CompressionType compressionType;
+    private final int compressionLevel;
+    private final XContentType bulkContentType;
+    private final ContentType bulkEntityContentType;
+    private final RequestOptions bulkRequestOptions;
+    private final boolean splitOnTooLarge;
+    private final Counter bulkRequestSplitsCounter;
+    @Nullable private final Counter bulkBytesUncompressedCounter;
+    @Nullable private final Counter bulkBytesCompressedCounter;
+    @Nullable private final Counter bulkCompressionTimeCounter;
     private final FailureHandler failureHandler;
+    @Nullable private final ItemFailureHandler itemFailureHandler;
+    private final int maxItemFailuresPerBulk;
 
+    /** Dispatched actions, and actions waiting for a retry, which are not acknowledged yet. */
+    private final Set<List<PendingAction>> unacknowledgedBatches =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Halves of bulk requests which were too large and actions whose backoff has elapsed, in the
+     * order they are sent. They are sent before the buffered actions.
+     */
+    private final Deque<BulkRequestBuffer> queuedRequests = new ArrayDeque<>();
+
+    private BulkRequestBuffer bufferedActions;
     private long pendingActions = 0;
-    private boolean checkpointInProgress = false;
+    private volatile int inFlightRequests = 0;
+    private volatile long retainedBytes = 0;
     private volatile long lastSendTime = 0;
     private volatile long ackTime = Long.MAX_VALUE;
     private volatile boolean closed = false;
@@ -85,13 +230,12 @@ class OpensearchWriter<IN> implements SinkWriter<IN> {
      * @param emitter converting incoming records to Opensearch actions
      * @param flushOnCheckpoint if true all until now received records are flushed after every
      *         checkpoint
-     * @param bulkProcessorConfig describing the flushing and failure handling of the used {@link
-     *         BulkProcessor}
+     * @param bulkProcessorConfig describing the flushing and failure handling of the bulk requests
      * @param networkClientConfig describing properties of the network connection used to connect to
      *         the Opensearch cluster
      * @param metricGroup for the sink writer
      * @param mailboxExecutor Flink's mailbox executor
-     * @param restClientFactory Flink's mailbox executor
+     * @param restClientFactory configuring the rest client
      */
     OpensearchWriter(
             List<HttpHost> hosts,
@@ -103,53 +247,365 @@ class OpensearchWriter<IN> implements SinkWriter<IN> {
             MailboxExecutor mailboxExecutor,
             RestClientFactory restClientFactory,
             FailureHandler failureHandler) {
+        this(
+                hosts,
+                emitter,
+                flushOnCheckpoint,
+                false,
+                bulkProcessorConfig,
+                networkClientConfig,
+                metricGroup,
+                mailboxExecutor,
+                restClientFactory,
+                failureHandler);
+    }
+
+    /**
+     * Constructor creating an Opensearch writer.
+     *
+     * @param hosts the reachable Opensearch cluster nodes
+     * @param emitter converting incoming records to Opensearch actions
+     * @param flushOnCheckpoint if true all until now received records are flushed after every
+     *         checkpoint
+     * @param storePendingActionsInState if true all not yet acknowledged actions are part of the
+     *         writer state
+     * @param bulkProcessorConfig describing the flushing and failure handling of the bulk requests
+     * @param networkClientConfig describing properties of the network connection used to connect to
+     *         the Opensearch cluster
+     * @param metricGroup for the sink writer
+     * @param mailboxExecutor Flink's mailbox executor
+     * @param restClientFactory configuring the rest client
+     */
+    OpensearchWriter(
+            List<HttpHost> hosts,
+            OpensearchEmitter<? super IN> emitter,
+            boolean flushOnCheckpoint,
+            boolean storePendingActionsInState,
+            BulkProcessorConfig bulkProcessorConfig,
+            NetworkClientConfig networkClientConfig,
+            SinkWriterMetricGroup metricGroup,
+            MailboxExecutor mailboxExecutor,
+            RestClientFactory restClientFactory,
+            FailureHandler failureHandler) {
+        this(
+                hosts,
+                emitter,
+                flushOnCheckpoint,
+                storePendingActionsInState,
+                bulkProcessorConfig,
+                networkClientConfig,
+                metricGroup,
+                mailboxExecutor,
+                restClientFactory,
+                failureHandler,
+                null,
+                null);
+    }
+
+    /**
+     * Constructor creating an Opensearch writer.
+     *
+     * @param hosts the reachable Opensearch cluster nodes
+     * @param emitter converting incoming records to Opensearch actions
+     * @param flushOnCheckpoint if true all until now received records are flushed after every
+     *         checkpoint
+     * @param storePendingActionsInState if true all not yet acknowledged actions are part of the
+     *         writer state
+     * @param bulkProcessorConfig describing the flushing and failure handling of the bulk requests
+     * @param networkClientConfig describing properties of the network connection used to connect to
+     *         the Opensearch cluster
+     * @param metricGroup for the sink writer
+     * @param mailboxExecutor Flink's mailbox executor
+     * @param restClientFactory configuring the rest client
+     * @param primaryNodeTargeting if set, the bulk requests are sent to the nodes holding the
+     *         primaries of the shards assigned to this writer
+     * @param bulkTransportFactory if set, the bulk requests are sent with the transport it creates
+     *         instead of the REST client
+     */
+    OpensearchWriter(
+            List<HttpHost> hosts,
+            OpensearchEmitter<? super IN> emitter,
+            boolean flushOnCheckpoint,
+            boolean storePendingActionsInState,
+            BulkProcessorConfig bulkProcessorConfig,
+            NetworkClientConfig networkClientConfig,
+            SinkWriterMetricGroup metricGroup,
+            MailboxExecutor mailboxExecutor,
+            RestClientFactory restClientFactory,
+            FailureHandler failureHandler,
+            @Nullable ShardPrimaryNodeTargeting primaryNodeTargeting,
+            @Nullable BulkTransportFactory bulkTransportFactory) {
         this.emitter = checkNotNull(emitter);
         this.flushOnCheckpoint = flushOnCheckpoint;
+        this.storePendingActionsInState = storePendingActionsInState;
         this.mailboxExecutor = checkNotNull(mailboxExecutor);
+        checkNotNull(bulkProcessorConfig);
+        this.bulkFlushMaxActions =
+                bulkProcessorConfig.getBulkFlushMaxActions() != -1
+                        ? bulkProcessorConfig.getBulkFlushMaxActions()
+                        : DEFAULT_BULK_ACTIONS;
+        this.bulkFlushMaxBytes =
+                bulkProcessorConfig.getBulkFlushMaxMb() != -1
+                        ? new ByteSizeValue(
+                                        bulkProcessorConfig.getBulkFlushMaxMb(), ByteSizeUnit.MB)
+                                .getBytes()
+                        : DEFAULT_BULK_SIZE_BYTES;
+        this.bulkFlushMaxInFlightRequests = bulkProcessorConfig.getBulkFlushMaxInFlightRequests();
+        this.bulkSizeController =
+                bulkProcessorConfig.getAdaptiveBulkFlushConfig() != null
+                        ? new AdaptiveBulkSizeController(
+                                bulkProcessorConfig.getAdaptiveBulkFlushConfig())
+                        : null;
+        this.concurrencyLimiter =
+                bulkProcessorConfig.isBulkFlushAdaptiveInFlightRequests()
+                        ? new AdaptiveConcurrencyLimiter(bulkFlushMaxInFlightRequests)
+                        : null;
 
-        final RestClientBuilder builder = RestClient.builder(hosts.toArray(new HttpHost[0]));
-        checkNotNull(restClientFactory)
-                .configureRestClientBuilder(
-                        builder, new DefaultRestClientConfig(networkClientConfig));
-
-        this.client = new RestHighLevelClient(builder);
-        this.bulkProcessor = createBulkProcessor(bulkProcessorConfig);
+        final LoadAwareNodeSelector loadAwareNodeSelector =
+                networkClientConfig.isLoadAwareHostSelection()
+                        ? new LoadAwareNodeSelector(checkNotNull(metricGroup))
+                        : null;
+        this.loadAwareNodeSelector = loadAwareNodeSelector;
+        checkNotNull(restClientFactory);
+        final ConnPoolControl<?> connectionPool;
+        if (bulkTransportFactory != null) {
+            this.sharedClient = null;
+            this.scheduler = createScheduler();
+            this.client = null;
+            this.bulkTransport =
+                    bulkTransportFactory.createBulkTransport(
+                            hosts, new DefaultRestClientConfig(networkClientConfig));
+            connectionPool = null;
+        } else if (networkClientConfig.isSharedClient()) {
+            this.sharedClient =
+                    SharedRestClient.acquire(
+                            hosts,
+                            networkClientConfig,
+                            restClientFactory,
+                            (sharedScheduler, restClientConfig) ->
+                                    createClient(
+                                            hosts,
+                                            networkClientConfig,
+                                            restClientFactory,
+                                            restClientConfig,
+                                            sharedScheduler,
+                                            loadAwareNodeSelector));
+            this.scheduler = sharedClient.getScheduler();
+            this.client = sharedClient.getClient();
+            this.bulkTransport = null;
+            connectionPool = sharedClient.getConnectionPool();
+        } else {
+            this.sharedClient = null;
+            this.scheduler = createScheduler();
+            final DefaultRestClientConfig restClientConfig =
+                    new DefaultRestClientConfig(networkClientConfig);
+            this.client =
+                    createClient(
+                            hosts,
+                            networkClientConfig,
+                            restClientFactory,
+                            restClientConfig,
+                            scheduler,
+                            loadAwareNodeSelector);
+            this.bulkTransport = null;
+            connectionPool = restClientConfig.getConnectionPool();
+        }
+        this.bulkRequestConsumer =
+                new BulkRequestConsumerFactory() { // This cannot be inlined as a lambda
+                    // because then deserialization fails
+                    @Override
+                    public void accept(
+                            BulkRequestBuffer bulkRequest,
+                            ActionListener<BulkResult> bulkResponseActionListener) {
+                        if (bulkTransport != null) {
+                            sendWithTransport(bulkRequest, bulkResponseActionListener);
+                            return;
+                        }
+                        final Request request;
+                        try {
+                            request = createBulkRequest(bulkRequest);
+                        } catch (IOException e) {
+                            bulkResponseActionListener.onFailure(e);
+                            return;
+                        }
+                        if (loadAwareNodeSelector == null) {
+                            client.performRequestAsync(
+                                    request,
+                                    new BulkResponseListener(
+                                            bulkResponseActionListener,
+                                            bulkRequest.numberOfActions(),
+                                            null));
+                            return;
+                        }
+                        // forget the hosts the sniffer or the primary targeting removed
+                        loadAwareNodeSelector.retainHosts(client.getNodes());
+                        loadAwareNodeSelector.selectForBulk(
+                                selection ->
+                                        client.performRequestAsync(
+                                                request,
+                                                new BulkResponseListener(
+                                                        bulkResponseActionListener,
+                                                        bulkRequest.numberOfActions(),
+                                                        selection)));
+                    }
+                };
+        this.retryBackoffDelays = new ArrayList<>();
+        createBackoffPolicy(bulkProcessorConfig).forEach(retryBackoffDelays::add);
+        if (bulkProcessorConfig.getBulkFlushInterval() > 0) {
+            this.intervalFlush =
+                    scheduler.scheduleWithFixedDelay(
+                            () ->
+                                    enqueueActionInMailbox(
+                                            this::flushOnInterval, "opensearchIntervalFlush"),
+                            bulkProcessorConfig.getBulkFlushInterval(),
+                            bulkProcessorConfig.getBulkFlushInterval(),
+                            TimeUnit.MILLISECONDS);
+        } else {
+            this.intervalFlush = null;
+        }
+        if (primaryNodeTargeting != null) {
+            scheduler.scheduleWithFixedDelay(
+                    () -> primaryNodeTargeting.refresh(client),
+                    0,
+                    primaryNodeTargeting.getRefreshIntervalMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
         this.requestIndexer = new DefaultRequestIndexer(metricGroup.getNumRecordsSendCounter());
         checkNotNull(metricGroup);
         metricGroup.setCurrentSendTimeGauge(() -> ackTime - lastSendTime);
+        metricGroup.gauge(IN_FLIGHT_REQUESTS_GAUGE, () -> inFlightRequests);
+        metricGroup.gauge(RETAINED_BYTES_GAUGE, () -> retainedBytes);
+        this.splitOnTooLarge = bulkProcessorConfig.isSplitOnTooLarge();
+        this.bulkRequestSplitsCounter = metricGroup.counter(BULK_REQUEST_SPLITS_COUNTER);
+        if (concurrencyLimiter != null) {
+            metricGroup.gauge(IN_FLIGHT_REQUESTS_LIMIT_GAUGE, concurrencyLimiter::getLimit);
+            metricGroup.gauge(RTT_BASELINE_GAUGE, concurrencyLimiter::getBaselineRttMillis);
+        }
+        if (bulkSizeController != null) {
+            metricGroup.gauge(
+                    BULK_FLUSH_TARGET_ACTIONS_GAUGE, bulkSizeController::getTargetActions);
+        }
+        if (connectionPool != null) {
+            metricGroup.gauge(
+                    CONNECTIONS_LEASED_GAUGE, () -> connectionPool.getTotalStats().getLeased());
+            metricGroup.gauge(
+                    CONNECTIONS_PENDING_GAUGE, () -> connectionPool.getTotalStats().getPending());
+            metricGroup.gauge(
+                    CONNECTIONS_AVAILABLE_GAUGE,
+                    () -> connectionPool.getTotalStats().getAvailable());
+        }
         this.numBytesOutCounter = metricGroup.getIOMetricGroup().getNumBytesOutCounter();
+        this.compressionType = networkClientConfig.getCompressionType();
+        this.compressionLevel = networkClientConfig.getCompressionLevel();
+        this.bulkContentType = networkClientConfig.getBulkContentType();
+        this.bufferedActions = new BulkRequestBuffer(bulkContentType);
+        final RequestOptions.Builder bulkRequestOptions = RequestOptions.DEFAULT.toBuilder();
+        if (bulkContentType == XContentType.JSON) {
+            this.bulkEntityContentType = ContentType.APPLICATION_JSON;
+        } else {
+            this.bulkEntityContentType =
+                    ContentType.create(bulkContentType.mediaTypeWithoutParameters());
+            // Opensearch answers in JSON unless the content type is accepted explicitly
+            bulkRequestOptions.addHeader(
+                    HttpHeaders.ACCEPT, bulkContentType.mediaTypeWithoutParameters());
+        }
+        if (compressionType != CompressionType.NONE) {
+            bulkRequestOptions.addHeader(
+                    HttpHeaders.ACCEPT_ENCODING, compressionType.getContentEncoding());
+            this.bulkBytesUncompressedCounter =
+                    metricGroup.counter(BULK_BYTES_UNCOMPRESSED_COUNTER);
+            this.bulkBytesCompressedCounter = metricGroup.counter(BULK_BYTES_COMPRESSED_COUNTER);
+            this.bulkCompressionTimeCounter = metricGroup.counter(BULK_COMPRESSION_TIME_COUNTER);
+        } else {
+            this.bulkBytesUncompressedCounter = null;
+            this.bulkBytesCompressedCounter = null;
+            this.bulkCompressionTimeCounter = null;
+        }
+        this.bulkRequestOptions = bulkRequestOptions.build();
         try {
             emitter.open();
         } catch (Exception e) {
             throw new FlinkRuntimeException("Failed to open the OpensearchEmitter", e);
         }
         this.failureHandler = failureHandler;
+        this.itemFailureHandler =
+                failureHandler instanceof ItemFailureHandler
+                        ? (ItemFailureHandler) failureHandler
+                        : null;
+        this.maxItemFailuresPerBulk = bulkProcessorConfig.getMaxItemFailuresPerBulk();
     }
 
     @Override
     public void write(IN element, Context context) throws IOException, InterruptedException {
-        // do not allow new bulk writes until all actions are flushed
-        while (checkpointInProgress) {
-            mailboxExecutor.yield();
+        // apply backpressure through the mailbox until the full buffer can be sent
+        while (isBufferFull()) {
+            if (canDispatch()) {
+                dispatchNext();
+            } else {
+                mailboxExecutor.yield();
+            }
         }
         emitter.emit(element, context, requestIndexer);
     }
 
     @Override
     public void flush(boolean endOfInput) throws IOException, InterruptedException {
-        checkpointInProgress = true;
-        while (pendingActions != 0 && (flushOnCheckpoint || endOfInput)) {
-            bulkProcessor.flush();
-            LOG.info("Waiting for the response of {} pending actions.", pendingActions);
-            mailboxExecutor.yield();
+        if (!flushOnCheckpoint && !endOfInput) {
+            return;
+        }
+        // records are not processed while the flush yields, so no actions are added meanwhile
+        flushAllActions();
+    }
+
+    @Override
+    public List<OpensearchWriterState> snapshotState(long checkpointId) {
+        if (!storePendingActionsInState) {
+            return Collections.emptyList();
+        }
+        final List<byte[]> encodedActions = new ArrayList<>((int) pendingActions);
+        for (final List<PendingAction> batch : unacknowledgedBatches) {
+            batch.forEach(action -> encodedActions.add(action.toByteArray()));
+        }
+        for (final BulkRequestBuffer request : queuedRequests) {
+            request.getActions().forEach(action -> encodedActions.add(action.toByteArray()));
+        }
+        bufferedActions.getActions().forEach(action -> encodedActions.add(action.toByteArray()));
+        LOG.debug(
+                "Storing {} pending actions in the state of checkpoint {}.",
+                encodedActions.size(),
+                checkpointId);
+        return Collections.singletonList(new OpensearchWriterState(encodedActions));
+    }
+
+    /**
+     * Adds the actions of the recovered states, which were not acknowledged when the checkpoint
+     * was taken, to the writer.
+     *
+     * @param recoveredStates the states the writer is restored from
+     */
+    void initializeState(Collection<OpensearchWriterState> recoveredStates) throws IOException {
+        for (final OpensearchWriterState state : recoveredStates) {
+            LOG.info(
+                    "Restoring {} pending actions from the writer state.",
+                    state.getEncodedActions().size());
+            for (final byte[] encodedAction : state.getEncodedActions()) {
+                trackAction(bufferedActions.add(encodedAction));
+                dispatchIfBufferFull();
+            }
         }
-        checkpointInProgress = false;
     }
 
     @VisibleForTesting
     void blockingFlushAllActions() throws InterruptedException {
+        flushAllActions();
+    }
+
+    private void flushAllActions() throws InterruptedException {
         while (pendingActions != 0) {
-            bulkProcessor.flush();
+            if (hasActionsToDispatch() && canDispatch()) {
+                dispatchNext();
+                continue;
+            }
             LOG.info("Waiting for the response of {} pending actions.", pendingActions);
             mailboxExecutor.yield();
         }
@@ -159,94 +615,500 @@ class OpensearchWriter<IN> implements SinkWriter<IN> {
     public void close() throws Exception {
         closed = true;
         emitter.close();
-        bulkProcessor.close();
-        client.close();
+        if (bulkTransport != null) {
+            scheduler.shutdownNow();
+            bulkTransport.close();
+            return;
+        }
+        if (sharedClient == null) {
+            scheduler.shutdownNow();
+            client.close();
+            return;
+        }
+        // retries scheduled by this writer find it closed and are dropped
+        if (intervalFlush != null) {
+            intervalFlush.cancel(false);
+        }
+        sharedClient.release();
+    }
+
+    private void flushOnInterval() {
+        if (hasActionsToDispatch() && canDispatch()) {
+            dispatchNext();
+        }
     }
 
-    private BulkProcessor createBulkProcessor(BulkProcessorConfig bulkProcessorConfig) {
+    private void dispatchIfBufferFull() {
+        if ((!queuedRequests.isEmpty() || isBufferFull()) && canDispatch()) {
+            dispatchNext();
+        }
+    }
 
-        final BulkProcessor.Builder builder =
-                BulkProcessor.builder(
-                        new BulkRequestConsumerFactory() { // This cannot be inlined as a
-                            // lambda because then
-                            // deserialization fails
-                            @Override
-                            public void accept(
-                                    BulkRequest bulkRequest,
-                                    ActionListener<BulkResponse> bulkResponseActionListener) {
-                                client.bulkAsync(
-                                        bulkRequest,
-                                        RequestOptions.DEFAULT,
-                                        bulkResponseActionListener);
-                            }
-                        },
-                        new BulkListener());
+    private boolean hasActionsToDispatch() {
+        return !queuedRequests.isEmpty() || !bufferedActions.isEmpty();
+    }
 
-        if (bulkProcessorConfig.getBulkFlushMaxActions() != -1) {
-            builder.setBulkActions(bulkProcessorConfig.getBulkFlushMaxActions());
+    private boolean isBufferFull() {
+        final int maxActions =
+                bulkSizeController != null
+                        ? bulkSizeController.getTargetActions()
+                        : bulkFlushMaxActions;
+        return bufferedActions.numberOfActions() >= maxActions
+                || bufferedActions.sizeInBytes() >= bulkFlushMaxBytes;
+    }
+
+    private boolean canDispatch() {
+        final int maxInFlightRequests =
+                concurrencyLimiter != null
+                        ? concurrencyLimiter.getLimit()
+                        : bulkFlushMaxInFlightRequests;
+        return inFlightRequests < maxInFlightRequests;
+    }
+
+    private void addAction(DocWriteRequest<?> actionRequest) {
+        try {
+            trackAction(bufferedActions.add(actionRequest));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode " + actionRequest, e);
         }
+        dispatchIfBufferFull();
+    }
 
-        if (bulkProcessorConfig.getBulkFlushMaxMb() != -1) {
-            builder.setBulkSize(
-                    new ByteSizeValue(bulkProcessorConfig.getBulkFlushMaxMb(), ByteSizeUnit.MB));
+    private void addAction(
+            String index,
+            @Nullable String id,
+            DocWriteRequest.OpType opType,
+            byte[] source,
+            int offset,
+            int length,
+            @Nullable String routing,
+            @Nullable String pipeline) {
+        try {
+            trackAction(
+                    bufferedActions.add(
+                            index,
+                            id,
+                            opType,
+                            source,
+                            offset,
+                            length,
+                            routing,
+                            pipeline));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode the action for index " + index, e);
         }
+        dispatchIfBufferFull();
+    }
+
+    private void trackAction(PendingAction action) {
+        pendingActions++;
+        retainedBytes += action.retainedBytes();
+    }
 
-        if (bulkProcessorConfig.getBulkFlushInterval() != -1) {
-            builder.setFlushInterval(new TimeValue(bulkProcessorConfig.getBulkFlushInterval()));
+    /** Sends the next bulk request, queued ones go before the buffered actions. */
+    private void dispatchNext() {
+        final BulkRequestBuffer queuedRequest = queuedRequests.poll();
+        if (queuedRequest != null) {
+            dispatch(queuedRequest);
+        } else {
+            dispatchBufferedActions();
         }
+    }
+
+    private void dispatchBufferedActions() {
+        final BulkRequestBuffer request = bufferedActions;
+        bufferedActions = new BulkRequestBuffer(bulkContentType);
+        dispatch(request);
+    }
 
-        BackoffPolicy backoffPolicy;
+    private void dispatch(BulkRequestBuffer request) {
+        final List<PendingAction> actions = request.getActions();
+        inFlightRequests++;
+        // a bulk request which is too large is split, which needs all of its encoded actions
+        if (!storePendingActionsInState && !splitOnTooLarge) {
+            releaseActionsWithoutRetries(actions);
+        }
+
+        LOG.info("Sending bulk of {} actions to Opensearch.", request.numberOfActions());
+        lastSendTime = System.currentTimeMillis();
+        unacknowledgedBatches.add(actions);
+        bulkRequestConsumer.accept(request, new BulkListener(actions));
+    }
+
+    /**
+     * Lets the actions which are not sent again, whatever the response, drop their reference to
+     * the body of the bulk request, so that it is garbage once the client has sent it.
+     */
+    private void releaseActionsWithoutRetries(List<PendingAction> actions) {
+        long releasedBytes = 0;
+        for (final PendingAction action : actions) {
+            if (!hasRetriesLeft(action)) {
+                releasedBytes += action.retainedBytes();
+                action.release();
+            }
+        }
+        retainedBytes -= releasedBytes;
+    }
+
+    private Request createBulkRequest(BulkRequestBuffer bulkRequest) throws IOException {
+        final Request request = new Request(HttpPost.METHOD_NAME, "/_bulk");
+        request.addParameter("filter_path", BulkResult.FILTER_PATH);
+        request.setOptions(bulkRequestOptions);
+        if (compressionType == CompressionType.NONE) {
+            numBytesOutCounter.inc(bulkRequest.sizeInBytes());
+            request.setEntity(
+                    new NByteArrayEntity(
+                            bulkRequest.getBody(),
+                            0,
+                            bulkRequest.sizeInBytes(),
+                            bulkEntityContentType));
+            return request;
+        }
+
+        final NByteArrayEntity entity =
+                new NByteArrayEntity(compress(bulkRequest), bulkEntityContentType);
+        entity.setContentEncoding(compressionType.getContentEncoding());
+        request.setEntity(entity);
+        return request;
+    }
+
+    private void sendWithTransport(
+            BulkRequestBuffer bulkRequest, ActionListener<BulkResult> listener) {
+        final BulkTransport.ResponseListener responseListener =
+                new TransportResponseListener(listener, bulkRequest.numberOfActions());
+        if (compressionType == CompressionType.NONE) {
+            numBytesOutCounter.inc(bulkRequest.sizeInBytes());
+            bulkTransport.sendBulk(
+                    bulkRequest.getBody(),
+                    bulkRequest.sizeInBytes(),
+                    bulkContentType.mediaTypeWithoutParameters(),
+                    null,
+                    responseListener);
+            return;
+        }
+
+        final byte[] compressed;
+        try {
+            compressed = compress(bulkRequest);
+        } catch (IOException e) {
+            listener.onFailure(e);
+            return;
+        }
+        bulkTransport.sendBulk(
+                compressed,
+                compressed.length,
+                bulkContentType.mediaTypeWithoutParameters(),
+                compressionType.getContentEncoding(),
+                responseListener);
+    }
+
+    /** Compresses the body of the bulk request and counts the bytes sent. */
+    private byte[] compress(BulkRequestBuffer bulkRequest) throws IOException {
+        final long startNanos = System.nanoTime();
+        final ByteArrayOutputStream compressed =
+                new ByteArrayOutputStream(Math.max(64, bulkRequest.sizeInBytes() / 4));
+        try (final OutputStream out = compressionType.compress(compressed, compressionLevel)) {
+            out.write(bulkRequest.getBody(), 0, bulkRequest.sizeInBytes());
+        }
+        bulkCompressionTimeCounter.inc(System.nanoTime() - startNanos);
+        bulkBytesUncompressedCounter.inc(bulkRequest.sizeInBytes());
+        bulkBytesCompressedCounter.inc(compressed.size());
+        numBytesOutCounter.inc(compressed.size());
+        return compressed.toByteArray();
+    }
+
+    /** Parses a response in the content type of the bulk requests. */
+    private BulkResult parseBulkResponse(
+            @Nullable String contentEncoding, InputStream body, int numberOfActions)
+            throws IOException {
+        try (final InputStream content =
+                        CompressionType.fromContentEncoding(contentEncoding).decompress(body);
+                final XContentParser parser =
+                        bulkContentType
+                                .xContent()
+                                .createParser(
+                                        NamedXContentRegistry.EMPTY,
+                                        DeprecationHandler.IGNORE_DEPRECATIONS,
+                                        content)) {
+            return BulkResult.parse(parser, numberOfActions);
+        }
+    }
+
+    /** Parses the response of a bulk request and hands it to the listener. */
+    private class BulkResponseListener implements ResponseListener {
+
+        private final ActionListener<BulkResult> listener;
+        private final int numberOfActions;
+        @Nullable private final LoadAwareNodeSelector.Selection selection;
+
+        private BulkResponseListener(
+                ActionListener<BulkResult> listener,
+                int numberOfActions,
+                @Nullable LoadAwareNodeSelector.Selection selection) {
+            this.listener = listener;
+            this.numberOfActions = numberOfActions;
+            this.selection = selection;
+        }
+
+        @Override
+        public void onSuccess(Response response) {
+            if (selection != null) {
+                selection.complete();
+            }
+            final BulkResult bulkResult;
+            final Header contentEncoding = response.getEntity().getContentEncoding();
+            try {
+                bulkResult =
+                        parseBulkResponse(
+                                contentEncoding != null ? contentEncoding.getValue() : null,
+                                response.getEntity().getContent(),
+                                numberOfActions);
+            } catch (Exception e) {
+                listener.onFailure(e);
+                return;
+            }
+            listener.onResponse(bulkResult);
+        }
+
+        @Override
+        public void onFailure(Exception exception) {
+            if (selection != null) {
+                selection.complete();
+            }
+            listener.onFailure(exception);
+        }
+    }
+
+    /**
+     * Parses the response of a bulk request sent by a {@link BulkTransport} and hands it to the
+     * listener. Responses with an error status are reported as failures, like the REST client does.
+     */
+    private class TransportResponseListener implements BulkTransport.ResponseListener {
+
+        private final ActionListener<BulkResult> listener;
+        private final int numberOfActions;
+
+        private TransportResponseListener(
+                ActionListener<BulkResult> listener, int numberOfActions) {
+            this.listener = listener;
+            this.numberOfActions = numberOfActions;
+        }
+
+        @Override
+        public void onResponse(int statusCode, @Nullable String contentEncoding, byte[] body) {
+            if (statusCode >= 300) {
+                listener.onFailure(
+                        new OpenSearchStatusException(
+                                "Bulk request failed with status {}: {}",
+                                RestStatus.fromCode(statusCode),
+                                statusCode,
+                                contentEncoding == null
+                                        ? new String(body, StandardCharsets.UTF_8)
+                                        : "<" + contentEncoding + " encoded response>"));
+                return;
+            }
+            final BulkResult bulkResult;
+            try {
+                bulkResult =
+                        parseBulkResponse(
+                                contentEncoding, new ByteArrayInputStream(body), numberOfActions);
+            } catch (Exception e) {
+                listener.onFailure(e);
+                return;
+            }
+            listener.onResponse(bulkResult);
+        }
+
+        @Override
+        public void onFailure(Exception exception) {
+            listener.onFailure(exception);
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        final ScheduledThreadPoolExecutor scheduler =
+                new ScheduledThreadPoolExecutor(
+                        1, new ExecutorThreadFactory("opensearch-bulk-scheduler"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private static RestClient createClient(
+            List<HttpHost> hosts,
+            NetworkClientConfig networkClientConfig,
+            RestClientFactory restClientFactory,
+            DefaultRestClientConfig restClientConfig,
+            ScheduledThreadPoolExecutor scheduler,
+            @Nullable LoadAwareNodeSelector loadAwareNodeSelector) {
+        final NodeSniffer nodeSniffer =
+                networkClientConfig.getNodeSniffingConfig() != null
+                        ? new NodeSniffer(
+                                networkClientConfig.getNodeSniffingConfig(),
+                                hosts.get(0).getSchemeName(),
+                                scheduler)
+                        : null;
+        final RestClientBuilder builder = RestClient.builder(hosts.toArray(new HttpHost[0]));
+        if (nodeSniffer != null) {
+            builder.setFailureListener(nodeSniffer);
+        }
+        final NodeSelector nodeSelector =
+                createNodeSelector(
+                        networkClientConfig.getZoneAwareNodeSelectionConfig(),
+                        loadAwareNodeSelector);
+        if (nodeSelector != null) {
+            builder.setNodeSelector(nodeSelector);
+        }
+        restClientFactory.configureRestClientBuilder(builder, restClientConfig);
+
+        final RestClient client = builder.build();
+        if (nodeSniffer != null) {
+            nodeSniffer.start(client);
+        }
+        return client;
+    }
+
+    /**
+     * Creates the node selector of the client, which first narrows the nodes down to the local
+     * zone and then picks the least loaded of them.
+     */
+    @Nullable
+    private static NodeSelector createNodeSelector(
+            @Nullable ZoneAwareNodeSelectionConfig zoneAwareNodeSelectionConfig,
+            @Nullable LoadAwareNodeSelector loadAwareNodeSelector) {
+        final NodeSelector zoneAwareNodeSelector =
+                createZoneAwareNodeSelector(zoneAwareNodeSelectionConfig);
+        if (zoneAwareNodeSelector == null) {
+            return loadAwareNodeSelector;
+        }
+        if (loadAwareNodeSelector == null) {
+            return zoneAwareNodeSelector;
+        }
+        return nodes -> {
+            zoneAwareNodeSelector.select(nodes);
+            loadAwareNodeSelector.select(nodes);
+        };
+    }
+
+    @Nullable
+    private static NodeSelector createZoneAwareNodeSelector(
+            @Nullable ZoneAwareNodeSelectionConfig zoneAwareNodeSelectionConfig) {
+        if (zoneAwareNodeSelectionConfig == null) {
+            return null;
+        }
+        final String localZone = zoneAwareNodeSelectionConfig.resolveLocalZone();
+        if (localZone == null) {
+            LOG.warn(
+                    "The local zone is unknown, sending requests to nodes of all zones. {}",
+                    zoneAwareNodeSelectionConfig);
+            return null;
+        }
+        LOG.info("Preferring nodes in zone {}.", localZone);
+        return new ZoneAwareNodeSelector(
+                zoneAwareNodeSelectionConfig.getZoneAttribute(), localZone);
+    }
+
+    static BackoffPolicy createBackoffPolicy(BulkProcessorConfig bulkProcessorConfig) {
         final TimeValue backoffDelay =
                 new TimeValue(bulkProcessorConfig.getBulkFlushBackOffDelay());
         final int maxRetryCount = bulkProcessorConfig.getBulkFlushBackoffRetries();
         switch (bulkProcessorConfig.getFlushBackoffType()) {
             case CONSTANT:
-                backoffPolicy = BackoffPolicy.constantBackoff(backoffDelay, maxRetryCount);
-                break;
+                return BackoffPolicy.constantBackoff(backoffDelay, maxRetryCount);
             case EXPONENTIAL:
-                backoffPolicy = BackoffPolicy.exponentialBackoff(backoffDelay, maxRetryCount);
-                break;
+                return BackoffPolicy.exponentialBackoff(backoffDelay, maxRetryCount);
             case NONE:
-                backoffPolicy = BackoffPolicy.noBackoff();
-                break;
+                return BackoffPolicy.noBackoff();
             default:
                 throw new IllegalArgumentException(
                         "Received unknown backoff policy type "
                                 + bulkProcessorConfig.getFlushBackoffType());
         }
-        builder.setBackoffPolicy(backoffPolicy);
-        // This makes flush() blocking
-        builder.setConcurrentRequests(0);
-
-        return builder.build();
     }
 
-    private class BulkListener implements BulkProcessor.Listener {
+    private class BulkListener implements ActionListener<BulkResult> {
 
-        @Override
-        public void beforeBulk(long executionId, BulkRequest request) {
-            LOG.info("Sending bulk of {} actions to Opensearch.", request.numberOfActions());
-            lastSendTime = System.currentTimeMillis();
-            numBytesOutCounter.inc(request.estimatedSizeInBytes());
+        private final List<PendingAction> actions;
+        private final long sendTimeNanos = System.nanoTime();
+        private final int inFlightAtSend = inFlightRequests;
+
+        private BulkListener(List<PendingAction> actions) {
+            this.actions = actions;
         }
 
         @Override
-        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+        public void onResponse(BulkResult response) {
             ackTime = System.currentTimeMillis();
+            final long latencyNanos = System.nanoTime() - sendTimeNanos;
+            // analysed on the thread receiving the response, the mailbox thread only applies the
+            // outcome
+            final BulkOutcome outcome = analyzeResponse(actions, response);
             enqueueActionInMailbox(
-                    () -> extractFailures(request, response), "opensearchSuccessCallback");
+                    () -> {
+                        inFlightRequests--;
+                        unacknowledgedBatches.remove(actions);
+                        adaptToBulkOutcome(
+                                actions.size(),
+                                inFlightAtSend,
+                                latencyNanos,
+                                response.getTookMillis(),
+                                outcome.rejected,
+                                false);
+                        applyOutcome(outcome);
+                        dispatchIfBufferFull();
+                    },
+                    "opensearchSuccessCallback");
         }
 
         @Override
-        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+        public void onFailure(Exception failure) {
+            final long latencyNanos = System.nanoTime() - sendTimeNanos;
+            final RestStatus restStatus = statusOf(failure);
             enqueueActionInMailbox(
                     () -> {
-                        throw new FlinkRuntimeException("Complete bulk has failed.", failure);
+                        inFlightRequests--;
+                        unacknowledgedBatches.remove(actions);
+                        adaptToBulkOutcome(
+                                actions.size(),
+                                inFlightAtSend,
+                                latencyNanos,
+                                -1,
+                                isRetryable(restStatus),
+                                restStatus == RestStatus.REQUEST_ENTITY_TOO_LARGE);
+                        handleBulkFailure(actions, failure);
+                        dispatchIfBufferFull();
                     },
                     "opensearchErrorCallback");
         }
     }
 
+    /**
+     * The outcome of a bulk request: the number of completed actions, the actions to retry, the
+     * failures to hand to the {@link FailureHandler}, either chained or as {@link ItemFailure}s,
+     * and whether Opensearch rejected actions. It is built before being handed to the mailbox
+     * thread and not modified afterwards.
+     */
+    private static final class BulkOutcome {
+
+        private final List<PendingAction> retryableActions = new ArrayList<>();
+        private final List<ItemFailure> itemFailures = new ArrayList<>();
+        @Nullable private Throwable failures;
+        private int numberOfFailures;
+        private boolean rejected;
+
+        /** Whether the actions to retry are few enough to be copied out of their bulk request. */
+        private boolean copyRetryableActions;
+
+        private int completedActions;
+
+        /** Bytes of the completed actions which the writer held on to. */
+        private long completedBytes;
+
+        private void complete(PendingAction action) {
+            completedActions++;
+            completedBytes += action.retainedBytes();
+        }
+    }
+
     private void enqueueActionInMailbox(
             ThrowingRunnable<? extends Exception> action, String actionName) {
         // If the writer is cancelled before the last bulk response (i.e. no flush on checkpoint
@@ -259,46 +1121,236 @@ class OpensearchWriter<IN> implements SinkWriter<IN> {
         mailboxExecutor.execute(action, actionName);
     }
 
-    private void extractFailures(BulkRequest request, BulkResponse response) {
+    private void adaptToBulkOutcome(
+            int numberOfActions,
+            int inFlightAtSend,
+            long latencyNanos,
+            long tookMillis,
+            boolean rejected,
+            boolean tooLarge) {
+        // a bulk request which is too large is answered before it is executed, so its round-trip
+        // time tells nothing about the load of the cluster, only that bulk requests should shrink
+        if (concurrencyLimiter != null && !tooLarge) {
+            concurrencyLimiter.onSample(latencyNanos, inFlightAtSend, rejected);
+        }
+        if (bulkSizeController != null) {
+            bulkSizeController.onBulkCompleted(
+                    numberOfActions,
+                    TimeUnit.NANOSECONDS.toMillis(latencyNanos),
+                    tookMillis,
+                    rejected || tooLarge);
+        }
+    }
+
+    /**
+     * Reduces the response of a bulk request to the outcome the mailbox thread applies. Runs on the
+     * thread receiving the response. It only reads the actions, which are not modified while they
+     * are in flight, the actions to retry are copied by the mailbox thread.
+     */
+    private BulkOutcome analyzeResponse(List<PendingAction> actions, BulkResult response) {
+        final BulkOutcome outcome = new BulkOutcome();
         if (!response.hasFailures()) {
-            pendingActions -= request.numberOfActions();
-            return;
+            actions.forEach(outcome::complete);
+            return outcome;
         }
 
-        Throwable chainedFailures = null;
-        for (int i = 0; i < response.getItems().length; i++) {
-            final BulkItemResponse itemResponse = response.getItems()[i];
-            if (!itemResponse.isFailed()) {
-                continue;
+        int item = 0;
+        for (int i = 0; i < response.numberOfFailures(); i++) {
+            final int failedItem = response.getFailedItem(i);
+            for (; item < failedItem; item++) {
+                outcome.complete(actions.get(item));
             }
-            final Throwable failure = itemResponse.getFailure().getCause();
-            if (failure == null) {
-                continue;
+            final PendingAction action = actions.get(item++);
+            final RestStatus restStatus = response.getFailedStatus(i);
+            if (isRetryable(restStatus)) {
+                outcome.rejected = true;
+                if (hasRetriesLeft(action)) {
+                    outcome.retryableActions.add(action);
+                    continue;
+                }
             }
-            final RestStatus restStatus = itemResponse.getFailure().getStatus();
-            final DocWriteRequest<?> actionRequest = request.requests().get(i);
+            addFailure(
+                    outcome, action, restStatus, response.getErrorType(i), response.getReason(i));
+        }
+        for (; item < actions.size(); item++) {
+            outcome.complete(actions.get(item));
+        }
+        if (outcome.failures != null && outcome.numberOfFailures > maxItemFailuresPerBulk) {
+            outcome.failures.addSuppressed(
+                    new FlinkRuntimeException(
+                            String.format(
+                                    "%d more actions of the bulk request failed.",
+                                    outcome.numberOfFailures - maxItemFailuresPerBulk)));
+        }
+        outcome.copyRetryableActions =
+                !outcome.retryableActions.isEmpty()
+                        && outcome.retryableActions.size() * 2 < actions.size();
+        return outcome;
+    }
+
+    /** Adds an action which failed and is not retried to the outcome. */
+    private void addFailure(
+            BulkOutcome outcome,
+            PendingAction action,
+            RestStatus restStatus,
+            @Nullable String errorType,
+            @Nullable String reason) {
+        // the action is dropped, so it is not pending anymore even if the failure handler
+        // decides to ignore the failure
+        outcome.complete(action);
+        if (outcome.numberOfFailures++ >= maxItemFailuresPerBulk) {
+            return;
+        }
+        final ItemFailure failure = new ItemFailure(action, restStatus, errorType, reason);
+        if (itemFailureHandler != null) {
+            outcome.itemFailures.add(failure);
+        } else {
+            outcome.failures = firstOrSuppressed(failure.toException(), outcome.failures);
+        }
+    }
 
-            chainedFailures =
-                    firstOrSuppressed(
-                            wrapException(restStatus, failure, actionRequest), chainedFailures);
+    private void applyOutcome(BulkOutcome outcome) {
+        pendingActions -= outcome.completedActions;
+        retainedBytes -= outcome.completedBytes;
+        if (outcome.copyRetryableActions) {
+            // copies the few actions to retry, so that the body of the bulk request is not kept
+            // while they wait for their backoff
+            final BulkRequestBuffer retryBuffer = copyOf(outcome.retryableActions);
+            scheduleRetry(retryBuffer.getActions());
+        } else {
+            scheduleRetry(outcome.retryableActions);
+        }
+        if (outcome.numberOfFailures == 0) {
+            return;
+        }
+        if (itemFailureHandler != null) {
+            itemFailureHandler.onItemFailures(outcome.itemFailures, outcome.numberOfFailures);
+        } else {
+            failureHandler.onFailure(outcome.failures);
+        }
+    }
+
+    private void handleBulkFailure(List<PendingAction> actions, Exception failure) {
+        if (splitOnTooLarge && statusOf(failure) == RestStatus.REQUEST_ENTITY_TOO_LARGE) {
+            splitTooLargeBulk(actions);
+            return;
         }
-        if (chainedFailures == null) {
+        // a bulk request routed to the least loaded host, or sent with a transport, does not fail
+        // over to other hosts within the client, so it is retried if the host could not be reached
+        final boolean retryable =
+                isRetryable(statusOf(failure))
+                        || ((loadAwareNodeSelector != null || bulkTransport != null)
+                                && isConnectionFailure(failure));
+        if (retryable && actions.stream().allMatch(this::hasRetriesLeft)) {
+            LOG.warn("Bulk of {} actions has failed, retrying it.", actions.size());
+            scheduleRetry(actions);
             return;
         }
-        failureHandler.onFailure(chainedFailures);
+        throw new FlinkRuntimeException("Complete bulk has failed.", failure);
     }
 
-    private static Throwable wrapException(
-            RestStatus restStatus, Throwable rootFailure, DocWriteRequest<?> actionRequest) {
+    /**
+     * Queues the halves of a bulk request which Opensearch rejected as too large as separate bulk
+     * requests. They are sent before the buffered actions, but only while more bulk requests may
+     * be in flight. Halves which are still too large are split again, while a single action which
+     * is too large fails like an action Opensearch failed to execute.
+     */
+    private void splitTooLargeBulk(List<PendingAction> actions) {
+        if (actions.size() == 1) {
+            LOG.warn("Action {} is too large for Opensearch.", actions.get(0));
+            final BulkOutcome outcome = new BulkOutcome();
+            addFailure(
+                    outcome,
+                    actions.get(0),
+                    RestStatus.REQUEST_ENTITY_TOO_LARGE,
+                    null,
+                    "The action exceeds the maximum content length of Opensearch.");
+            applyOutcome(outcome);
+            return;
+        }
+        LOG.warn(
+                "Bulk of {} actions is too large for Opensearch, sending it in two halves.",
+                actions.size());
+        bulkRequestSplitsCounter.inc();
+        final int half = actions.size() / 2;
+        // the halves are sent one after the other, before the halves of other splits
+        queuedRequests.addFirst(copyOf(actions.subList(half, actions.size())));
+        queuedRequests.addFirst(copyOf(actions.subList(0, half)));
+    }
+
+    private BulkRequestBuffer copyOf(List<PendingAction> actions) {
+        final BulkRequestBuffer buffer = new BulkRequestBuffer(bulkContentType);
+        actions.forEach(buffer::add);
+        return buffer;
+    }
+
+    /** Returns the status of a failed request, which the low-level client reports as exception. */
+    static RestStatus statusOf(Exception failure) {
+        if (failure instanceof ResponseException) {
+            return RestStatus.fromCode(
+                    ((ResponseException) failure).getResponse().getStatusLine().getStatusCode());
+        }
+        return ExceptionsHelper.status(failure);
+    }
+
+    static boolean isRetryable(@Nullable RestStatus restStatus) {
+        return restStatus != null && RETRYABLE_STATUSES.contains(restStatus);
+    }
+
+    /** Returns whether a request failed without receiving a response from Opensearch. */
+    private static boolean isConnectionFailure(Exception failure) {
+        return failure instanceof IOException && !(failure instanceof ResponseException);
+    }
+
+    private boolean hasRetriesLeft(PendingAction action) {
+        return action.getAttempts() < retryBackoffDelays.size();
+    }
+
+    private void scheduleRetry(List<PendingAction> actions) {
+        final Map<Integer, List<PendingAction>> actionsByAttempt = new HashMap<>();
+        for (final PendingAction action : actions) {
+            actionsByAttempt
+                    .computeIfAbsent(action.incrementAttempts(), ignored -> new ArrayList<>())
+                    .add(action);
+        }
+        actionsByAttempt.forEach(
+                (attempt, retries) -> {
+                    unacknowledgedBatches.add(retries);
+                    final TimeValue delay = retryBackoffDelays.get(attempt - 1);
+                    LOG.info(
+                            "Retrying {} failed actions in {} (attempt {}).",
+                            retries.size(),
+                            delay,
+                            attempt);
+                    scheduler.schedule(
+                            () ->
+                                    enqueueActionInMailbox(
+                                            () -> retryActions(retries), "opensearchRetry"),
+                            delay.millis(),
+                            TimeUnit.MILLISECONDS);
+                });
+    }
+
+    private void retryActions(List<PendingAction> actions) {
+        unacknowledgedBatches.remove(actions);
+        // the retried actions already waited for their backoff, so they are sent as their own bulk
+        // request as soon as possible, but after the halves of split bulk requests queued earlier
+        queuedRequests.addLast(copyOf(actions));
+        if (canDispatch()) {
+            dispatchNext();
+        }
+    }
+
+    static Throwable wrapException(RestStatus restStatus, Throwable rootFailure, Object action) {
         if (restStatus == null) {
             return new FlinkRuntimeException(
-                    String.format("Single action %s of bulk request failed.", actionRequest),
+                    String.format("Single action %s of bulk request failed.", action),
                     rootFailure);
         } else {
             return new FlinkRuntimeException(
                     String.format(
                             "Single action %s of bulk request failed with status %s.",
-                            actionRequest, restStatus.getStatus()),
+                            action, restStatus.getStatus()),
                     rootFailure);
         }
     }
@@ -322,8 +1374,7 @@ class OpensearchWriter<IN> implements SinkWriter<IN> {
         public void add(DeleteRequest... deleteRequests) {
             for (final DeleteRequest deleteRequest : deleteRequests) {
                 numRecordsSendCounter.inc();
-                pendingActions++;
-                bulkProcessor.add(deleteRequest);
+                addAction(deleteRequest);
             }
         }
 
@@ -331,8 +1382,7 @@ class OpensearchWriter<IN> implements SinkWriter<IN> {
         public void add(IndexRequest... indexRequests) {
             for (final IndexRequest indexRequest : indexRequests) {
                 numRecordsSendCounter.inc();
-                pendingActions++;
-                bulkProcessor.add(indexRequest);
+                addAction(indexRequest);
             }
         }
 
@@ -340,9 +1390,22 @@ class OpensearchWriter<IN> implements SinkWriter<IN> {
         public void add(UpdateRequest... updateRequests) {
             for (final UpdateRequest updateRequest : updateRequests) {
                 numRecordsSendCounter.inc();
-                pendingActions++;
-                bulkProcessor.add(updateRequest);
+                addAction(updateRequest);
             }
         }
+
+        @Override
+        public void add(
+                String index,
+                @Nullable String id,
+                DocWriteRequest.OpType opType,
+                byte[] source,
+                int offset,
+                int length,
+                @Nullable String routing,
+                @Nullable String pipeline) {
+            numRecordsSendCounter.inc();
+            addAction(index, id, opType, source, offset, length, routing, pipeline);
+        }
     }
 }
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * State of an {@link OpensearchSink} writer: the actions which were not acknowledged by Opensearch
+ * when the checkpoint was taken. They are sent again when the writer is restored.
+ *
+ * <p>Every action is kept in the form it has in the body of a bulk request: the action line and,
+ * except for deletes, the source line.
+ */
+@PublicEvolving
+public final class OpensearchWriterState {
+
+    private final List<byte[]> encodedActions;
+
+    OpensearchWriterState(List<byte[]> encodedActions) {
+        this.encodedActions = Collections.unmodifiableList(checkNotNull(encodedActions));
+    }
+
+    List<byte[]> getEncodedActions() {
+        return encodedActions;
+    }
+
+    @Override
+    public String toString() {
+        return "OpensearchWriterState{" + "encodedActions=" + encodedActions.size() + '}';
+    }
+}
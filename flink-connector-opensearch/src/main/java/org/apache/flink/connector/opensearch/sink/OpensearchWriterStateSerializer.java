@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.core.io.SimpleVersionedSerializer;
+
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.core.common.bytes.BytesReference;
+import org.opensearch.core.common.io.stream.StreamInput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializes the {@link OpensearchWriterState}. The actions are stored as they are encoded in the
+ * body of a bulk request, which does not depend on the version of the Opensearch client.
+ */
+@Internal
+class OpensearchWriterStateSerializer implements SimpleVersionedSerializer<OpensearchWriterState> {
+
+    private static final int VERSION = 1;
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public byte[] serialize(OpensearchWriterState state) throws IOException {
+        try (final BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeVInt(state.getEncodedActions().size());
+            for (final byte[] encodedAction : state.getEncodedActions()) {
+                out.writeByteArray(encodedAction);
+            }
+            return BytesReference.toBytes(out.bytes());
+        }
+    }
+
+    @Override
+    public OpensearchWriterState deserialize(int version, byte[] serialized) throws IOException {
+        if (version != VERSION) {
+            throw new IOException("Unrecognized version or corrupt state: " + version);
+        }
+        try (final StreamInput in = StreamInput.wrap(serialized)) {
+            final int numberOfActions = in.readVInt();
+            final List<byte[]> encodedActions = new ArrayList<>(numberOfActions);
+            for (int i = 0; i < numberOfActions; i++) {
+                encodedActions.add(in.readByteArray());
+            }
+            return new OpensearchWriterState(encodedActions);
+        }
+    }
+}
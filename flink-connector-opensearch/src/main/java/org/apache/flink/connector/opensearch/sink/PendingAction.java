@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.opensearch.action.DocWriteRequest;
+
+import javax.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * An action which was handed to the {@link OpensearchWriter} but has not been acknowledged by
+ * Opensearch yet.
+ *
+ * <p>The action itself is only held in its encoded form, as a slice of the {@link
+ * BulkRequestBuffer} it was last added to. Besides that it keeps the index, id and operation for
+ * failure messages and the number of times the action has been retried. An action which is not
+ * sent again is {@link #release() released} once its bulk request is sent, it then only keeps
+ * these.
+ */
+class PendingAction {
+
+    @Nullable private final String index;
+    @Nullable private final String id;
+    private final DocWriteRequest.OpType opType;
+    private int attempts;
+
+    @Nullable private BulkRequestBuffer buffer;
+    private int offset;
+    private int length;
+
+    PendingAction(@Nullable String index, @Nullable String id, DocWriteRequest.OpType opType) {
+        this.index = index;
+        this.id = id;
+        this.opType = checkNotNull(opType);
+    }
+
+    @Nullable
+    String getIndex() {
+        return index;
+    }
+
+    @Nullable
+    String getId() {
+        return id;
+    }
+
+    DocWriteRequest.OpType getOpType() {
+        return opType;
+    }
+
+    int getAttempts() {
+        return attempts;
+    }
+
+    int incrementAttempts() {
+        return ++attempts;
+    }
+
+    void setLocation(BulkRequestBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /** Drops the reference to the buffer, the encoded action cannot be accessed afterwards. */
+    void release() {
+        buffer = null;
+    }
+
+    boolean isReleased() {
+        return buffer == null;
+    }
+
+    /** Returns the number of bytes of the encoded action, or 0 if it has been released. */
+    int retainedBytes() {
+        return buffer != null ? length : 0;
+    }
+
+    void writeTo(ByteArrayOutputStream target) {
+        target.write(checkBuffer().getBody(), offset, length);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOfRange(checkBuffer().getBody(), offset, offset + length);
+    }
+
+    private BulkRequestBuffer checkBuffer() {
+        checkState(buffer != null, "The encoded action has been released.");
+        return buffer;
+    }
+
+    @Override
+    public String toString() {
+        return opType.getLowercase() + " {index=" + index + ", id=" + id + '}';
+    }
+}
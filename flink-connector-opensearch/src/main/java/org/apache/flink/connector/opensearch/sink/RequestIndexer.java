@@ -20,9 +20,21 @@ package org.apache.flink.connector.opensearch.sink;
 
 import org.apache.flink.annotation.PublicEvolving;
 
+import org.opensearch.action.DocWriteRequest;
 import org.opensearch.action.delete.DeleteRequest;
 import org.opensearch.action.index.IndexRequest;
 import org.opensearch.action.update.UpdateRequest;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.xcontent.DeprecationHandler;
+import org.opensearch.core.xcontent.NamedXContentRegistry;
+import org.opensearch.core.xcontent.XContentParser;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
 
 /**
  * Users add multiple delete, index or update requests to a {@link RequestIndexer} to prepare them
@@ -53,4 +65,83 @@ public interface RequestIndexer {
      * @param updateRequests The multiple {@link UpdateRequest} to add.
      */
     void add(UpdateRequest... updateRequests);
+
+    /**
+     * Add an action whose document is already serialized as UTF-8 JSON to the indexer to prepare
+     * for sending it to Opensearch.
+     *
+     * @see #add(String, String, DocWriteRequest.OpType, byte[], int, int, String, String)
+     */
+    default void add(
+            String index,
+            @Nullable String id,
+            DocWriteRequest.OpType opType,
+            byte[] source,
+            int offset,
+            int length) {
+        add(index, id, opType, source, offset, length, null, null);
+    }
+
+    /**
+     * Add an action whose document is already serialized as UTF-8 JSON to the indexer to prepare
+     * for sending it to Opensearch.
+     *
+     * <p>For {@link DocWriteRequest.OpType#INDEX} and {@link DocWriteRequest.OpType#CREATE} the
+     * slice holds the document, for {@link DocWriteRequest.OpType#UPDATE} it holds the body of the
+     * update, e.g. {@code {"doc":{...},"doc_as_upsert":true}}. The slice is copied into the bulk
+     * request as it is without being parsed, so it must be valid single-line JSON. It is not
+     * referenced after this method returns.
+     *
+     * <p>The default implementation converts the action into an {@link IndexRequest} or {@link
+     * UpdateRequest}.
+     *
+     * @param index the index of the action
+     * @param id the id of the document, or null to let Opensearch generate one, which update
+     *         actions do not allow
+     * @param opType the operation of the action, all except {@link DocWriteRequest.OpType#DELETE}
+     * @param source the array holding the serialized document
+     * @param offset the start of the document in the array
+     * @param length the length of the document
+     * @param routing the optional routing of the action
+     * @param pipeline the optional ingest pipeline, which only index and create actions allow
+     */
+    default void add(
+            String index,
+            @Nullable String id,
+            DocWriteRequest.OpType opType,
+            byte[] source,
+            int offset,
+            int length,
+            @Nullable String routing,
+            @Nullable String pipeline) {
+        checkArgument(
+                opType != DocWriteRequest.OpType.DELETE,
+                "Delete actions have no source, add a DeleteRequest instead.");
+        if (opType == DocWriteRequest.OpType.UPDATE) {
+            checkArgument(id != null, "Update actions require an id.");
+            checkArgument(pipeline == null, "Pipelines are not supported for update actions.");
+            final UpdateRequest updateRequest = new UpdateRequest(index, id).routing(routing);
+            try (final XContentParser parser =
+                    XContentType.JSON
+                            .xContent()
+                            .createParser(
+                                    NamedXContentRegistry.EMPTY,
+                                    DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
+                                    source,
+                                    offset,
+                                    length)) {
+                add(updateRequest.fromXContent(parser));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to parse the update body.", e);
+            }
+            return;
+        }
+        add(
+                new IndexRequest(index)
+                        .id(id)
+                        .opType(opType)
+                        .routing(routing)
+                        .setPipeline(pipeline)
+                        .source(source, offset, length, XContentType.JSON));
+    }
 }
@@ -19,6 +19,7 @@ package org.apache.flink.connector.opensearch.sink;
 
 import org.apache.flink.annotation.PublicEvolving;
 
+import org.apache.http.pool.ConnPoolControl;
 import org.opensearch.client.RestClientBuilder;
 
 import javax.annotation.Nullable;
@@ -91,6 +92,79 @@ public interface RestClientFactory extends Serializable {
          * @return if the insecure HTTPS connections are allowed or not
          */
         Optional<Boolean> isAllowInsecure();
+
+        /**
+         * Gets the configured number of I/O threads of the HTTP client.
+         *
+         * @return the configured number of I/O threads
+         */
+        @Nullable
+        Integer getIoThreadCount();
+
+        /**
+         * Gets the configured maximum number of connections of the HTTP client.
+         *
+         * @return the configured maximum number of connections
+         */
+        @Nullable
+        Integer getMaxConnectionsTotal();
+
+        /**
+         * Gets the configured maximum number of connections of the HTTP client per host.
+         *
+         * @return the configured maximum number of connections per host
+         */
+        @Nullable
+        Integer getMaxConnectionsPerRoute();
+
+        /**
+         * Gets the configured time to live of connections, in milliseconds.
+         *
+         * @return the configured time to live of connections
+         */
+        @Nullable
+        Long getConnectionTimeToLive();
+
+        /**
+         * Gets the configured maximum time idle connections are kept alive, in milliseconds.
+         *
+         * @return the configured keep-alive duration
+         */
+        @Nullable
+        Long getKeepAlive();
+
+        /**
+         * Returns if Nagle's algorithm is disabled on the connections or not.
+         *
+         * @return if TCP_NODELAY is set on the connections or not
+         */
+        Optional<Boolean> isTcpNoDelay();
+
+        /**
+         * Gets the configured size of the socket send buffer, in bytes.
+         *
+         * @return the configured size of the socket send buffer
+         */
+        @Nullable
+        Integer getSendBufferSize();
+
+        /**
+         * Returns if the sink reports the metrics of the connection pool or not. The pool must be
+         * {@link #registerConnectionPool registered} for that.
+         *
+         * @return if the metrics of the connection pool are reported
+         */
+        boolean isConnectionPoolMetricsEnabled();
+
+        /**
+         * Registers the connection pool of the HTTP client, usually a {@code
+         * PoolingNHttpClientConnectionManager}, so that the sink reports its leased, pending and
+         * available connections. Factories which let the HTTP client create its own pool cannot
+         * register it, since the client does not expose it.
+         *
+         * @param connectionPool the connection pool of the HTTP client
+         */
+        void registerConnectionPool(ConnPoolControl<?> connectionPool);
     }
 
     /**
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import java.io.Serializable;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/** Index and routing of the shard-aware partitioning of an {@link OpensearchSink}. */
+class ShardAwarePartitioningConfig<IN> implements Serializable {
+
+    private final String index;
+    private final ShardRoutingKeyExtractor<? super IN> keyExtractor;
+    private final boolean sendToPrimaryNodes;
+    private final long topologyRefreshIntervalMillis;
+
+    ShardAwarePartitioningConfig(
+            String index,
+            ShardRoutingKeyExtractor<? super IN> keyExtractor,
+            boolean sendToPrimaryNodes,
+            long topologyRefreshIntervalMillis) {
+        this.index = checkNotNull(index);
+        this.keyExtractor = checkNotNull(keyExtractor);
+        checkArgument(
+                topologyRefreshIntervalMillis > 0,
+                "Topology refresh interval must be larger than 0.");
+        this.sendToPrimaryNodes = sendToPrimaryNodes;
+        this.topologyRefreshIntervalMillis = topologyRefreshIntervalMillis;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public ShardRoutingKeyExtractor<? super IN> getKeyExtractor() {
+        return keyExtractor;
+    }
+
+    public boolean isSendToPrimaryNodes() {
+        return sendToPrimaryNodes;
+    }
+
+    public long getTopologyRefreshIntervalMillis() {
+        return topologyRefreshIntervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ShardAwarePartitioningConfig{"
+                + "index='"
+                + index
+                + '\''
+                + ", keyExtractor="
+                + keyExtractor
+                + ", sendToPrimaryNodes="
+                + sendToPrimaryNodes
+                + ", topologyRefreshIntervalMillis="
+                + topologyRefreshIntervalMillis
+                + '}';
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import org.apache.http.HttpHost;
+import org.opensearch.client.RestClient;
+import org.opensearch.client.RestClientBuilder;
+import org.opensearch.cluster.routing.Murmur3HashFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Selects the shard of the target index every record is written to, so that a {@link
+ * ShardPartitioner} can send all records of a shard to the same writer.
+ *
+ * <p>The topology of the index is fetched once, when the first record is selected, with a client
+ * which is closed right after. It is not refreshed, as the number of shards of an index does not
+ * change, and switching the key of a document while the job is running would break the order of
+ * its records. If the topology cannot be fetched, for example because the index does not exist
+ * yet, records are keyed by the hash of their routing instead, so that all records of a document
+ * still go to the same writer. These keys are no shards, so the writers could not send their
+ * requests to the primaries of their shards, and the selector fails if that is configured.
+ */
+class ShardKeySelector<IN> implements KeySelector<IN, Integer> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardKeySelector.class);
+
+    /** Key of the records which have neither an id nor a routing. */
+    static final int UNKNOWN_SHARD = -1;
+
+    private final List<HttpHost> hosts;
+    private final NetworkClientConfig networkClientConfig;
+    private final RestClientFactory restClientFactory;
+    private final ShardAwarePartitioningConfig<? super IN> config;
+
+    private transient boolean topologyFetched;
+    @Nullable private transient ShardTopology topology;
+
+    ShardKeySelector(
+            List<HttpHost> hosts,
+            NetworkClientConfig networkClientConfig,
+            RestClientFactory restClientFactory,
+            ShardAwarePartitioningConfig<? super IN> config) {
+        this.hosts = checkNotNull(hosts);
+        this.networkClientConfig = checkNotNull(networkClientConfig);
+        this.restClientFactory = checkNotNull(restClientFactory);
+        this.config = checkNotNull(config);
+    }
+
+    @Override
+    public Integer getKey(IN element) {
+        if (!topologyFetched) {
+            topology = fetchTopology();
+            topologyFetched = true;
+        }
+        final String id = config.getKeyExtractor().getId(element);
+        final String routing = config.getKeyExtractor().getRouting(element);
+        if (id == null && routing == null) {
+            return UNKNOWN_SHARD;
+        }
+        if (topology == null) {
+            return Murmur3HashFunction.hash(routing != null ? routing : id) & Integer.MAX_VALUE;
+        }
+        return topology.shardId(id, routing);
+    }
+
+    @Nullable
+    private ShardTopology fetchTopology() {
+        final RestClientBuilder builder = RestClient.builder(hosts.toArray(new HttpHost[0]));
+        restClientFactory.configureRestClientBuilder(
+                builder, new DefaultRestClientConfig(networkClientConfig));
+        try (final RestClient client = builder.build()) {
+            final ShardTopology fetched =
+                    ShardTopology.fetch(client, config.getIndex(), hosts.get(0).getSchemeName());
+            LOG.info("Partitioning records by the shards of {}.", fetched);
+            return fetched;
+        } catch (Exception e) {
+            if (config.isSendToPrimaryNodes()) {
+                throw new FlinkRuntimeException(
+                        "Failed to fetch the shards of index "
+                                + config.getIndex()
+                                + ", which are required to send the bulk requests to the"
+                                + " primary nodes.",
+                        e);
+            }
+            LOG.warn(
+                    "Failed to fetch the shards of index {}, partitioning records by the hash of"
+                            + " their routing instead.",
+                    config.getIndex(),
+                    e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.api.common.functions.Partitioner;
+
+/**
+ * Sends the records of a shard, as selected by the {@link ShardKeySelector}, to the writer with
+ * the key modulo the number of writers. Records without an id and routing, which have no order
+ * to keep, are distributed round-robin.
+ */
+class ShardPartitioner implements Partitioner<Integer> {
+
+    private int nextPartition = 0;
+
+    @Override
+    public int partition(Integer shardId, int numPartitions) {
+        if (shardId == ShardKeySelector.UNKNOWN_SHARD) {
+            nextPartition = (nextPartition + 1) % numPartitions;
+            return nextPartition;
+        }
+        return shardId % numPartitions;
+    }
+}
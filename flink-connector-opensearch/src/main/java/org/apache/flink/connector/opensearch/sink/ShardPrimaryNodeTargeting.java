@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.util.ExceptionUtils;
+
+import org.apache.http.HttpHost;
+import org.opensearch.client.Node;
+import org.opensearch.client.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Points the client of a writer to the nodes holding the primaries of the shards the {@link
+ * ShardPartitioner} sends to the writer, so that its bulk requests do not have to be forwarded by
+ * the coordinating node. If none of these primaries is known, the configured hosts are used.
+ *
+ * <p>The topology is requested asynchronously, so that refreshing it never blocks the scheduler
+ * thread of the writer, and the nodes are updated on the I/O thread of the client.
+ */
+class ShardPrimaryNodeTargeting {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardPrimaryNodeTargeting.class);
+
+    private final String index;
+    private final List<HttpHost> configuredHosts;
+    private final int subtaskId;
+    private final int numberOfSubtasks;
+    private final long refreshIntervalMillis;
+
+    private volatile List<HttpHost> targetHosts;
+    private volatile CompletableFuture<Void> lastRefresh = CompletableFuture.completedFuture(null);
+
+    ShardPrimaryNodeTargeting(
+            String index,
+            List<HttpHost> configuredHosts,
+            int subtaskId,
+            int numberOfSubtasks,
+            long refreshIntervalMillis) {
+        checkArgument(
+                subtaskId >= 0 && subtaskId < numberOfSubtasks,
+                "Subtask id must be between 0 and the number of subtasks.");
+        this.index = checkNotNull(index);
+        this.configuredHosts = checkNotNull(configuredHosts);
+        this.subtaskId = subtaskId;
+        this.numberOfSubtasks = numberOfSubtasks;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.targetHosts = configuredHosts;
+    }
+
+    long getRefreshIntervalMillis() {
+        return refreshIntervalMillis;
+    }
+
+    /**
+     * Fetches the topology of the index without blocking, unless the previous fetch is still
+     * outstanding, and updates the nodes of the client once it arrives if the primaries of the
+     * shards of this writer have moved.
+     *
+     * @param client the client of the writer
+     */
+    void refresh(RestClient client) {
+        if (!lastRefresh.isDone()) {
+            LOG.debug(
+                    "The previous refresh of the shards is still outstanding, skipping this one.");
+            return;
+        }
+        lastRefresh =
+                ShardTopology.fetchAsync(client, index, configuredHosts.get(0).getSchemeName())
+                        .handle((topology, failure) -> updateNodes(client, topology, failure));
+    }
+
+    /** Returns the last refresh, which completes once the nodes are updated or fetching failed. */
+    @VisibleForTesting
+    CompletableFuture<Void> getLastRefresh() {
+        return lastRefresh;
+    }
+
+    private Void updateNodes(
+            RestClient client, @Nullable ShardTopology topology, @Nullable Throwable failure) {
+        if (failure != null) {
+            LOG.warn(
+                    "Failed to fetch the shards of index {}, keeping the nodes.",
+                    index,
+                    ExceptionUtils.stripCompletionException(failure));
+            return null;
+        }
+        final List<HttpHost> hosts = selectHosts(topology);
+        if (hosts.equals(targetHosts)) {
+            return null;
+        }
+        LOG.info("Sending the bulk requests of subtask {} to {}.", subtaskId, hosts);
+        targetHosts = hosts;
+        client.setNodes(hosts.stream().map(Node::new).collect(Collectors.toList()));
+        return null;
+    }
+
+    List<HttpHost> selectHosts(ShardTopology topology) {
+        final Set<HttpHost> primaryHosts = new LinkedHashSet<>();
+        for (int shardId = subtaskId;
+                shardId < topology.getNumberOfShards();
+                shardId += numberOfSubtasks) {
+            final HttpHost primaryHost = topology.getPrimaryHost(shardId);
+            if (primaryHost != null) {
+                primaryHosts.add(primaryHost);
+            }
+        }
+        return primaryHosts.isEmpty() ? configuredHosts : new ArrayList<>(primaryHosts);
+    }
+}
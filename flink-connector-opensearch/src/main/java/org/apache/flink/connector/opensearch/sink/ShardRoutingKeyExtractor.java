@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.PublicEvolving;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+
+/**
+ * Extracts the values Opensearch routes a document with from the records of an {@link
+ * OpensearchSink} with shard-aware partitioning. The values must match the id and routing of the
+ * actions the {@link OpensearchEmitter} creates for the record.
+ *
+ * @param <IN> type of the records converted to Opensearch actions
+ */
+@PublicEvolving
+public interface ShardRoutingKeyExtractor<IN> extends Serializable {
+
+    /**
+     * Returns the id of the document the record is written to.
+     *
+     * @param element the record
+     * @return the document id, or null if Opensearch generates it
+     */
+    @Nullable
+    String getId(IN element);
+
+    /**
+     * Returns the custom routing of the document the record is written to.
+     *
+     * @param element the record
+     * @return the routing, or null if the document is routed by its id
+     */
+    @Nullable
+    default String getRouting(IN element) {
+        return null;
+    }
+}
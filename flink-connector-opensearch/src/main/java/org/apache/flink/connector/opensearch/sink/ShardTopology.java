@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.methods.HttpGet;
+import org.opensearch.client.Request;
+import org.opensearch.client.RestClient;
+import org.opensearch.cluster.routing.Murmur3HashFunction;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import static org.apache.flink.connector.opensearch.sink.ClusterInfoRequests.performRequest;
+import static org.apache.flink.connector.opensearch.sink.ClusterInfoRequests.performRequestAsync;
+import static org.apache.flink.connector.opensearch.sink.ClusterInfoRequests.toHttpHost;
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * The shards of an Opensearch index and the HTTP addresses of the nodes holding their primaries.
+ *
+ * <p>Documents are assigned to shards the same way Opensearch does it: the murmur3 hash of the
+ * routing, or of the id if there is no routing, is reduced to the number of routing shards of the
+ * index and scaled down to its number of shards.
+ */
+class ShardTopology {
+
+    private final String index;
+    private final int numberOfShards;
+    private final int routingNumShards;
+    private final int routingPartitionSize;
+    private final List<HttpHost> primaryHosts;
+
+    ShardTopology(
+            String index,
+            int numberOfShards,
+            int routingNumShards,
+            int routingPartitionSize,
+            List<HttpHost> primaryHosts) {
+        checkArgument(numberOfShards > 0, "Number of shards must be larger than 0.");
+        checkArgument(
+                routingNumShards % numberOfShards == 0,
+                "Number of routing shards must be a multiple of the number of shards.");
+        checkArgument(
+                primaryHosts.size() == numberOfShards,
+                "There must be a primary host entry for every shard.");
+        this.index = index;
+        this.numberOfShards = numberOfShards;
+        this.routingNumShards = routingNumShards;
+        this.routingPartitionSize = routingPartitionSize;
+        this.primaryHosts = Collections.unmodifiableList(new ArrayList<>(primaryHosts));
+    }
+
+    /**
+     * Fetches the topology of an index from the cluster.
+     *
+     * @param client the client to request the cluster state with
+     * @param index the name of the index, or an alias pointing to a single index
+     * @param scheme the scheme of the HTTP addresses of the nodes
+     * @return the topology of the index
+     */
+    static ShardTopology fetch(RestClient client, String index, String scheme) throws IOException {
+        final Map<String, Object> clusterState =
+                performRequest(client, createClusterStateRequest(index));
+        return parse(clusterState, performRequest(client, createNodesRequest()), scheme);
+    }
+
+    /**
+     * Fetches the topology of an index from the cluster without blocking the calling thread.
+     *
+     * @param client the client to request the cluster state with
+     * @param index the name of the index, or an alias pointing to a single index
+     * @param scheme the scheme of the HTTP addresses of the nodes
+     * @return the topology of the index, or the failure of fetching it
+     */
+    static CompletableFuture<ShardTopology> fetchAsync(
+            RestClient client, String index, String scheme) {
+        return performRequestAsync(client, createClusterStateRequest(index))
+                .thenCompose(
+                        clusterState ->
+                                performRequestAsync(client, createNodesRequest())
+                                        .thenApply(
+                                                nodesInfo ->
+                                                        parse(clusterState, nodesInfo, scheme)));
+    }
+
+    private static Request createClusterStateRequest(String index) {
+        final Request request =
+                new Request(HttpGet.METHOD_NAME, "/_cluster/state/metadata,routing_table/" + index);
+        request.addParameter("flat_settings", "true");
+        request.addParameter(
+                "filter_path",
+                "metadata.indices.*.routing_num_shards,"
+                        + "metadata.indices.*.settings,"
+                        + "routing_table.indices.*.shards");
+        return request;
+    }
+
+    private static Request createNodesRequest() {
+        final Request request = new Request(HttpGet.METHOD_NAME, "/_nodes/http");
+        request.addParameter("filter_path", "nodes.*.http.publish_address");
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    static ShardTopology parse(
+            Map<String, Object> clusterState, Map<String, Object> nodesInfo, String scheme) {
+        final Map<String, Object> indices = getMap(getMap(clusterState, "metadata"), "indices");
+        checkState(
+                indices.size() == 1,
+                "Shard-aware partitioning requires exactly one index, but found %s.",
+                indices.keySet());
+        final String index = indices.keySet().iterator().next();
+        final Map<String, Object> indexMetadata = getMap(indices, index);
+        final Map<String, Object> settings = getMap(indexMetadata, "settings");
+        final int numberOfShards = getInt(settings, "index.number_of_shards", -1);
+        checkState(numberOfShards > 0, "The number of shards of index %s is unknown.", index);
+        final int routingNumShards = getInt(indexMetadata, "routing_num_shards", numberOfShards);
+        final int routingPartitionSize = getInt(settings, "index.routing_partition_size", 1);
+
+        final Map<String, HttpHost> hostsByNodeId = new HashMap<>();
+        getMap(nodesInfo, "nodes")
+                .forEach(
+                        (nodeId, node) -> {
+                            final Object http = ((Map<String, Object>) node).get("http");
+                            if (http == null) {
+                                return;
+                            }
+                            final Object publishAddress =
+                                    ((Map<String, Object>) http).get("publish_address");
+                            if (publishAddress != null) {
+                                hostsByNodeId.put(
+                                        nodeId, toHttpHost(publishAddress.toString(), scheme));
+                            }
+                        });
+
+        final List<HttpHost> primaryHosts =
+                new ArrayList<>(Collections.nCopies(numberOfShards, null));
+        final Map<String, Object> routingTable =
+                getMap(getMap(clusterState, "routing_table"), "indices");
+        final Map<String, Object> shards = getMap(getMap(routingTable, index), "shards");
+        shards.forEach(
+                (shardId, copies) -> {
+                    for (final Object copy : (List<Object>) copies) {
+                        final Map<String, Object> shardRouting = (Map<String, Object>) copy;
+                        if (Boolean.TRUE.equals(shardRouting.get("primary"))
+                                && "STARTED".equals(shardRouting.get("state"))) {
+                            primaryHosts.set(
+                                    Integer.parseInt(shardId),
+                                    hostsByNodeId.get(String.valueOf(shardRouting.get("node"))));
+                        }
+                    }
+                });
+        return new ShardTopology(
+                index, numberOfShards, routingNumShards, routingPartitionSize, primaryHosts);
+    }
+
+    /**
+     * Returns the shard a document is stored in.
+     *
+     * @param id the id of the document
+     * @param routing the custom routing of the document, or null if it is routed by its id
+     * @return the number of the shard
+     */
+    int shardId(@Nullable String id, @Nullable String routing) {
+        final String effectiveRouting = routing != null ? routing : id;
+        checkArgument(effectiveRouting != null, "Either the id or the routing must be set.");
+        int partitionOffset = 0;
+        if (routingPartitionSize > 1 && id != null) {
+            partitionOffset = Math.floorMod(Murmur3HashFunction.hash(id), routingPartitionSize);
+        }
+        final int hash = Murmur3HashFunction.hash(effectiveRouting) + partitionOffset;
+        return Math.floorMod(hash, routingNumShards) / (routingNumShards / numberOfShards);
+    }
+
+    String getIndex() {
+        return index;
+    }
+
+    int getNumberOfShards() {
+        return numberOfShards;
+    }
+
+    /**
+     * Returns the HTTP address of the node holding the primary of a shard.
+     *
+     * @param shardId the number of the shard
+     * @return the address, or null if the primary is not started or the node has no HTTP address
+     */
+    @Nullable
+    HttpHost getPrimaryHost(int shardId) {
+        return primaryHosts.get(shardId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getMap(Map<String, Object> map, String key) {
+        final Object value = map.get(key);
+        checkState(value instanceof Map, "The cluster response does not contain %s.", key);
+        return (Map<String, Object>) value;
+    }
+
+    private static int getInt(Map<String, Object> map, String key, int defaultValue) {
+        final Object value = map.get(key);
+        return value != null ? Integer.parseInt(value.toString()) : defaultValue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ShardTopology that = (ShardTopology) o;
+        return numberOfShards == that.numberOfShards
+                && routingNumShards == that.routingNumShards
+                && routingPartitionSize == that.routingPartitionSize
+                && index.equals(that.index)
+                && primaryHosts.equals(that.primaryHosts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                index, numberOfShards, routingNumShards, routingPartitionSize, primaryHosts);
+    }
+
+    @Override
+    public String toString() {
+        return "ShardTopology{"
+                + "index='"
+                + index
+                + '\''
+                + ", numberOfShards="
+                + numberOfShards
+                + ", routingNumShards="
+                + routingNumShards
+                + ", routingPartitionSize="
+                + routingPartitionSize
+                + ", primaryHosts="
+                + primaryHosts
+                + '}';
+    }
+}
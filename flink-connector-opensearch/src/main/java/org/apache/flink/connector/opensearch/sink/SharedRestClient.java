@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.util.concurrent.ExecutorThreadFactory;
+
+import org.apache.http.HttpHost;
+import org.apache.http.pool.ConnPoolControl;
+import org.opensearch.client.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.BiFunction;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A {@link RestClient} and scheduler shared by all writers in the same JVM which connect to the
+ * same hosts with the same {@link NetworkClientConfig} and equal {@link RestClientFactory
+ * RestClientFactories}, so that they share one I/O reactor, one connection pool and one scheduler
+ * thread.
+ *
+ * <p>Writers {@link #acquire acquire} a reference to the shared client and {@link #release
+ * release} it when they are closed. The client and the scheduler are closed with the last
+ * reference. The metrics and the pending actions stay with every writer.
+ */
+class SharedRestClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedRestClient.class);
+
+    /** The shared clients by their key, which also guards the references of all clients. */
+    private static final Map<Key, SharedRestClient> SHARED_CLIENTS = new HashMap<>();
+
+    private final Key key;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final RestClient client;
+    @Nullable private final ConnPoolControl<?> connectionPool;
+    private int references = 0;
+
+    private SharedRestClient(
+            Key key,
+            ScheduledThreadPoolExecutor scheduler,
+            RestClient client,
+            @Nullable ConnPoolControl<?> connectionPool) {
+        this.key = key;
+        this.scheduler = scheduler;
+        this.client = client;
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Returns the client shared by the writers with the given hosts, network configuration and
+     * factory, and creates it if there is none.
+     *
+     * <p>Factories are equal if they are of the same class and {@link Object#equals equal}, so
+     * factories which do not implement {@code equals} only share a client with themselves. The
+     * factory configures the client, e.g. its authentication, SSL or interceptors, so writers with
+     * different factories must not share a client.
+     *
+     * @param hosts the hosts the client connects to
+     * @param networkClientConfig the configuration of the client
+     * @param restClientFactory the factory configuring the client
+     * @param clientFactory creates the client with the scheduler it may use, e.g. for sniffing,
+     *         and the configuration it passes to the {@link RestClientFactory}
+     * @return the shared client, which must be released by the caller
+     */
+    static SharedRestClient acquire(
+            List<HttpHost> hosts,
+            NetworkClientConfig networkClientConfig,
+            RestClientFactory restClientFactory,
+            BiFunction<ScheduledThreadPoolExecutor, DefaultRestClientConfig, RestClient>
+                    clientFactory) {
+        final Key key = new Key(hosts, networkClientConfig, restClientFactory);
+        synchronized (SHARED_CLIENTS) {
+            SharedRestClient sharedClient = SHARED_CLIENTS.get(key);
+            if (sharedClient == null) {
+                final ScheduledThreadPoolExecutor scheduler =
+                        new ScheduledThreadPoolExecutor(
+                                1, new ExecutorThreadFactory("opensearch-shared-client-scheduler"));
+                scheduler.setRemoveOnCancelPolicy(true);
+                final DefaultRestClientConfig restClientConfig =
+                        new DefaultRestClientConfig(networkClientConfig);
+                final RestClient client;
+                try {
+                    client = clientFactory.apply(scheduler, restClientConfig);
+                } catch (RuntimeException e) {
+                    scheduler.shutdownNow();
+                    throw e;
+                }
+                LOG.info("Creating a shared Opensearch client for {}.", hosts);
+                sharedClient =
+                        new SharedRestClient(
+                                key, scheduler, client, restClientConfig.getConnectionPool());
+                SHARED_CLIENTS.put(key, sharedClient);
+            }
+            sharedClient.references++;
+            return sharedClient;
+        }
+    }
+
+    RestClient getClient() {
+        return client;
+    }
+
+    ScheduledThreadPoolExecutor getScheduler() {
+        return scheduler;
+    }
+
+    /** Returns the connection pool registered by the {@link RestClientFactory}, if any. */
+    @Nullable
+    ConnPoolControl<?> getConnectionPool() {
+        return connectionPool;
+    }
+
+    /** Releases a reference to the client, and closes the client if it was the last one. */
+    void release() throws IOException {
+        synchronized (SHARED_CLIENTS) {
+            checkState(references > 0, "The shared client has already been closed.");
+            if (--references > 0) {
+                return;
+            }
+            SHARED_CLIENTS.remove(key);
+        }
+        LOG.info("Closing the shared Opensearch client for {}.", key.hosts);
+        scheduler.shutdownNow();
+        client.close();
+    }
+
+    @VisibleForTesting
+    static int getNumberOfSharedClients() {
+        synchronized (SHARED_CLIENTS) {
+            return SHARED_CLIENTS.size();
+        }
+    }
+
+    /** The hosts, network configuration and client factory identifying a shared client. */
+    private static class Key {
+
+        private final List<HttpHost> hosts;
+        private final NetworkClientConfig networkClientConfig;
+        private final RestClientFactory restClientFactory;
+
+        private Key(
+                List<HttpHost> hosts,
+                NetworkClientConfig networkClientConfig,
+                RestClientFactory restClientFactory) {
+            this.hosts = new ArrayList<>(checkNotNull(hosts));
+            this.networkClientConfig = checkNotNull(networkClientConfig);
+            this.restClientFactory = checkNotNull(restClientFactory);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return hosts.equals(that.hosts)
+                    && networkClientConfig.equals(that.networkClientConfig)
+                    && restClientFactory.getClass() == that.restClientFactory.getClass()
+                    && restClientFactory.equals(that.restClientFactory);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hosts, networkClientConfig, restClientFactory.getClass());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/** Zone attribute and local zone of the {@link ZoneAwareNodeSelector}. */
+class ZoneAwareNodeSelectionConfig implements Serializable {
+
+    private static final String NODE_ATTRIBUTE_PREFIX = "node.attr.";
+
+    private final String zoneAttribute;
+    @Nullable private final String localZone;
+    @Nullable private final String localZoneEnvironmentVariable;
+
+    ZoneAwareNodeSelectionConfig(
+            String zoneAttribute,
+            @Nullable String localZone,
+            @Nullable String localZoneEnvironmentVariable) {
+        checkNotNull(zoneAttribute);
+        checkArgument(
+                localZone != null || localZoneEnvironmentVariable != null,
+                "Either the local zone or the environment variable containing it must be set.");
+        this.zoneAttribute =
+                zoneAttribute.startsWith(NODE_ATTRIBUTE_PREFIX)
+                        ? zoneAttribute.substring(NODE_ATTRIBUTE_PREFIX.length())
+                        : zoneAttribute;
+        this.localZone = localZone;
+        this.localZoneEnvironmentVariable = localZoneEnvironmentVariable;
+    }
+
+    /** Returns the name of the node attribute without the {@code node.attr.} prefix. */
+    public String getZoneAttribute() {
+        return zoneAttribute;
+    }
+
+    /**
+     * Returns the zone of the task manager, either as configured or read from the configured
+     * environment variable.
+     *
+     * @return the local zone, or null if the environment variable is not set
+     */
+    @Nullable
+    public String resolveLocalZone() {
+        return localZone != null ? localZone : System.getenv(localZoneEnvironmentVariable);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ZoneAwareNodeSelectionConfig that = (ZoneAwareNodeSelectionConfig) o;
+        return zoneAttribute.equals(that.zoneAttribute)
+                && Objects.equals(localZone, that.localZone)
+                && Objects.equals(localZoneEnvironmentVariable, that.localZoneEnvironmentVariable);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(zoneAttribute, localZone, localZoneEnvironmentVariable);
+    }
+
+    @Override
+    public String toString() {
+        return "ZoneAwareNodeSelectionConfig{"
+                + "zoneAttribute='"
+                + zoneAttribute
+                + '\''
+                + ", localZone='"
+                + localZone
+                + '\''
+                + ", localZoneEnvironmentVariable='"
+                + localZoneEnvironmentVariable
+                + '\''
+                + '}';
+    }
+}
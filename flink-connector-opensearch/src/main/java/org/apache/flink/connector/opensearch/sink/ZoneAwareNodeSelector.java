@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.opensearch.client.Node;
+import org.opensearch.client.NodeSelector;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Selects the nodes in the zone of the task manager if there are any, and all nodes otherwise.
+ *
+ * <p>The client only passes the living nodes to the selector, so requests go to other zones only
+ * while no node of the local zone is healthy. The zone of a node is read from its attributes,
+ * which are only known for nodes discovered by the {@link NodeSniffer}.
+ */
+class ZoneAwareNodeSelector implements NodeSelector {
+
+    private final String zoneAttribute;
+    private final String localZone;
+
+    ZoneAwareNodeSelector(String zoneAttribute, String localZone) {
+        this.zoneAttribute = checkNotNull(zoneAttribute);
+        this.localZone = checkNotNull(localZone);
+    }
+
+    @Override
+    public void select(Iterable<Node> nodes) {
+        boolean hasLocalNode = false;
+        for (final Node node : nodes) {
+            if (isLocal(node)) {
+                hasLocalNode = true;
+                break;
+            }
+        }
+        if (!hasLocalNode) {
+            return;
+        }
+        for (final Iterator<Node> iterator = nodes.iterator(); iterator.hasNext(); ) {
+            if (!isLocal(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private boolean isLocal(Node node) {
+        final Map<String, List<String>> attributes = node.getAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        final List<String> zones = attributes.get(zoneAttribute);
+        return zones != null && zones.contains(localZone);
+    }
+
+    @Override
+    public String toString() {
+        return "PREFER_ZONE[" + zoneAttribute + "=" + localZone + "]";
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.util.TestLoggerExtension;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Tests for {@link AdaptiveBulkSizeController}. */
+@ExtendWith(TestLoggerExtension.class)
+class AdaptiveBulkSizeControllerTest {
+
+    private static final int MIN_ACTIONS = 100;
+    private static final int MAX_ACTIONS = 350;
+    private static final long TARGET_LATENCY = 500;
+
+    @Test
+    void testStartsWithMinActions() {
+        assertThat(createController().getTargetActions()).isEqualTo(MIN_ACTIONS);
+    }
+
+    @Test
+    void testGrowsAdditivelyUpToMaxActions() {
+        final AdaptiveBulkSizeController controller = createController();
+
+        controller.onBulkCompleted(100, 10, 5, false);
+        assertThat(controller.getTargetActions()).isEqualTo(200);
+        controller.onBulkCompleted(200, 10, 5, false);
+        assertThat(controller.getTargetActions()).isEqualTo(300);
+        controller.onBulkCompleted(300, 10, 5, false);
+        assertThat(controller.getTargetActions()).isEqualTo(MAX_ACTIONS);
+        controller.onBulkCompleted(350, 10, 5, false);
+        assertThat(controller.getTargetActions()).isEqualTo(MAX_ACTIONS);
+    }
+
+    @Test
+    void testDoesNotGrowOnPartialBulks() {
+        final AdaptiveBulkSizeController controller = createController();
+
+        controller.onBulkCompleted(20, 10, 5, false);
+        assertThat(controller.getTargetActions()).isEqualTo(MIN_ACTIONS);
+    }
+
+    @Test
+    void testBacksOffMultiplicativelyDownToMinActions() {
+        final AdaptiveBulkSizeController controller = createController();
+        controller.onBulkCompleted(100, 10, 5, false);
+        controller.onBulkCompleted(200, 10, 5, false);
+        controller.onBulkCompleted(300, 10, 5, false);
+
+        controller.onBulkCompleted(350, 10, 5, true);
+        assertThat(controller.getTargetActions()).isEqualTo(175);
+        controller.onBulkCompleted(175, TARGET_LATENCY + 1, 5, false);
+        assertThat(controller.getTargetActions()).isEqualTo(MIN_ACTIONS);
+        controller.onBulkCompleted(100, 10, TARGET_LATENCY + 1, false);
+        assertThat(controller.getTargetActions()).isEqualTo(MIN_ACTIONS);
+    }
+
+    private static AdaptiveBulkSizeController createController() {
+        return new AdaptiveBulkSizeController(
+                new AdaptiveBulkFlushConfig(MIN_ACTIONS, MAX_ACTIONS, TARGET_LATENCY));
+    }
+}
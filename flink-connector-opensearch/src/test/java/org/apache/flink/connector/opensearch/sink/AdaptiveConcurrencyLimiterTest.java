@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.util.TestLoggerExtension;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Tests for {@link AdaptiveConcurrencyLimiter}. */
+@ExtendWith(TestLoggerExtension.class)
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long BASELINE_RTT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void testGrowsWhileRoundTripTimeStaysAtBaseline() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.onSample(BASELINE_RTT, limiter.getLimit(), false);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getBaselineRttMillis()).isEqualTo(20);
+    }
+
+    @Test
+    void testDoesNotGrowIfLimitIsNotUsed() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8);
+        limiter.onSample(BASELINE_RTT, 1, false);
+        limiter.onSample(BASELINE_RTT, 1, false);
+        limiter.onSample(BASELINE_RTT, 1, false);
+
+        limiter.onSample(BASELINE_RTT, 1, false);
+
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void testShrinksWhenRequestsQueueUp() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8);
+        for (int i = 0; i < 7; i++) {
+            limiter.onSample(BASELINE_RTT, limiter.getLimit(), false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        limiter.onSample(BASELINE_RTT * 4, limiter.getLimit(), false);
+
+        assertThat(limiter.getLimit()).isEqualTo(7);
+    }
+
+    @Test
+    void testHalvesOnRejection() {
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8);
+        for (int i = 0; i < 7; i++) {
+            limiter.onSample(BASELINE_RTT, limiter.getLimit(), false);
+        }
+
+        limiter.onSample(BASELINE_RTT, limiter.getLimit(), true);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        limiter.onSample(BASELINE_RTT, limiter.getLimit(), true);
+        limiter.onSample(BASELINE_RTT, limiter.getLimit(), true);
+        limiter.onSample(BASELINE_RTT, limiter.getLimit(), true);
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+}
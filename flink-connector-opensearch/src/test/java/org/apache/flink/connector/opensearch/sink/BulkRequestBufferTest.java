@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.util.TestLoggerExtension;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.delete.DeleteRequest;
+import org.opensearch.action.index.IndexRequest;
+import org.opensearch.action.update.UpdateRequest;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentHelper;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.common.bytes.BytesArray;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Tests for {@link BulkRequestBuffer}. */
+@ExtendWith(TestLoggerExtension.class)
+class BulkRequestBufferTest {
+
+    @Test
+    void testEncodeRequests() throws IOException {
+        final BulkRequestBuffer buffer = new BulkRequestBuffer();
+        buffer.add(
+                new IndexRequest("index")
+                        .id("1")
+                        .routing("r")
+                        .setPipeline("p")
+                        .source("{\"a\":1}", XContentType.JSON));
+        buffer.add(
+                new UpdateRequest("index", "2")
+                        .doc(Collections.singletonMap("b", 2))
+                        .retryOnConflict(3));
+        buffer.add(new DeleteRequest("index", "3"));
+
+        assertThat(bodyOf(buffer))
+                .isEqualTo(
+                        "{\"index\":{\"_index\":\"index\",\"_id\":\"1\",\"routing\":\"r\","
+                                + "\"pipeline\":\"p\"}}\n"
+                                + "{\"a\":1}\n"
+                                + "{\"update\":{\"_index\":\"index\",\"_id\":\"2\","
+                                + "\"retry_on_conflict\":3}}\n"
+                                + "{\"doc\":{\"b\":2}}\n"
+                                + "{\"delete\":{\"_index\":\"index\",\"_id\":\"3\"}}\n");
+        assertThat(buffer.numberOfActions()).isEqualTo(3);
+        assertThat(buffer.sizeInBytes()).isEqualTo(bodyOf(buffer).length());
+    }
+
+    @Test
+    void testRewriteSourcesWhichAreNotSingleLineJson() throws IOException {
+        final BulkRequestBuffer buffer = new BulkRequestBuffer();
+        buffer.add(
+                new IndexRequest("index").id("1").source("{\n  \"a\" : 1\n}", XContentType.JSON));
+        buffer.add(
+                new IndexRequest("index")
+                        .id("2")
+                        .source(
+                                XContentFactory.smileBuilder()
+                                        .startObject()
+                                        .field("b", 2)
+                                        .endObject()));
+
+        assertThat(bodyOf(buffer))
+                .isEqualTo(
+                        "{\"index\":{\"_index\":\"index\",\"_id\":\"1\"}}\n"
+                                + "{\"a\":1}\n"
+                                + "{\"index\":{\"_index\":\"index\",\"_id\":\"2\"}}\n"
+                                + "{\"b\":2}\n");
+    }
+
+    @Test
+    void testAddRawSource() throws IOException {
+        final BulkRequestBuffer buffer = new BulkRequestBuffer();
+        final byte[] source = "xx{\"a\":1}xx".getBytes(StandardCharsets.UTF_8);
+        buffer.add("index", null, DocWriteRequest.OpType.CREATE, source, 2, 7, "r", null);
+
+        assertThat(bodyOf(buffer))
+                .isEqualTo("{\"create\":{\"_index\":\"index\",\"routing\":\"r\"}}\n{\"a\":1}\n");
+        assertThatThrownBy(
+                        () ->
+                                buffer.add(
+                                        "index",
+                                        "1",
+                                        DocWriteRequest.OpType.DELETE,
+                                        new byte[0],
+                                        0,
+                                        0,
+                                        null,
+                                        null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testAddRawUpdate() throws IOException {
+        final BulkRequestBuffer buffer = new BulkRequestBuffer();
+        final byte[] source = "{\"doc\":{\"a\":1}}".getBytes(StandardCharsets.UTF_8);
+        buffer.add(
+                "index", "1", DocWriteRequest.OpType.UPDATE, source, 0, source.length, null, null);
+
+        assertThat(bodyOf(buffer))
+                .isEqualTo(
+                        "{\"update\":{\"_index\":\"index\",\"_id\":\"1\"}}\n"
+                                + "{\"doc\":{\"a\":1}}\n");
+        assertThatThrownBy(
+                        () ->
+                                buffer.add(
+                                        "index",
+                                        null,
+                                        DocWriteRequest.OpType.UPDATE,
+                                        source,
+                                        0,
+                                        source.length,
+                                        null,
+                                        null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Update actions require an id.");
+        assertThatThrownBy(
+                        () ->
+                                buffer.add(
+                                        "index",
+                                        "1",
+                                        DocWriteRequest.OpType.UPDATE,
+                                        source,
+                                        0,
+                                        source.length,
+                                        null,
+                                        "pipeline"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Pipelines are not supported for update actions.");
+        // the rejected actions are not added
+        assertThat(buffer.getActions()).hasSize(1);
+    }
+
+    @Test
+    void testCopyActionsIntoAnotherBuffer() throws IOException {
+        final BulkRequestBuffer buffer = new BulkRequestBuffer();
+        buffer.add(new DeleteRequest("index", "1"));
+        final PendingAction action =
+                buffer.add(new IndexRequest("index").id("2").source("{}", XContentType.JSON));
+
+        final BulkRequestBuffer retryBuffer = new BulkRequestBuffer();
+        retryBuffer.add(action);
+        final PendingAction restored =
+                retryBuffer.add(BulkRequestBuffer.encode(new DeleteRequest("index", "3")));
+
+        assertThat(bodyOf(retryBuffer))
+                .isEqualTo(
+                        "{\"index\":{\"_index\":\"index\",\"_id\":\"2\"}}\n{}\n"
+                                + "{\"delete\":{\"_index\":\"index\",\"_id\":\"3\"}}\n");
+        assertThat(retryBuffer.getActions()).containsExactly(action, restored);
+        assertThat(restored).hasToString("delete {index=index, id=3}");
+    }
+
+    @Test
+    void testReleaseAction() throws IOException {
+        final BulkRequestBuffer buffer = new BulkRequestBuffer();
+        final PendingAction action = buffer.add(new DeleteRequest("index", "1"));
+        assertThat(action.retainedBytes()).isEqualTo(buffer.sizeInBytes());
+
+        action.release();
+
+        assertThat(action.isReleased()).isTrue();
+        assertThat(action.retainedBytes()).isZero();
+        assertThat(action).hasToString("delete {index=index, id=1}");
+        assertThatThrownBy(action::toByteArray).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testEncodeRequestsAsSmile() throws IOException {
+        final BulkRequestBuffer buffer = new BulkRequestBuffer(XContentType.SMILE);
+        buffer.add(new IndexRequest("index").id("1").source("{\"a\":1}", XContentType.JSON));
+        buffer.add(new UpdateRequest("index", "2").doc(Collections.singletonMap("b", 2)));
+        // actions restored from a JSON encoded state are converted
+        buffer.add(BulkRequestBuffer.encode(new DeleteRequest("index", "3")));
+
+        assertThat(smileDocumentsOf(buffer))
+                .containsExactly(
+                        toMap("{\"index\":{\"_index\":\"index\",\"_id\":\"1\"}}"),
+                        toMap("{\"a\":1}"),
+                        toMap("{\"update\":{\"_index\":\"index\",\"_id\":\"2\"}}"),
+                        toMap("{\"doc\":{\"b\":2}}"),
+                        toMap("{\"delete\":{\"_index\":\"index\",\"_id\":\"3\"}}"));
+        assertThat(buffer.numberOfActions()).isEqualTo(3);
+        assertThatThrownBy(() -> new BulkRequestBuffer(XContentType.CBOR))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /** Splits the SMILE body of the buffer at the stream separators into its documents. */
+    private static List<Map<String, Object>> smileDocumentsOf(BulkRequestBuffer buffer) {
+        final byte[] body = buffer.getBody();
+        final byte separator = XContentType.SMILE.xContent().streamSeparator();
+        final List<Map<String, Object>> documents = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < buffer.sizeInBytes(); i++) {
+            if (body[i] == separator) {
+                documents.add(
+                        XContentHelper.convertToMap(
+                                        new BytesArray(body, start, i - start),
+                                        false,
+                                        XContentType.SMILE)
+                                .v2());
+                start = i + 1;
+            }
+        }
+        assertThat(start).isEqualTo(buffer.sizeInBytes());
+        return documents;
+    }
+
+    private static Map<String, Object> toMap(String json) {
+        return XContentHelper.convertToMap(new BytesArray(json), false, XContentType.JSON).v2();
+    }
+
+    private static String bodyOf(BulkRequestBuffer buffer) {
+        return new String(buffer.getBody(), 0, buffer.sizeInBytes(), StandardCharsets.UTF_8);
+    }
+}
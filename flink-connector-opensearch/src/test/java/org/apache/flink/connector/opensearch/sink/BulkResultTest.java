@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.util.TestLoggerExtension;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.rest.RestStatus;
+import org.opensearch.core.xcontent.DeprecationHandler;
+import org.opensearch.core.xcontent.NamedXContentRegistry;
+import org.opensearch.core.xcontent.XContentParser;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Tests for {@link BulkResult}. */
+@ExtendWith(TestLoggerExtension.class)
+class BulkResultTest {
+
+    @Test
+    void testParseSuccessfulResponse() throws IOException {
+        final BulkResult result =
+                parse(
+                        "{\"took\":12,\"errors\":false,\"items\":["
+                                + "{\"index\":{\"_index\":\"index\",\"_id\":\"1\",\"_version\":1,"
+                                + "\"result\":\"created\",\"_shards\":{\"total\":2,\"failed\":0},"
+                                + "\"status\":201}},"
+                                + "{\"delete\":{\"_index\":\"index\",\"_id\":\"2\","
+                                + "\"result\":\"not_found\",\"status\":404}}]}",
+                        2);
+
+        assertThat(result.getTookMillis()).isEqualTo(12);
+        assertThat(result.numberOfItems()).isEqualTo(2);
+        assertThat(result.hasFailures()).isFalse();
+        assertThat(result.numberOfFailures()).isZero();
+    }
+
+    @Test
+    void testParseFailedItems() throws IOException {
+        final BulkResult result =
+                parse(
+                        "{\"took\":3,\"errors\":true,\"items\":["
+                                + "{\"index\":{\"_id\":\"1\",\"status\":201}},"
+                                + "{\"update\":{\"_id\":\"2\",\"status\":404,\"error\":{"
+                                + "\"type\":\"document_missing_exception\","
+                                + "\"reason\":\"[2]: document missing\","
+                                + "\"caused_by\":{\"type\":\"other\",\"reason\":\"nested\"}}}},"
+                                + "{\"index\":{\"_id\":\"3\",\"status\":429,\"error\":{"
+                                + "\"type\":\"es_rejected_execution_exception\","
+                                + "\"reason\":\"rejected\"}}}]}",
+                        3);
+
+        assertThat(result.hasFailures()).isTrue();
+        assertThat(result.numberOfFailures()).isEqualTo(2);
+        assertThat(result.getFailedItem(0)).isEqualTo(1);
+        assertThat(result.getFailedStatus(0)).isEqualTo(RestStatus.NOT_FOUND);
+        assertThat(result.getErrorType(0)).isEqualTo("document_missing_exception");
+        assertThat(result.getReason(0)).isEqualTo("[2]: document missing");
+        assertThat(result.getFailedItem(1)).isEqualTo(2);
+        assertThat(result.getFailedStatus(1)).isEqualTo(RestStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void testParseFilteredResponse() throws IOException {
+        final StringBuilder response = new StringBuilder("{\"took\":5,\"errors\":true,\"items\":[");
+        for (int i = 0; i < 10; i++) {
+            response.append(i == 0 ? "" : ",");
+            if (i == 7) {
+                response.append(
+                        "{\"create\":{\"status\":409,\"error\":{"
+                                + "\"type\":\"version_conflict_engine_exception\","
+                                + "\"reason\":\"conflict\"}}}");
+            } else {
+                response.append("{\"create\":{\"status\":201}}");
+            }
+        }
+        final BulkResult result = parse(response.append("]}").toString(), 10);
+
+        assertThat(result.getTookMillis()).isEqualTo(5);
+        assertThat(result.numberOfItems()).isEqualTo(10);
+        assertThat(result.numberOfFailures()).isEqualTo(1);
+        assertThat(result.getFailedItem(0)).isEqualTo(7);
+        assertThat(result.getFailedStatus(0)).isEqualTo(RestStatus.CONFLICT);
+        assertThat(result.getErrorType(0)).isEqualTo("version_conflict_engine_exception");
+        assertThat(result.getReason(0)).isEqualTo("conflict");
+    }
+
+    @Test
+    void testThrowIfNumberOfItemsDiffers() {
+        assertThatThrownBy(
+                        () ->
+                                parse(
+                                        "{\"took\":1,\"items\":["
+                                                + "{\"index\":{\"status\":201}}]}",
+                                        2))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static BulkResult parse(String response, int expectedItems) throws IOException {
+        try (final XContentParser parser =
+                XContentType.JSON
+                        .xContent()
+                        .createParser(
+                                NamedXContentRegistry.EMPTY,
+                                DeprecationHandler.IGNORE_DEPRECATIONS,
+                                response)) {
+            return BulkResult.parse(parser, expectedItems);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.metrics.testutils.MetricListener;
+import org.apache.flink.runtime.metrics.groups.InternalSinkWriterMetricGroup;
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.TestLoggerExtension;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.http.HttpHost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.OpenSearchStatusException;
+import org.opensearch.core.rest.RestStatus;
+
+import javax.annotation.Nullable;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Tests for {@link Http2BulkTransport} against an in-process HTTP/2 server without TLS. */
+@ExtendWith(TestLoggerExtension.class)
+class Http2BulkTransportTest {
+
+    private static final String BULK_PATH = "/_bulk?filter_path=" + BulkResult.FILTER_PATH;
+
+    private final BlockingQueue<Message<HttpRequest, byte[]>> receivedRequests =
+            new LinkedBlockingQueue<>();
+    private HttpAsyncServer server;
+    private HttpHost host;
+    private volatile int responseStatus;
+    @Nullable private volatile String responseEncoding;
+    private volatile byte[] responseBody;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        respondWith(200, null, "{\"took\":1,\"errors\":false}");
+        server =
+                H2ServerBootstrap.bootstrap()
+                        .register("*", new RecordingHandler())
+                        .create();
+        server.start();
+        final ListenerEndpoint endpoint =
+                server.listen(
+                                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                                URIScheme.HTTP)
+                        .get();
+        final InetSocketAddress address = (InetSocketAddress) endpoint.getAddress();
+        host = new HttpHost(address.getHostString(), address.getPort(), "http");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close(CloseMode.IMMEDIATE);
+    }
+
+    @Test
+    void testSendBulkWithPathPrefixAndCredentials() throws Exception {
+        final byte[] body = "{\"index\":{}}\n{}\nunsent".getBytes(StandardCharsets.UTF_8);
+
+        try (final BulkTransport transport = createTransport("/prefix/", "user", "password")) {
+            final TransportResponse response = send(transport, body, body.length - 6, null);
+
+            assertThat(response.statusCode).isEqualTo(200);
+            assertThat(response.contentEncoding).isNull();
+            assertThat(new String(response.body, StandardCharsets.UTF_8))
+                    .isEqualTo("{\"took\":1,\"errors\":false}");
+        }
+
+        final Message<HttpRequest, byte[]> request = receivedRequests.take();
+        assertThat(request.getHead().getMethod()).isEqualTo("POST");
+        assertThat(request.getHead().getPath()).isEqualTo("/prefix" + BULK_PATH);
+        assertThat(headerOf(request, HttpHeaders.AUTHORIZATION))
+                .isEqualTo(
+                        "Basic "
+                                + Base64.getEncoder()
+                                        .encodeToString(
+                                                "user:password"
+                                                        .getBytes(StandardCharsets.UTF_8)));
+        assertThat(headerOf(request, HttpHeaders.CONTENT_TYPE)).startsWith("application/json");
+        assertThat(headerOf(request, HttpHeaders.ACCEPT)).isEqualTo("application/json");
+        assertThat(headerOf(request, HttpHeaders.CONTENT_ENCODING)).isNull();
+        // only the given length of the body is sent
+        assertThat(new String(request.getBody(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"index\":{}}\n{}\n");
+    }
+
+    @Test
+    void testSendBulkWithoutPathPrefixAndCredentials() throws Exception {
+        try (final BulkTransport transport = createTransport(null, null, null)) {
+            send(transport, new byte[] {'{', '}', '\n'}, 3, null);
+        }
+
+        final Message<HttpRequest, byte[]> request = receivedRequests.take();
+        assertThat(request.getHead().getPath()).isEqualTo(BULK_PATH);
+        assertThat(headerOf(request, HttpHeaders.AUTHORIZATION)).isNull();
+    }
+
+    @Test
+    void testSendCompressedBulk() throws Exception {
+        final byte[] compressedBody = {0x1f, (byte) 0x8b, 8, 0, 1, 2, 3};
+        final byte[] compressedResponse = {0x1f, (byte) 0x8b, 8, 0, 4, 5, 6};
+        respondWith(200, "gzip", compressedResponse);
+
+        try (final BulkTransport transport = createTransport(null, null, null)) {
+            final TransportResponse response =
+                    send(transport, compressedBody, compressedBody.length, "gzip");
+
+            // the response is handed over as received, the writer decompresses it
+            assertThat(response.contentEncoding).isEqualTo("gzip");
+            assertThat(response.body).isEqualTo(compressedResponse);
+        }
+
+        final Message<HttpRequest, byte[]> request = receivedRequests.take();
+        assertThat(headerOf(request, HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(headerOf(request, HttpHeaders.ACCEPT_ENCODING)).isEqualTo("gzip");
+        assertThat(request.getBody()).isEqualTo(compressedBody);
+    }
+
+    @Test
+    void testHandOverErrorStatus() throws Exception {
+        respondWith(429, null, "{\"error\":\"rejected\"}");
+
+        try (final BulkTransport transport = createTransport(null, null, null)) {
+            final TransportResponse response =
+                    send(transport, new byte[] {'{', '}', '\n'}, 3, null);
+
+            assertThat(response.statusCode).isEqualTo(429);
+            assertThat(new String(response.body, StandardCharsets.UTF_8))
+                    .isEqualTo("{\"error\":\"rejected\"}");
+        }
+    }
+
+    @Test
+    void testFailIfNodeIsUnreachable() throws Exception {
+        final int closedPort;
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        host = new HttpHost("localhost", closedPort, "http");
+
+        try (final BulkTransport transport = createTransport(null, null, null)) {
+            assertThatThrownBy(() -> send(transport, new byte[] {'{', '}', '\n'}, 3, null))
+                    .isInstanceOf(ExecutionException.class);
+        }
+    }
+
+    @Test
+    void testWriterFailsOnErrorStatus() throws Exception {
+        respondWith(401, null, "{\"error\":\"unauthorized\"}");
+
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                new OpensearchWriter<>(
+                        Collections.singletonList(host),
+                        TestEmitter.jsonEmitter("index", "data"),
+                        false,
+                        false,
+                        new BulkProcessorConfig(-1, -1, -1, FlushBackoffType.NONE, 0, 0),
+                        new NetworkClientConfig(null, null, null, null, null, null, null),
+                        InternalSinkWriterMetricGroup.mock(new MetricListener().getMetricGroup()),
+                        new TestMailbox(),
+                        new DefaultRestClientFactory(),
+                        OpensearchWriter.DEFAULT_FAILURE_HANDLER,
+                        null,
+                        new Http2BulkTransportFactory())) {
+            writer.write(Tuple2.of(1, "value"), null);
+
+            assertThatThrownBy(writer::blockingFlushAllActions)
+                    .satisfies(
+                            failure ->
+                                    assertThat(
+                                                    ExceptionUtils.findThrowable(
+                                                            failure,
+                                                            OpenSearchStatusException.class))
+                                            .get()
+                                            .extracting(OpenSearchStatusException::status)
+                                            .isEqualTo(RestStatus.UNAUTHORIZED));
+        }
+        assertThat(receivedRequests).hasSize(1);
+    }
+
+    private BulkTransport createTransport(
+            @Nullable String pathPrefix, @Nullable String username, @Nullable String password) {
+        return new Http2BulkTransportFactory()
+                .createBulkTransport(
+                        Collections.singletonList(host),
+                        new DefaultRestClientConfig(
+                                new NetworkClientConfig(
+                                        username, password, pathPrefix, null, null, null, null)));
+    }
+
+    private static TransportResponse send(
+            BulkTransport transport, byte[] body, int length, @Nullable String contentEncoding)
+            throws Exception {
+        final CompletableFuture<TransportResponse> response = new CompletableFuture<>();
+        transport.sendBulk(
+                body,
+                length,
+                "application/json",
+                contentEncoding,
+                new BulkTransport.ResponseListener() {
+                    @Override
+                    public void onResponse(
+                            int statusCode, @Nullable String contentEncoding, byte[] body) {
+                        response.complete(new TransportResponse(statusCode, contentEncoding, body));
+                    }
+
+                    @Override
+                    public void onFailure(Exception exception) {
+                        response.completeExceptionally(exception);
+                    }
+                });
+        return response.get(30, TimeUnit.SECONDS);
+    }
+
+    private void respondWith(int status, @Nullable String contentEncoding, String body) {
+        respondWith(status, contentEncoding, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void respondWith(int status, @Nullable String contentEncoding, byte[] body) {
+        responseStatus = status;
+        responseEncoding = contentEncoding;
+        responseBody = body;
+    }
+
+    @Nullable
+    private static String headerOf(Message<HttpRequest, byte[]> request, String name) {
+        final Header header = request.getHead().getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    /** Records the received requests and answers them with the configured response. */
+    private class RecordingHandler
+            implements AsyncServerRequestHandler<Message<HttpRequest, byte[]>> {
+
+        @Override
+        public AsyncRequestConsumer<Message<HttpRequest, byte[]>> prepare(
+                HttpRequest request, EntityDetails entityDetails, HttpContext context) {
+            return new BasicRequestConsumer<>(new BasicAsyncEntityConsumer());
+        }
+
+        @Override
+        public void handle(
+                Message<HttpRequest, byte[]> request,
+                ResponseTrigger responseTrigger,
+                HttpContext context)
+                throws Exception {
+            receivedRequests.add(request);
+            final AsyncResponseBuilder response =
+                    AsyncResponseBuilder.create(responseStatus)
+                            .setEntity(
+                                    new BasicAsyncEntityProducer(
+                                            responseBody, ContentType.APPLICATION_JSON));
+            final String contentEncoding = responseEncoding;
+            if (contentEncoding != null) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+            }
+            responseTrigger.submitResponse(response.build(), context);
+        }
+    }
+
+    /** Response handed to the {@link BulkTransport.ResponseListener}. */
+    private static class TransportResponse {
+
+        private final int statusCode;
+        @Nullable private final String contentEncoding;
+        private final byte[] body;
+
+        private TransportResponse(int statusCode, @Nullable String contentEncoding, byte[] body) {
+            this.statusCode = statusCode;
+            this.contentEncoding = contentEncoding;
+            this.body = body;
+        }
+    }
+}
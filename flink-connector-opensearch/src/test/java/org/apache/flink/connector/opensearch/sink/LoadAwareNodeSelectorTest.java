@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.testutils.MetricListener;
+import org.apache.flink.util.TestLoggerExtension;
+
+import org.apache.http.HttpHost;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.client.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Tests for {@link LoadAwareNodeSelector}. */
+@ExtendWith(TestLoggerExtension.class)
+class LoadAwareNodeSelectorTest {
+
+    private static final Node NODE_A = new Node(HttpHost.create("http://10.0.0.1:9200"));
+    private static final Node NODE_B = new Node(HttpHost.create("http://10.0.0.2:9200"));
+    private static final Node NODE_C = new Node(HttpHost.create("http://10.0.0.3:9200"));
+
+    private MetricListener metricListener;
+    private LoadAwareNodeSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        metricListener = new MetricListener();
+        final Random random = new Random(42);
+        selector = new LoadAwareNodeSelector(metricListener.getMetricGroup(), () -> random);
+    }
+
+    @Test
+    void testSelectHostWithLowerLatency() {
+        recordLatency(NODE_A, 100);
+        recordLatency(NODE_B, 10);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(selectCompleted(NODE_A, NODE_B)).isEqualTo(NODE_B);
+        }
+        assertThat(metricListener.getCounter(hostMetric(NODE_B, "numBulkRequestsSelected")))
+                .map(Counter::getCount)
+                .hasValue(11L);
+    }
+
+    @Test
+    void testSelectHostWithFewerInFlightRequests() {
+        recordLatency(NODE_A, 10);
+        recordLatency(NODE_B, 15);
+        assertThat(selectInFlight(NODE_A, NODE_B)).isEqualTo(NODE_A);
+        // two bulk requests of 10 ms each are expected to take longer than one of 15 ms
+        assertThat(selectInFlight(NODE_A, NODE_B)).isEqualTo(NODE_B);
+
+        final Gauge<Integer> inFlightRequests =
+                metricListener
+                        .<Integer>getGauge(hostMetric(NODE_A, "inFlightBulkRequests"))
+                        .get();
+        assertThat(inFlightRequests.getValue()).isEqualTo(1);
+    }
+
+    @Test
+    void testPreferHostsWithoutLatency() {
+        recordLatency(NODE_A, 10);
+
+        assertThat(selectInFlight(NODE_A, NODE_C)).isEqualTo(NODE_C);
+    }
+
+    @Test
+    void testCompareTwoRandomHosts() {
+        recordLatency(NODE_A, 1);
+        recordLatency(NODE_B, 100);
+        recordLatency(NODE_C, 100);
+
+        final List<Node> selected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            selected.add(selectCompleted(NODE_A, NODE_B, NODE_C));
+        }
+        // the fastest host is only picked if it is one of the two random candidates
+        assertThat(selected).contains(NODE_B, NODE_C);
+        assertThat(selected.stream().filter(NODE_A::equals).count()).isGreaterThan(50);
+    }
+
+    @Test
+    void testKeepNodesOfOtherRequests() {
+        final List<Node> nodes = new ArrayList<>(Arrays.asList(NODE_A, NODE_B, NODE_C));
+
+        selector.select(nodes);
+
+        assertThat(nodes).containsExactly(NODE_A, NODE_B, NODE_C);
+    }
+
+    @Test
+    void testDropHostsRemovedFromTheClient() {
+        recordLatency(NODE_A, 10);
+        recordLatency(NODE_B, 20);
+        final Gauge<Long> latencyOfB =
+                metricListener.<Long>getGauge(hostMetric(NODE_B, "bulkLatencyMillis")).get();
+        assertThat(latencyOfB.getValue()).isEqualTo(20L);
+
+        selector.retainHosts(Arrays.asList(NODE_A, NODE_C));
+
+        assertThat(selector.hostLoadOf(NODE_A.getHost()).getLatencyMillis()).isEqualTo(10L);
+        // the gauge of a removed host stays registered but has no statistics to report
+        assertThat(latencyOfB.getValue()).isZero();
+
+        // a returning host starts without statistics and reports through the same metrics
+        recordLatency(NODE_B, 30);
+        assertThat(latencyOfB.getValue()).isEqualTo(30L);
+        assertThat(metricListener.getCounter(hostMetric(NODE_B, "numBulkRequestsSelected")))
+                .map(Counter::getCount)
+                .hasValue(2L);
+    }
+
+    private void recordLatency(Node node, long latencyMillis) {
+        final LoadAwareNodeSelector.HostLoad hostLoad = selector.hostLoadOf(node.getHost());
+        hostLoad.onStart();
+        hostLoad.onComplete(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+
+    private Node selectCompleted(Node... nodes) {
+        final List<Node> candidates = new ArrayList<>(Arrays.asList(nodes));
+        selector.selectForBulk(
+                selection -> {
+                    selector.select(candidates);
+                    selection.complete();
+                });
+        assertThat(candidates).hasSize(1);
+        return candidates.get(0);
+    }
+
+    private Node selectInFlight(Node... nodes) {
+        final List<Node> candidates = new ArrayList<>(Arrays.asList(nodes));
+        selector.selectForBulk(selection -> selector.select(candidates));
+        assertThat(candidates).hasSize(1);
+        return candidates.get(0);
+    }
+
+    private static String[] hostMetric(Node node, String name) {
+        return new String[] {
+            LoadAwareNodeSelector.HOST_GROUP, node.getHost().toHostString(), name
+        };
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.util.TestLoggerExtension;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.client.Node;
+import org.opensearch.client.RestClient;
+import org.opensearch.common.xcontent.XContentHelper;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.common.bytes.BytesArray;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Tests for {@link NodeSniffer} against stub servers of the nodes info API. */
+@ExtendWith(TestLoggerExtension.class)
+class NodeSnifferTest {
+
+    private static final long ONE_HOUR = 3_600_000L;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private ScheduledThreadPoolExecutor scheduler;
+    private volatile String nodesInfo;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ScheduledThreadPoolExecutor(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void testSniffNodesWithRoles() throws Exception {
+        final HttpHost dataNode = startServer();
+        final HttpHost ingestNode = startServer();
+        nodesInfo =
+                nodes(
+                        node("data", dataNode, "cluster_manager", "data"),
+                        node("ingest", ingestNode, "ingest"),
+                        node("manager", HttpHost.create("http://10.0.0.1:9200"), "cluster_manager"),
+                        node("coordinating", HttpHost.create("http://10.0.0.2:9200")));
+
+        try (final RestClient client = RestClient.builder(dataNode).build()) {
+            startSniffer(client, NodeRole.DATA, NodeRole.INGEST);
+
+            assertThat(hostsOf(client)).containsExactlyInAnyOrder(dataNode, ingestNode);
+            assertThat(client.getNodes())
+                    .allSatisfy(
+                            node ->
+                                    assertThat(node.getAttributes())
+                                            .containsEntry(
+                                                    "zone", Collections.singletonList("zone-a")));
+        }
+    }
+
+    @Test
+    void testSniffCoordinatingOnlyNodes() throws Exception {
+        final HttpHost seedNode = startServer();
+        final HttpHost coordinatingNode = startServer();
+        nodesInfo =
+                nodes(
+                        node("data", seedNode, "data", "ingest"),
+                        node("coordinating", coordinatingNode, "remote_cluster_client"));
+
+        try (final RestClient client = RestClient.builder(seedNode).build()) {
+            startSniffer(client, NodeRole.COORDINATING_ONLY);
+
+            assertThat(hostsOf(client)).containsExactly(coordinatingNode);
+        }
+    }
+
+    @Test
+    void testSkipClusterManagerEligibleNodes() throws Exception {
+        final HttpHost seedNode = startServer();
+        final HttpHost dataNode = startServer();
+        nodesInfo =
+                nodes(
+                        node("manager", seedNode, "cluster_manager", "data"),
+                        node("master", HttpHost.create("http://10.0.0.1:9200"), "master", "data"),
+                        node("data", dataNode, "data", "ingest"));
+
+        try (final RestClient client = RestClient.builder(seedNode).build()) {
+            startSniffer(client, true, NodeRole.DATA);
+
+            assertThat(hostsOf(client)).containsExactly(dataNode);
+        }
+    }
+
+    @Test
+    void testKeepNodesIfSniffingFails() throws Exception {
+        final HttpHost seedNode = startServer();
+        nodesInfo = null;
+
+        try (final RestClient client = RestClient.builder(seedNode).build()) {
+            startSniffer(client, NodeRole.DATA);
+
+            assertThat(hostsOf(client)).containsExactly(seedNode);
+        }
+    }
+
+    @Test
+    void testKeepNodesIfNoNodeHasRole() throws Exception {
+        final HttpHost seedNode = startServer();
+        nodesInfo = nodes(node("manager", seedNode, "cluster_manager"));
+
+        try (final RestClient client = RestClient.builder(seedNode).build()) {
+            startSniffer(client, NodeRole.DATA, NodeRole.INGEST);
+
+            assertThat(hostsOf(client)).containsExactly(seedNode);
+        }
+    }
+
+    @Test
+    void testSniffAfterFailure() throws Exception {
+        final HttpHost firstNode = startServer();
+        final HttpHost secondNode = startServer();
+        nodesInfo = nodes(node("first", firstNode, "data"));
+
+        try (final RestClient client = RestClient.builder(firstNode).build()) {
+            final NodeSniffer sniffer = startSniffer(client, NodeRole.DATA);
+            assertThat(hostsOf(client)).containsExactly(firstNode);
+
+            nodesInfo = nodes(node("first", firstNode, "data"), node("second", secondNode, "data"));
+            sniffer.onFailure(new Node(firstNode));
+            awaitScheduledSniffs(sniffer);
+
+            assertThat(hostsOf(client)).containsExactlyInAnyOrder(firstNode, secondNode);
+        }
+    }
+
+    @Test
+    void testParsePublishAddressWithHostName() {
+        final String response =
+                "{\"nodes\":{\"node\":{\"roles\":[\"data\"],"
+                        + "\"http\":{\"publish_address\":\"node-1/10.0.0.1:9200\"}},"
+                        + "\"no-http\":{\"roles\":[\"data\"]}}}";
+
+        final List<Node> nodes =
+                NodeSniffer.parseNodes(
+                        XContentHelper.convertToMap(
+                                        new BytesArray(response), false, XContentType.JSON)
+                                .v2(),
+                        "https",
+                        EnumSet.allOf(NodeRole.class),
+                        false);
+
+        assertThat(nodes)
+                .extracting(Node::getHost)
+                .containsExactly(HttpHost.create("https://10.0.0.1:9200"));
+    }
+
+    private NodeSniffer startSniffer(RestClient client, NodeRole... roles) throws Exception {
+        return startSniffer(client, false, roles);
+    }
+
+    private NodeSniffer startSniffer(
+            RestClient client, boolean skipClusterManagerEligibleNodes, NodeRole... roles)
+            throws Exception {
+        final NodeSniffer sniffer =
+                new NodeSniffer(
+                        new NodeSniffingConfig(
+                                ONE_HOUR, 0, Arrays.asList(roles), skipClusterManagerEligibleNodes),
+                        "http",
+                        scheduler);
+        sniffer.start(client);
+        awaitScheduledSniffs(sniffer);
+        return sniffer;
+    }
+
+    /**
+     * Waits until all sniffs which are due have been started on the single scheduler thread, and
+     * the last of them has completed.
+     */
+    private void awaitScheduledSniffs(NodeSniffer sniffer) throws Exception {
+        scheduler.submit(() -> {}).get();
+        sniffer.getLastSniff().get();
+    }
+
+    private HttpHost startServer() throws IOException {
+        final HttpServer server =
+                HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(
+                "/_nodes/http",
+                exchange -> {
+                    final String response = nodesInfo;
+                    final byte[] body =
+                            (response != null ? response : "{}").getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(response != null ? 200 : 500, body.length);
+                    try (final OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                });
+        server.start();
+        servers.add(server);
+        return new HttpHost(
+                server.getAddress().getHostString(), server.getAddress().getPort(), "http");
+    }
+
+    private static String nodes(String... nodes) {
+        return "{\"nodes\":{" + String.join(",", nodes) + "}}";
+    }
+
+    private static String node(String id, HttpHost host, String... roles) {
+        return String.format(
+                "\"%s\":{\"name\":\"%s\",\"version\":\"2.11.0\",\"roles\":[%s],"
+                        + "\"attributes\":{\"zone\":\"zone-a\"},"
+                        + "\"http\":{\"publish_address\":\"%s:%d\"}}",
+                id,
+                id,
+                Arrays.stream(roles)
+                        .map(role -> "\"" + role + "\"")
+                        .collect(Collectors.joining(",")),
+                host.getHostName(),
+                host.getPort());
+    }
+
+    private static List<HttpHost> hostsOf(RestClient client) {
+        return client.getNodes().stream().map(Node::getHost).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.metrics.testutils.MetricListener;
+import org.apache.flink.runtime.metrics.groups.InternalSinkWriterMetricGroup;
+import org.apache.flink.util.TestLoggerExtension;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.action.DocWriteRequest;
+import org.opensearch.action.index.IndexRequest;
+import org.opensearch.action.update.UpdateRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Tests for {@link OpensearchCommittingWriter}. */
+@ExtendWith(TestLoggerExtension.class)
+class OpensearchCommittingWriterTest {
+
+    @Test
+    void testCopyRawDocumentsIntoTheBatch() throws Exception {
+        final byte[] buffer =
+                "xx{\"data\":1}{\"doc\":{\"data\":2}}".getBytes(StandardCharsets.UTF_8);
+
+        final List<DocWriteRequest<?>> requests;
+        try (final OpensearchCommittingWriter<String> writer =
+                new OpensearchCommittingWriter<>(
+                        (element, context, indexer) -> {
+                            indexer.add(
+                                    "index",
+                                    "1",
+                                    DocWriteRequest.OpType.INDEX,
+                                    buffer,
+                                    2,
+                                    10,
+                                    "routing",
+                                    "pipeline");
+                            indexer.add(
+                                    "index", "2", DocWriteRequest.OpType.UPDATE, buffer, 12, 18);
+                            // the emitter reuses its buffer for the next record
+                            Arrays.fill(buffer, (byte) ' ');
+                        },
+                        new BulkProcessorConfig(-1, -1, -1, FlushBackoffType.NONE, 0, 0),
+                        InternalSinkWriterMetricGroup.mock(
+                                new MetricListener().getMetricGroup()))) {
+            writer.write("element", null);
+            requests = writer.prepareCommit().iterator().next().getRequests();
+        }
+
+        assertThat(requests).hasSize(2);
+        final IndexRequest indexRequest = (IndexRequest) requests.get(0);
+        assertThat(indexRequest.opType()).isEqualTo(DocWriteRequest.OpType.INDEX);
+        assertThat(indexRequest.routing()).isEqualTo("routing");
+        assertThat(indexRequest.getPipeline()).isEqualTo("pipeline");
+        assertThat(indexRequest.source().utf8ToString()).isEqualTo("{\"data\":1}");
+        final UpdateRequest updateRequest = (UpdateRequest) requests.get(1);
+        assertThat(updateRequest.id()).isEqualTo("2");
+        assertThat(updateRequest.doc().sourceAsMap()).containsEntry("data", 2);
+    }
+}
@@ -26,6 +26,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.common.xcontent.XContentType;
 
 import java.util.stream.Stream;
 
@@ -47,6 +48,48 @@ class OpensearchSinkBuilderTest {
                                 .setDeliveryGuarantee(DeliveryGuarantee.AT_LEAST_ONCE),
                         createMinimalBuilder()
                                 .setBulkFlushBackoffStrategy(FlushBackoffType.CONSTANT, 1, 1),
+                        createMinimalBuilder().setBulkFlushMaxInFlightRequests(4),
+                        createMinimalBuilder()
+                                .setBulkFlushMaxInFlightRequests(8)
+                                .setBulkFlushAdaptiveInFlightRequests(true),
+                        createMinimalBuilder().setBulkFlushAdaptiveSizing(100, 5000, 500),
+                        createMinimalBuilder().setStorePendingActionsInState(true),
+                        createMinimalBuilder().setCompression(CompressionType.GZIP),
+                        createMinimalBuilder().setCompression(CompressionType.DEFLATE, 9),
+                        createMinimalBuilder().setBulkContentType(XContentType.SMILE),
+                        createMinimalBuilder().setMaxItemFailuresPerBulk(10),
+                        createMinimalBuilder().setBulkFlushSplitOnTooLarge(true),
+                        createMinimalBuilder()
+                                .setShardAwarePartitioning("index", element -> "id"),
+                        createMinimalBuilder()
+                                .setShardAwarePartitioning(
+                                        "index", element -> "id", false, 1000),
+                        createMinimalBuilder().setNodeSniffing(60_000),
+                        createMinimalBuilder().setNodeSniffing(60_000, true, NodeRole.DATA),
+                        createMinimalBuilder().setLoadAwareHostSelection(true),
+                        createMinimalBuilder().setSharedClient(true),
+                        createMinimalBuilder()
+                                .setBulkTransportFactory(new Http2BulkTransportFactory())
+                                .setShardAwarePartitioning(
+                                        "index", element -> "id", false, 1000),
+                        createMinimalBuilder()
+                                .setIoThreadCount(2)
+                                .setMaxConnections(100, 20)
+                                .setConnectionTimeToLive(300_000)
+                                .setKeepAlive(30_000)
+                                .setTcpNoDelay(true)
+                                .setSendBufferSize(64 * 1024)
+                                .setConnectionPoolMetrics(true),
+                        createMinimalBuilder()
+                                .setNodeSniffing(60_000)
+                                .setZoneAwareNodeSelection("node.attr.zone", "zone-a"),
+                        createMinimalBuilder()
+                                .setNodeSniffing(60_000)
+                                .setZoneAwareNodeSelectionFromEnvironment("zone", "ZONE"),
+                        createMinimalBuilder()
+                                .setNodeSniffing(60_000, NodeRole.INGEST, NodeRole.DATA)
+                                .setShardAwarePartitioning(
+                                        "index", element -> "id", false, 1000),
                         createMinimalBuilder()
                                 .setConnectionUsername("username")
                                 .setConnectionPassword("password"));
@@ -63,6 +106,66 @@ class OpensearchSinkBuilderTest {
                 .isEqualTo(DeliveryGuarantee.AT_LEAST_ONCE);
     }
 
+    @Test
+    void testBuildTwoPhaseCommitting() {
+        assertThatNoException()
+                .isThrownBy(() -> createMinimalBuilder().buildTwoPhaseCommitting());
+    }
+
+    @Test
+    void testThrowIfTwoPhaseCommittingWithUnsupportedSettings() {
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setStorePendingActionsInState(true)
+                                        .buildTwoPhaseCommitting())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setBulkFlushBackoffStrategy(
+                                                FlushBackoffType.CONSTANT, 3, 100)
+                                        .buildTwoPhaseCommitting())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setShardAwarePartitioning("index", element -> "id")
+                                        .buildTwoPhaseCommitting())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setBulkTransportFactory(new Http2BulkTransportFactory())
+                                        .buildTwoPhaseCommitting())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setCompression(CompressionType.GZIP)
+                                        .buildTwoPhaseCommitting())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setNodeSniffing(60_000)
+                                        .buildTwoPhaseCommitting())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setFailureHandler(
+                                                (ItemFailureHandler)
+                                                        (failures, numberOfFailures) -> {})
+                                        .buildTwoPhaseCommitting())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testDefaultStorePendingActionsInState() {
+        assertThat(createMinimalBuilder().build().isStorePendingActionsInState()).isFalse();
+    }
+
     @Test
     void testThrowIfExactlyOnceConfigured() {
         assertThatThrownBy(
@@ -99,6 +202,134 @@ class OpensearchSinkBuilderTest {
                 .isInstanceOf(IllegalStateException.class);
     }
 
+    @Test
+    void testThrowIfSetInvalidMaxInFlightRequests() {
+        assertThatThrownBy(() -> createEmptyBuilder().setBulkFlushMaxInFlightRequests(0))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testDefaultShardAwarePartitioning() {
+        assertThat(createMinimalBuilder().build().getShardAwarePartitioningConfig()).isNull();
+
+        final ShardAwarePartitioningConfig<?> config =
+                createMinimalBuilder()
+                        .setShardAwarePartitioning("index", element -> "id")
+                        .build()
+                        .getShardAwarePartitioningConfig();
+        assertThat(config.getIndex()).isEqualTo("index");
+        assertThat(config.isSendToPrimaryNodes()).isTrue();
+    }
+
+    @Test
+    void testThrowIfSetInvalidTopologyRefreshInterval() {
+        assertThatThrownBy(
+                        () ->
+                                createEmptyBuilder()
+                                        .setShardAwarePartitioning(
+                                                "index", element -> "id", true, 0))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testThrowIfSetInvalidSniffInterval() {
+        assertThatThrownBy(() -> createEmptyBuilder().setNodeSniffing(0))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testThrowIfSetInvalidMaxConnections() {
+        assertThatThrownBy(() -> createEmptyBuilder().setMaxConnections(10, 20))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> createEmptyBuilder().setMaxConnections(10, 0))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testThrowIfNodeSniffingSendsToPrimaryNodes() {
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setNodeSniffing(60_000)
+                                        .setShardAwarePartitioning("index", element -> "id")
+                                        .build())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testThrowIfSharedClientSendsToPrimaryNodes() {
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setSharedClient(true)
+                                        .setShardAwarePartitioning("index", element -> "id")
+                                        .build())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testThrowIfBulkTransportUsesRestClientFeatures() {
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setBulkTransportFactory(new Http2BulkTransportFactory())
+                                        .setNodeSniffing(60_000)
+                                        .build())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setBulkTransportFactory(new Http2BulkTransportFactory())
+                                        .setSharedClient(true)
+                                        .build())
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setBulkTransportFactory(new Http2BulkTransportFactory())
+                                        .setShardAwarePartitioning("index", element -> "id")
+                                        .build())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testThrowIfZoneAwareNodeSelectionWithoutNodeSniffing() {
+        assertThatThrownBy(
+                        () ->
+                                createMinimalBuilder()
+                                        .setZoneAwareNodeSelection("zone", "zone-a")
+                                        .build())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testThrowIfSetInvalidCompressionLevel() {
+        assertThatThrownBy(() -> createEmptyBuilder().setCompression(CompressionType.GZIP, 10))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testThrowIfSetUnsupportedBulkContentType() {
+        assertThatThrownBy(() -> createEmptyBuilder().setBulkContentType(XContentType.CBOR))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testThrowIfSetInvalidMaxItemFailuresPerBulk() {
+        assertThatThrownBy(() -> createEmptyBuilder().setMaxItemFailuresPerBulk(0))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testThrowIfSetInvalidAdaptiveSizing() {
+        assertThatThrownBy(() -> createEmptyBuilder().setBulkFlushAdaptiveSizing(0, 10, 100))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> createEmptyBuilder().setBulkFlushAdaptiveSizing(10, 5, 100))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> createEmptyBuilder().setBulkFlushAdaptiveSizing(10, 50, 0))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
     @Test
     void testThrowIfRestClientFactoryNotSet() {
         assertThatThrownBy(() -> createEmptyBuilder().setRestClientFactory(null).build())
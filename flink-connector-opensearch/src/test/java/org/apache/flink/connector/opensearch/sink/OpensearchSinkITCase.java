@@ -20,6 +20,7 @@ package org.apache.flink.connector.opensearch.sink;
 import org.apache.flink.api.common.functions.MapFunction;
 import org.apache.flink.api.common.restartstrategy.RestartStrategies;
 import org.apache.flink.api.common.state.CheckpointListener;
+import org.apache.flink.api.connector.sink2.Sink;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.connector.base.DeliveryGuarantee;
 import org.apache.flink.connector.opensearch.OpensearchUtil;
@@ -37,7 +38,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.opensearch.client.RequestOptions;
 import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.client.indices.CreateIndexRequest;
+import org.opensearch.common.settings.Settings;
 import org.opensearch.testcontainers.OpensearchContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -114,6 +118,31 @@ class OpensearchSinkITCase {
         assertThat(failed).isTrue();
     }
 
+    @Test
+    void testWriteWithTwoPhaseCommittingSink() throws Exception {
+        final String index = "test-two-phase-committing-opensearch-sink";
+        final OpensearchCommittingSink<Tuple2<Integer, String>> sink =
+                createSinkBuilder(index, TestEmitter::jsonEmitter).buildTwoPhaseCommitting();
+        runTest(index, true, sink, new FailingMapper());
+        assertThat(failed).isTrue();
+    }
+
+    @Test
+    void testWriteWithShardAwarePartitioning() throws Exception {
+        final String index = "test-shard-aware-opensearch-sink";
+        client.indices()
+                .create(
+                        new CreateIndexRequest(index)
+                                .settings(Settings.builder().put("index.number_of_shards", 3)),
+                        RequestOptions.DEFAULT);
+        final OpensearchSink<Tuple2<Integer, String>> sink =
+                createSinkBuilder(index, TestEmitter::jsonEmitter)
+                        .setShardAwarePartitioning(
+                                index, element -> element.f0.toString(), false, 1000)
+                        .build();
+        runTest(index, false, sink, null);
+    }
+
     private void runTest(
             String index,
             boolean allowRestarts,
@@ -136,16 +165,31 @@ class OpensearchSinkITCase {
             @Nullable MapFunction<Long, Long> additionalMapper)
             throws Exception {
         final OpensearchSink<Tuple2<Integer, String>> sink =
-                new OpensearchSinkBuilder<>()
-                        .setHosts(HttpHost.create(OS_CONTAINER.getHttpHostAddress()))
-                        .setEmitter(emitterProvider.apply(index, context.getDataFieldName()))
-                        .setBulkFlushMaxActions(5)
-                        .setConnectionUsername(OS_CONTAINER.getUsername())
-                        .setConnectionPassword(OS_CONTAINER.getPassword())
+                createSinkBuilder(index, emitterProvider)
                         .setDeliveryGuarantee(deliveryGuarantee)
-                        .setAllowInsecure(true)
                         .build();
+        runTest(index, allowRestarts, sink, additionalMapper);
+    }
 
+    private OpensearchSinkBuilder<Tuple2<Integer, String>> createSinkBuilder(
+            String index,
+            BiFunction<String, String, OpensearchEmitter<Tuple2<Integer, String>>>
+                    emitterProvider) {
+        return new OpensearchSinkBuilder<>()
+                .setHosts(HttpHost.create(OS_CONTAINER.getHttpHostAddress()))
+                .setEmitter(emitterProvider.apply(index, context.getDataFieldName()))
+                .setBulkFlushMaxActions(5)
+                .setConnectionUsername(OS_CONTAINER.getUsername())
+                .setConnectionPassword(OS_CONTAINER.getPassword())
+                .setAllowInsecure(true);
+    }
+
+    private void runTest(
+            String index,
+            boolean allowRestarts,
+            Sink<Tuple2<Integer, String>> sink,
+            @Nullable MapFunction<Long, Long> additionalMapper)
+            throws Exception {
         final StreamExecutionEnvironment env = new LocalStreamEnvironment();
         env.enableCheckpointing(100L);
         if (!allowRestarts) {
@@ -173,7 +217,8 @@ class OpensearchSinkITCase {
 
     private static List<BiFunction<String, String, OpensearchEmitter<Tuple2<Integer, String>>>>
             opensearchEmitters() {
-        return Arrays.asList(TestEmitter::jsonEmitter, TestEmitter::smileEmitter);
+        return Arrays.asList(
+                TestEmitter::jsonEmitter, TestEmitter::smileEmitter, TestEmitter::rawJsonEmitter);
     }
 
     private static class FailingMapper implements MapFunction<Long, Long>, CheckpointListener {
@@ -17,7 +17,6 @@
 
 package org.apache.flink.connector.opensearch.sink;
 
-import org.apache.flink.api.common.operators.MailboxExecutor;
 import org.apache.flink.api.connector.sink2.SinkWriter;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.connector.opensearch.OpensearchUtil;
@@ -30,34 +29,57 @@ import org.apache.flink.metrics.testutils.MetricListener;
 import org.apache.flink.runtime.metrics.MetricNames;
 import org.apache.flink.runtime.metrics.groups.InternalSinkWriterMetricGroup;
 import org.apache.flink.runtime.metrics.groups.UnregisteredMetricGroups;
-import org.apache.flink.util.FlinkRuntimeException;
 import org.apache.flink.util.TestLoggerExtension;
-import org.apache.flink.util.function.ThrowingRunnable;
 
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.util.EntityUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.action.DocWriteRequest;
 import org.opensearch.action.delete.DeleteRequest;
 import org.opensearch.action.index.IndexRequest;
 import org.opensearch.action.update.UpdateRequest;
+import org.opensearch.client.Request;
+import org.opensearch.client.RequestOptions;
+import org.opensearch.client.Response;
+import org.opensearch.client.ResponseException;
+import org.opensearch.client.ResponseListener;
+import org.opensearch.client.RestClient;
+import org.opensearch.client.RestClientBuilder;
 import org.opensearch.client.RestHighLevelClient;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.rest.RestStatus;
 import org.opensearch.testcontainers.OpensearchContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.flink.connector.opensearch.sink.OpensearchTestClient.buildMessage;
 import static org.apache.flink.connector.opensearch.sink.OpensearchWriter.DEFAULT_FAILURE_HANDLER;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /** Tests for {@link OpensearchWriter}. */
 @Testcontainers
@@ -162,6 +184,37 @@ class OpensearchWriterITCase {
         }
     }
 
+    @Test
+    void testStorePendingActionsInState() throws Exception {
+        final String index = "test-store-pending-actions-in-state";
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(-1, -1, -1, FlushBackoffType.NONE, 0, 0);
+
+        final List<OpensearchWriterState> state;
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(index, false, true, bulkProcessorConfig)) {
+            writer.write(Tuple2.of(1, buildMessage(1)), null);
+            writer.write(Tuple2.of(2, buildMessage(2)), null);
+            writer.write(Tuple2.of(3, buildMessage(3)), null);
+
+            // The checkpoint does not wait for Opensearch
+            writer.flush(false);
+            state = writer.snapshotState(1L);
+
+            context.assertThatIdsAreNotWritten(index, 1, 2, 3);
+            assertThat(state).hasSize(1);
+            assertThat(state.get(0).getEncodedActions()).hasSize(3);
+        }
+
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(index, false, true, bulkProcessorConfig)) {
+            writer.initializeState(state);
+            writer.blockingFlushAllActions();
+        }
+
+        context.assertThatIdsAreWritten(index, 1, 2, 3);
+    }
+
     @Test
     void testIncrementByteOutMetric() throws Exception {
         final String index = "test-inc-byte-out";
@@ -194,6 +247,265 @@ class OpensearchWriterITCase {
         }
     }
 
+    @Test
+    void testWriteWithCompression() throws Exception {
+        final String index = "test-bulk-flush-with-compression";
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(-1, -1, -1, FlushBackoffType.NONE, 0, 0);
+
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(
+                        index,
+                        false,
+                        bulkProcessorConfig,
+                        InternalSinkWriterMetricGroup.mock(metricListener.getMetricGroup()),
+                        CompressionType.GZIP)) {
+            for (int i = 1; i <= 10; i++) {
+                writer.write(Tuple2.of(i, buildMessage(i)), null);
+            }
+            writer.blockingFlushAllActions();
+
+            final Optional<Counter> uncompressed =
+                    metricListener.getCounter(OpensearchWriter.BULK_BYTES_UNCOMPRESSED_COUNTER);
+            final Optional<Counter> compressed =
+                    metricListener.getCounter(OpensearchWriter.BULK_BYTES_COMPRESSED_COUNTER);
+            assertThat(uncompressed).isPresent();
+            assertThat(compressed).isPresent();
+            assertThat(compressed.get().getCount()).isGreaterThan(0);
+            assertThat(compressed.get().getCount())
+                    .isLessThan(uncompressed.get().getCount());
+        }
+
+        context.assertThatIdsAreWritten(index, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    void testWriteWithSmileEncoding() throws Exception {
+        final String index = "test-bulk-flush-with-smile";
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(-1, -1, -1, FlushBackoffType.NONE, 0, 0);
+
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(
+                        index,
+                        false,
+                        false,
+                        bulkProcessorConfig,
+                        InternalSinkWriterMetricGroup.mock(metricListener.getMetricGroup()),
+                        DEFAULT_FAILURE_HANDLER,
+                        createNetworkClientConfig(
+                                CompressionType.GZIP,
+                                false,
+                                ConnectionPoolConfig.defaults(),
+                                XContentType.SMILE))) {
+            for (int i = 1; i <= 10; i++) {
+                writer.write(Tuple2.of(i, buildMessage(i)), null);
+            }
+            writer.blockingFlushAllActions();
+        }
+
+        context.assertThatIdsAreWritten(index, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    void testReleaseActionsOnceSent() throws Exception {
+        final String index = "test-retained-action-bytes";
+        final int flushAfterNActions = 2;
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(flushAfterNActions, -1, -1, FlushBackoffType.NONE, 0, 0);
+        final RestClientBulkTransportFactory bulkTransportFactory =
+                new RestClientBulkTransportFactory(false, Integer.MAX_VALUE);
+
+        final List<ItemFailure> reportedFailures = new ArrayList<>();
+        final ItemFailureHandler itemFailureHandler =
+                (failures, total) -> reportedFailures.addAll(failures);
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(
+                        index,
+                        bulkProcessorConfig,
+                        createNetworkClientConfig(CompressionType.NONE, false),
+                        bulkTransportFactory,
+                        itemFailureHandler)) {
+            final Optional<Gauge<Long>> retainedBytes =
+                    metricListener.getGauge(OpensearchWriter.RETAINED_BYTES_GAUGE);
+            final Optional<Gauge<Integer>> inFlightRequests =
+                    metricListener.getGauge(OpensearchWriter.IN_FLIGHT_REQUESTS_GAUGE);
+            assertThat(retainedBytes).isPresent();
+            assertThat(inFlightRequests).isPresent();
+            bulkTransportFactory.stall();
+
+            writer.write(Tuple2.of(1, buildMessage(1)), null);
+            assertThat(retainedBytes.get().getValue()).isGreaterThan(0L);
+            // Trigger an error by updating a non-existing document
+            writer.write(Tuple2.of(2, "u" + buildMessage(2)), null);
+
+            // without retries the actions are released as soon as their bulk request is sent,
+            // while its response is still outstanding
+            assertThat(inFlightRequests.get().getValue()).isEqualTo(1);
+            assertThat(retainedBytes.get().getValue()).isZero();
+
+            bulkTransportFactory.resume();
+            writer.blockingFlushAllActions();
+        }
+
+        context.assertThatIdsAreWritten(index, 1);
+        assertThat(reportedFailures)
+                .singleElement()
+                .satisfies(
+                        failure -> {
+                            assertThat(failure.getId()).isEqualTo("2");
+                            assertThat(failure.getEncodedAction()).isNull();
+                        });
+    }
+
+    @Test
+    void testReportConnectionPoolMetrics() throws Exception {
+        final String index = "test-connection-pool-metrics";
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(-1, -1, -1, FlushBackoffType.NONE, 0, 0);
+        final ConnectionPoolConfig connectionPoolConfig =
+                new ConnectionPoolConfig(1, 4, 2, 60_000L, 30_000L, true, 64 * 1024, true);
+
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(
+                        index,
+                        false,
+                        false,
+                        bulkProcessorConfig,
+                        InternalSinkWriterMetricGroup.mock(metricListener.getMetricGroup()),
+                        DEFAULT_FAILURE_HANDLER,
+                        createNetworkClientConfig(
+                                CompressionType.NONE, false, connectionPoolConfig))) {
+            writer.write(Tuple2.of(1, buildMessage(1)), null);
+            writer.blockingFlushAllActions();
+            context.assertThatIdsAreWritten(index, 1);
+
+            final Optional<Gauge<Integer>> leased =
+                    metricListener.getGauge(OpensearchWriter.CONNECTIONS_LEASED_GAUGE);
+            final Optional<Gauge<Integer>> pending =
+                    metricListener.getGauge(OpensearchWriter.CONNECTIONS_PENDING_GAUGE);
+            final Optional<Gauge<Integer>> available =
+                    metricListener.getGauge(OpensearchWriter.CONNECTIONS_AVAILABLE_GAUGE);
+            assertThat(leased).isPresent();
+            assertThat(pending).isPresent();
+            assertThat(available).isPresent();
+            assertThat(pending.get().getValue()).isEqualTo(0);
+            // the connection of the bulk request is kept in the pool
+            assertThat(leased.get().getValue() + available.get().getValue()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testWritersShareClient() throws Exception {
+        final String index = "test-shared-client";
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(-1, -1, -1, FlushBackoffType.NONE, 0, 0);
+
+        final OpensearchWriter<Tuple2<Integer, String>> firstWriter =
+                createSharingWriter(index, bulkProcessorConfig);
+        final OpensearchWriter<Tuple2<Integer, String>> secondWriter =
+                createSharingWriter(index, bulkProcessorConfig);
+        try {
+            assertThat(SharedRestClient.getNumberOfSharedClients()).isEqualTo(1);
+
+            firstWriter.write(Tuple2.of(1, buildMessage(1)), null);
+            secondWriter.write(Tuple2.of(2, buildMessage(2)), null);
+            firstWriter.blockingFlushAllActions();
+            secondWriter.blockingFlushAllActions();
+            context.assertThatIdsAreWritten(index, 1, 2);
+
+            // the client stays open for the remaining writer
+            firstWriter.close();
+            secondWriter.write(Tuple2.of(3, buildMessage(3)), null);
+            secondWriter.blockingFlushAllActions();
+            context.assertThatIdsAreWritten(index, 3);
+        } finally {
+            secondWriter.close();
+        }
+
+        assertThat(SharedRestClient.getNumberOfSharedClients()).isZero();
+    }
+
+    @Test
+    void testWriteWithBulkTransport() throws Exception {
+        final String index = "test-bulk-transport";
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(-1, -1, -1, FlushBackoffType.CONSTANT, 1, 10);
+        final RestClientBulkTransportFactory bulkTransportFactory =
+                new RestClientBulkTransportFactory();
+
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(
+                        index,
+                        bulkProcessorConfig,
+                        createNetworkClientConfig(CompressionType.GZIP, false),
+                        bulkTransportFactory)) {
+            for (int i = 1; i <= 10; i++) {
+                writer.write(Tuple2.of(i, buildMessage(i)), null);
+            }
+            writer.blockingFlushAllActions();
+        }
+
+        context.assertThatIdsAreWritten(index, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        // the first bulk request is rejected by the transport and retried
+        assertThat(bulkTransportFactory.sentBulks).hasValue(2);
+    }
+
+    @Test
+    void testSplitBulkRequestsWhichAreTooLarge() throws Exception {
+        final String index = "test-split-too-large-bulk";
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(
+                        -1,
+                        -1,
+                        -1,
+                        FlushBackoffType.NONE,
+                        0,
+                        0,
+                        1,
+                        false,
+                        null,
+                        BulkProcessorConfig.DEFAULT_MAX_ITEM_FAILURES_PER_BULK,
+                        true);
+        final RestClientBulkTransportFactory bulkTransportFactory =
+                new RestClientBulkTransportFactory(false, 2_000);
+
+        final List<ItemFailure> reportedFailures = new ArrayList<>();
+        final ItemFailureHandler itemFailureHandler =
+                (failures, total) -> reportedFailures.addAll(failures);
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(
+                        index,
+                        bulkProcessorConfig,
+                        createNetworkClientConfig(CompressionType.NONE, false),
+                        bulkTransportFactory,
+                        itemFailureHandler)) {
+            final Optional<Counter> bulkRequestSplits =
+                    metricListener.getCounter(OpensearchWriter.BULK_REQUEST_SPLITS_COUNTER);
+            for (int i = 1; i <= 8; i++) {
+                writer.write(Tuple2.of(i, buildMessage(i)), null);
+            }
+            // A single action which exceeds the maximum content length on its own
+            writer.write(Tuple2.of(100, String.join("", Collections.nCopies(5_000, "x"))), null);
+            writer.blockingFlushAllActions();
+
+            context.assertThatIdsAreWritten(index, 1, 2, 3, 4, 5, 6, 7, 8);
+            // the halves holding the oversized action are split until it is sent on its own
+            assertThat(bulkRequestSplits).isPresent();
+            assertThat(bulkRequestSplits.get().getCount()).isEqualTo(4);
+            // the halves wait for their turn instead of exceeding the in-flight limit
+            assertThat(bulkTransportFactory.maxInFlightBulks).hasValue(1);
+            assertThat(reportedFailures)
+                    .singleElement()
+                    .satisfies(
+                            failure -> {
+                                assertThat(failure.getId()).isEqualTo("100");
+                                assertThat(failure.getStatus())
+                                        .isEqualTo(RestStatus.REQUEST_ENTITY_TOO_LARGE);
+                            });
+        }
+    }
+
     @Test
     void testIncrementRecordsSendMetric() throws Exception {
         final String index = "test-inc-records-send";
@@ -239,6 +551,92 @@ class OpensearchWriterITCase {
         }
     }
 
+    @Test
+    void testWriteWithMultipleInFlightRequests() throws Exception {
+        final String index = "test-bulk-flush-with-in-flight-requests";
+        final int flushAfterNActions = 1;
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(
+                        flushAfterNActions, -1, -1, FlushBackoffType.NONE, 0, 0, 3, false, null);
+
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(index, false, bulkProcessorConfig)) {
+            final Optional<Gauge<Integer>> inFlightRequests =
+                    metricListener.getGauge(OpensearchWriter.IN_FLIGHT_REQUESTS_GAUGE);
+            writer.write(Tuple2.of(1, buildMessage(1)), null);
+            writer.write(Tuple2.of(2, buildMessage(2)), null);
+            writer.write(Tuple2.of(3, buildMessage(3)), null);
+
+            assertThat(inFlightRequests).isPresent();
+            assertThat(inFlightRequests.get().getValue()).isEqualTo(3);
+
+            writer.write(Tuple2.of(4, buildMessage(4)), null);
+            writer.blockingFlushAllActions();
+
+            assertThat(inFlightRequests.get().getValue()).isEqualTo(0);
+            context.assertThatIdsAreWritten(index, 1, 2, 3, 4);
+        }
+    }
+
+    @Test
+    void testWriteBlocksOnlyOnceTheInFlightRequestsAreUsedUp() throws Exception {
+        final String index = "test-write-blocks-once-in-flight-requests-are-used-up";
+        final int flushAfterNActions = 1;
+        final int maxInFlightRequests = 2;
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(
+                        flushAfterNActions,
+                        -1,
+                        -1,
+                        FlushBackoffType.NONE,
+                        0,
+                        0,
+                        maxInFlightRequests,
+                        false,
+                        null);
+        final RestClientBulkTransportFactory bulkTransportFactory =
+                new RestClientBulkTransportFactory(false, Integer.MAX_VALUE);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(
+                        index,
+                        bulkProcessorConfig,
+                        createNetworkClientConfig(CompressionType.NONE, false),
+                        bulkTransportFactory)) {
+            final Optional<Gauge<Integer>> inFlightRequests =
+                    metricListener.getGauge(OpensearchWriter.IN_FLIGHT_REQUESTS_GAUGE);
+            assertThat(inFlightRequests).isPresent();
+            bulkTransportFactory.stall();
+
+            // the writes return while bulk requests can be sent, although none is answered
+            writer.write(Tuple2.of(1, buildMessage(1)), null);
+            writer.write(Tuple2.of(2, buildMessage(2)), null);
+            assertThat(inFlightRequests.get().getValue()).isEqualTo(maxInFlightRequests);
+            // the buffer can still take the action, which then waits for a bulk request
+            writer.write(Tuple2.of(3, buildMessage(3)), null);
+
+            // the buffer is full and no bulk request can be sent, so the write blocks
+            final Future<?> blockedWrite =
+                    executor.submit(
+                            () -> {
+                                writer.write(Tuple2.of(4, buildMessage(4)), null);
+                                return null;
+                            });
+            assertThatThrownBy(() -> blockedWrite.get(500, TimeUnit.MILLISECONDS))
+                    .isInstanceOf(TimeoutException.class);
+
+            bulkTransportFactory.resume();
+            blockedWrite.get(30, TimeUnit.SECONDS);
+            writer.blockingFlushAllActions();
+
+            assertThat(inFlightRequests.get().getValue()).isEqualTo(0);
+            context.assertThatIdsAreWritten(index, 1, 2, 3, 4);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private static class TestHandler implements FailureHandler {
         private boolean failed = false;
 
@@ -268,11 +666,74 @@ class OpensearchWriterITCase {
                 createWriter(index, true, bulkProcessorConfig, testHandler)) {
             // Trigger an error by updating non-existing document
             writer.write(Tuple2.of(1, "u" + buildMessage(1)), null);
+            writer.blockingFlushAllActions();
             context.assertThatIdsAreNotWritten(index, 1);
             assertThat(testHandler.isFailed()).isEqualTo(true);
         }
     }
 
+    @Test
+    void testNonRetryableErrorIsNotRetried() throws Exception {
+        final String index = "test-bulk-flush-with-non-retryable-error";
+        final int flushAfterNActions = 2;
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(
+                        flushAfterNActions, -1, -1, FlushBackoffType.CONSTANT, 3, 10);
+
+        final TestHandler testHandler = new TestHandler();
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(index, true, bulkProcessorConfig, testHandler)) {
+            writer.write(Tuple2.of(1, buildMessage(1)), null);
+            // Trigger an error by updating non-existing document
+            writer.write(Tuple2.of(2, "u" + buildMessage(2)), null);
+            writer.blockingFlushAllActions();
+
+            context.assertThatIdsAreWritten(index, 1);
+            context.assertThatIdsAreNotWritten(index, 2);
+            assertThat(testHandler.isFailed()).isEqualTo(true);
+        }
+    }
+
+    @Test
+    void testReportItemFailuresUpToMaximum() throws Exception {
+        final String index = "test-bulk-flush-with-item-failures";
+        final BulkProcessorConfig bulkProcessorConfig =
+                new BulkProcessorConfig(
+                        -1, -1, -1, FlushBackoffType.NONE, 0, 0, 1, false, null, 2, true);
+
+        final List<ItemFailure> reportedFailures = new ArrayList<>();
+        final AtomicInteger numberOfFailures = new AtomicInteger();
+        final ItemFailureHandler itemFailureHandler =
+                (failures, total) -> {
+                    reportedFailures.addAll(failures);
+                    numberOfFailures.addAndGet(total);
+                };
+        try (final OpensearchWriter<Tuple2<Integer, String>> writer =
+                createWriter(index, true, bulkProcessorConfig, itemFailureHandler)) {
+            writer.write(Tuple2.of(1, buildMessage(1)), null);
+            // Trigger errors by updating non-existing documents
+            for (int i = 2; i <= 5; i++) {
+                writer.write(Tuple2.of(i, "u" + buildMessage(i)), null);
+            }
+            writer.blockingFlushAllActions();
+
+            context.assertThatIdsAreWritten(index, 1);
+            assertThat(numberOfFailures).hasValue(4);
+            assertThat(reportedFailures)
+                    .hasSize(2)
+                    .allSatisfy(
+                            failure -> {
+                                assertThat(failure.getIndex()).isEqualTo(index);
+                                assertThat(failure.getOpType())
+                                        .isEqualTo(DocWriteRequest.OpType.UPDATE);
+                                assertThat(failure.getStatus()).isEqualTo(RestStatus.NOT_FOUND);
+                                assertThat(failure.getErrorType())
+                                        .isEqualTo("document_missing_exception");
+                            });
+            assertThat(reportedFailures).extracting(ItemFailure::getId).containsExactly("2", "3");
+        }
+    }
+
     private OpensearchWriter<Tuple2<Integer, String>> createWriter(
             String index, boolean flushOnCheckpoint, BulkProcessorConfig bulkProcessorConfig) {
         return createWriter(
@@ -283,6 +744,20 @@ class OpensearchWriterITCase {
                 DEFAULT_FAILURE_HANDLER);
     }
 
+    private OpensearchWriter<Tuple2<Integer, String>> createWriter(
+            String index,
+            boolean flushOnCheckpoint,
+            boolean storePendingActionsInState,
+            BulkProcessorConfig bulkProcessorConfig) {
+        return createWriter(
+                index,
+                flushOnCheckpoint,
+                storePendingActionsInState,
+                bulkProcessorConfig,
+                InternalSinkWriterMetricGroup.mock(metricListener.getMetricGroup()),
+                DEFAULT_FAILURE_HANDLER);
+    }
+
     private OpensearchWriter<Tuple2<Integer, String>> createWriter(
             String index,
             boolean flushOnCheckpoint,
@@ -315,25 +790,170 @@ class OpensearchWriterITCase {
             BulkProcessorConfig bulkProcessorConfig,
             SinkWriterMetricGroup metricGroup,
             FailureHandler failureHandler) {
+        return createWriter(
+                index,
+                flushOnCheckpoint,
+                false,
+                bulkProcessorConfig,
+                metricGroup,
+                failureHandler);
+    }
+
+    private OpensearchWriter<Tuple2<Integer, String>> createWriter(
+            String index,
+            boolean flushOnCheckpoint,
+            boolean storePendingActionsInState,
+            BulkProcessorConfig bulkProcessorConfig,
+            SinkWriterMetricGroup metricGroup,
+            FailureHandler failureHandler) {
+        return createWriter(
+                index,
+                flushOnCheckpoint,
+                storePendingActionsInState,
+                bulkProcessorConfig,
+                metricGroup,
+                failureHandler,
+                CompressionType.NONE);
+    }
+
+    private OpensearchWriter<Tuple2<Integer, String>> createWriter(
+            String index,
+            boolean flushOnCheckpoint,
+            BulkProcessorConfig bulkProcessorConfig,
+            SinkWriterMetricGroup metricGroup,
+            CompressionType compressionType) {
+        return createWriter(
+                index,
+                flushOnCheckpoint,
+                false,
+                bulkProcessorConfig,
+                metricGroup,
+                DEFAULT_FAILURE_HANDLER,
+                compressionType);
+    }
+
+    private OpensearchWriter<Tuple2<Integer, String>> createWriter(
+            String index,
+            boolean flushOnCheckpoint,
+            boolean storePendingActionsInState,
+            BulkProcessorConfig bulkProcessorConfig,
+            SinkWriterMetricGroup metricGroup,
+            FailureHandler failureHandler,
+            CompressionType compressionType) {
+        return createWriter(
+                index,
+                flushOnCheckpoint,
+                storePendingActionsInState,
+                bulkProcessorConfig,
+                metricGroup,
+                failureHandler,
+                createNetworkClientConfig(compressionType, false));
+    }
+
+    private OpensearchWriter<Tuple2<Integer, String>> createWriter(
+            String index,
+            boolean flushOnCheckpoint,
+            boolean storePendingActionsInState,
+            BulkProcessorConfig bulkProcessorConfig,
+            SinkWriterMetricGroup metricGroup,
+            FailureHandler failureHandler,
+            NetworkClientConfig networkClientConfig) {
         return new OpensearchWriter<Tuple2<Integer, String>>(
                 Collections.singletonList(HttpHost.create(OS_CONTAINER.getHttpHostAddress())),
                 new UpdatingEmitter(index, context.getDataFieldName()),
                 flushOnCheckpoint,
+                storePendingActionsInState,
                 bulkProcessorConfig,
-                new NetworkClientConfig(
-                        OS_CONTAINER.getUsername(),
-                        OS_CONTAINER.getPassword(),
-                        null,
-                        null,
-                        null,
-                        null,
-                        true),
+                networkClientConfig,
                 metricGroup,
                 new TestMailbox(),
                 new DefaultRestClientFactory(),
                 failureHandler);
     }
 
+    private OpensearchWriter<Tuple2<Integer, String>> createWriter(
+            String index,
+            BulkProcessorConfig bulkProcessorConfig,
+            NetworkClientConfig networkClientConfig,
+            BulkTransportFactory bulkTransportFactory) {
+        return createWriter(
+                index,
+                bulkProcessorConfig,
+                networkClientConfig,
+                bulkTransportFactory,
+                DEFAULT_FAILURE_HANDLER);
+    }
+
+    private OpensearchWriter<Tuple2<Integer, String>> createWriter(
+            String index,
+            BulkProcessorConfig bulkProcessorConfig,
+            NetworkClientConfig networkClientConfig,
+            BulkTransportFactory bulkTransportFactory,
+            FailureHandler failureHandler) {
+        return new OpensearchWriter<Tuple2<Integer, String>>(
+                Collections.singletonList(HttpHost.create(OS_CONTAINER.getHttpHostAddress())),
+                new UpdatingEmitter(index, context.getDataFieldName()),
+                false,
+                false,
+                bulkProcessorConfig,
+                networkClientConfig,
+                InternalSinkWriterMetricGroup.mock(metricListener.getMetricGroup()),
+                new TestMailbox(),
+                new DefaultRestClientFactory(),
+                failureHandler,
+                null,
+                bulkTransportFactory);
+    }
+
+    private OpensearchWriter<Tuple2<Integer, String>> createSharingWriter(
+            String index, BulkProcessorConfig bulkProcessorConfig) {
+        return createWriter(
+                index,
+                false,
+                false,
+                bulkProcessorConfig,
+                InternalSinkWriterMetricGroup.mock(new MetricListener().getMetricGroup()),
+                DEFAULT_FAILURE_HANDLER,
+                createNetworkClientConfig(CompressionType.NONE, true));
+    }
+
+    private static NetworkClientConfig createNetworkClientConfig(
+            CompressionType compressionType, boolean sharedClient) {
+        return createNetworkClientConfig(
+                compressionType, sharedClient, ConnectionPoolConfig.defaults());
+    }
+
+    private static NetworkClientConfig createNetworkClientConfig(
+            CompressionType compressionType,
+            boolean sharedClient,
+            ConnectionPoolConfig connectionPoolConfig) {
+        return createNetworkClientConfig(
+                compressionType, sharedClient, connectionPoolConfig, XContentType.JSON);
+    }
+
+    private static NetworkClientConfig createNetworkClientConfig(
+            CompressionType compressionType,
+            boolean sharedClient,
+            ConnectionPoolConfig connectionPoolConfig,
+            XContentType bulkContentType) {
+        return new NetworkClientConfig(
+                OS_CONTAINER.getUsername(),
+                OS_CONTAINER.getPassword(),
+                null,
+                null,
+                null,
+                null,
+                true,
+                compressionType,
+                CompressionType.DEFAULT_LEVEL,
+                null,
+                null,
+                false,
+                sharedClient,
+                connectionPoolConfig,
+                bulkContentType);
+    }
+
     private static class UpdatingEmitter implements OpensearchEmitter<Tuple2<Integer, String>> {
         private static final long serialVersionUID = 1L;
 
@@ -375,28 +995,163 @@ class OpensearchWriterITCase {
         }
     }
 
-    private static class TestMailbox implements MailboxExecutor {
+    /**
+     * Creates transports which send the bulk requests with a low-level client of their own. The
+     * first bulk request is answered with a rejection without being sent, as are bulk requests
+     * which exceed the maximum content length with a 413 status. The factory records how many bulk
+     * requests were in flight at most, and can hold back bulk requests to stall their responses.
+     */
+    private static class RestClientBulkTransportFactory implements BulkTransportFactory {
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicInteger sentBulks = new AtomicInteger();
+        private final AtomicInteger inFlightBulks = new AtomicInteger();
+        private final AtomicInteger maxInFlightBulks = new AtomicInteger();
+        private final List<Runnable> stalledBulks = new ArrayList<>();
+        private final boolean rejectFirstBulk;
+        private boolean stalled;
+        private final int maxContentLength;
+
+        private RestClientBulkTransportFactory() {
+            this(true, Integer.MAX_VALUE);
+        }
+
+        private RestClientBulkTransportFactory(boolean rejectFirstBulk, int maxContentLength) {
+            this.rejectFirstBulk = rejectFirstBulk;
+            this.maxContentLength = maxContentLength;
+        }
 
         @Override
-        public void execute(
-                ThrowingRunnable<? extends Exception> command,
-                String descriptionFormat,
-                Object... descriptionArgs) {
-            try {
-                command.run();
-            } catch (Exception e) {
-                throw new RuntimeException("Unexpected error", e);
+        public BulkTransport createBulkTransport(
+                List<HttpHost> hosts, RestClientFactory.RestClientConfig clientConfig) {
+            final RestClientBuilder builder = RestClient.builder(hosts.toArray(new HttpHost[0]));
+            new DefaultRestClientFactory().configureRestClientBuilder(builder, clientConfig);
+            final RestClient client = builder.build();
+            return new BulkTransport() {
+                @Override
+                public void sendBulk(
+                        byte[] body,
+                        int length,
+                        String contentType,
+                        @Nullable String contentEncoding,
+                        BulkTransport.ResponseListener responseListener) {
+                    if (holdBack(
+                            () ->
+                                    sendBulk(
+                                            body,
+                                            length,
+                                            contentType,
+                                            contentEncoding,
+                                            responseListener))) {
+                        return;
+                    }
+                    final BulkTransport.ResponseListener listener = trackInFlight(responseListener);
+                    if (sentBulks.getAndIncrement() == 0 && rejectFirstBulk) {
+                        listener.onResponse(429, null, new byte[0]);
+                        return;
+                    }
+                    if (length > maxContentLength) {
+                        listener.onResponse(413, null, new byte[0]);
+                        return;
+                    }
+                    final NByteArrayEntity entity =
+                            new NByteArrayEntity(body, 0, length, ContentType.create(contentType));
+                    final Request request = new Request("POST", "/_bulk");
+                    final RequestOptions.Builder options =
+                            RequestOptions.DEFAULT
+                                    .toBuilder()
+                                    .addHeader(HttpHeaders.ACCEPT, contentType);
+                    if (contentEncoding != null) {
+                        entity.setContentEncoding(contentEncoding);
+                        options.addHeader(HttpHeaders.ACCEPT_ENCODING, contentEncoding);
+                    }
+                    request.setOptions(options);
+                    request.setEntity(entity);
+                    client.performRequestAsync(
+                            request,
+                            new ResponseListener() {
+                                @Override
+                                public void onSuccess(Response response) {
+                                    respond(response, listener);
+                                }
+
+                                @Override
+                                public void onFailure(Exception exception) {
+                                    if (exception instanceof ResponseException) {
+                                        respond(
+                                                ((ResponseException) exception).getResponse(),
+                                                listener);
+                                    } else {
+                                        listener.onFailure(exception);
+                                    }
+                                }
+                            });
+                }
+
+                @Override
+                public void close() throws IOException {
+                    client.close();
+                }
+            };
+        }
+
+        /** Holds back the bulk requests sent from now on until {@link #resume()} is called. */
+        private synchronized void stall() {
+            stalled = true;
+        }
+
+        /** Sends the held back bulk requests, and the following ones right away. */
+        private void resume() {
+            final List<Runnable> bulks;
+            synchronized (this) {
+                stalled = false;
+                bulks = new ArrayList<>(stalledBulks);
+                stalledBulks.clear();
             }
+            bulks.forEach(Runnable::run);
         }
 
-        @Override
-        public void yield() throws InterruptedException, FlinkRuntimeException {
-            Thread.sleep(100);
+        private synchronized boolean holdBack(Runnable bulk) {
+            if (stalled) {
+                stalledBulks.add(bulk);
+            }
+            return stalled;
         }
 
-        @Override
-        public boolean tryYield() throws FlinkRuntimeException {
-            return false;
+        /** Counts the bulk request as in flight until the listener is notified. */
+        private BulkTransport.ResponseListener trackInFlight(
+                BulkTransport.ResponseListener listener) {
+            maxInFlightBulks.accumulateAndGet(inFlightBulks.incrementAndGet(), Math::max);
+            return new BulkTransport.ResponseListener() {
+                @Override
+                public void onResponse(
+                        int statusCode, @Nullable String contentEncoding, byte[] body) {
+                    inFlightBulks.decrementAndGet();
+                    listener.onResponse(statusCode, contentEncoding, body);
+                }
+
+                @Override
+                public void onFailure(Exception exception) {
+                    inFlightBulks.decrementAndGet();
+                    listener.onFailure(exception);
+                }
+            };
+        }
+
+        private static void respond(Response response, BulkTransport.ResponseListener listener) {
+            final byte[] body;
+            try {
+                body = EntityUtils.toByteArray(response.getEntity());
+            } catch (IOException e) {
+                listener.onFailure(e);
+                return;
+            }
+            listener.onResponse(
+                    response.getStatusLine().getStatusCode(),
+                    response.getEntity().getContentEncoding() != null
+                            ? response.getEntity().getContentEncoding().getValue()
+                            : null,
+                    body);
         }
     }
 }
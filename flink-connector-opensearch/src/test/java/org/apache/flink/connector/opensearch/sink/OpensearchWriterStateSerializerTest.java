@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.util.TestLoggerExtension;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.action.delete.DeleteRequest;
+import org.opensearch.action.index.IndexRequest;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Tests for {@link OpensearchWriterStateSerializer}. */
+@ExtendWith(TestLoggerExtension.class)
+class OpensearchWriterStateSerializerTest {
+
+    private final OpensearchWriterStateSerializer serializer =
+            new OpensearchWriterStateSerializer();
+
+    @Test
+    void testSerializeAndDeserialize() throws IOException {
+        final List<byte[]> encodedActions =
+                Arrays.asList(
+                        BulkRequestBuffer.encode(
+                                new IndexRequest("index")
+                                        .id("1")
+                                        .source(Collections.singletonMap("a", 1))),
+                        BulkRequestBuffer.encode(new DeleteRequest("index", "2")));
+
+        final OpensearchWriterState restored =
+                serializer.deserialize(
+                        serializer.getVersion(),
+                        serializer.serialize(new OpensearchWriterState(encodedActions)));
+
+        assertThat(restored.getEncodedActions())
+                .containsExactly(encodedActions.get(0), encodedActions.get(1));
+    }
+
+    @Test
+    void testSerializeEmptyState() throws IOException {
+        final OpensearchWriterState restored =
+                serializer.deserialize(
+                        serializer.getVersion(),
+                        serializer.serialize(new OpensearchWriterState(Collections.emptyList())));
+
+        assertThat(restored.getEncodedActions()).isEmpty();
+    }
+
+    @Test
+    void testThrowOnUnknownVersion() {
+        assertThatThrownBy(() -> serializer.deserialize(serializer.getVersion() + 1, new byte[0]))
+                .isInstanceOf(IOException.class);
+    }
+}
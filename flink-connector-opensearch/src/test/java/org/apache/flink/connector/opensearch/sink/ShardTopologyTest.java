@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.TestLoggerExtension;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.Version;
+import org.opensearch.client.Node;
+import org.opensearch.client.RestClient;
+import org.opensearch.cluster.metadata.IndexMetadata;
+import org.opensearch.cluster.routing.OperationRouting;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.xcontent.XContentHelper;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.core.common.bytes.BytesArray;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Tests for {@link ShardTopology}. */
+@ExtendWith(TestLoggerExtension.class)
+class ShardTopologyTest {
+
+    private static final String CLUSTER_STATE =
+            "{\"metadata\":{\"indices\":{\"index\":{"
+                    + "\"settings\":{\"index.number_of_shards\":\"3\"},"
+                    + "\"routing_num_shards\":768}}},"
+                    + "\"routing_table\":{\"indices\":{\"index\":{\"shards\":{"
+                    + "\"0\":[{\"state\":\"STARTED\",\"primary\":true,\"node\":\"n1\"},"
+                    + "{\"state\":\"STARTED\",\"primary\":false,\"node\":\"n2\"}],"
+                    + "\"1\":[{\"state\":\"STARTED\",\"primary\":true,\"node\":\"n2\"}],"
+                    + "\"2\":[{\"state\":\"UNASSIGNED\",\"primary\":true,\"node\":null}]"
+                    + "}}}}}";
+
+    private static final String NODES_INFO =
+            "{\"nodes\":{"
+                    + "\"n1\":{\"http\":{\"publish_address\":\"10.0.0.1:9200\"}},"
+                    + "\"n2\":{\"http\":{\"publish_address\":\"node-2/10.0.0.2:9200\"}}"
+                    + "}}";
+
+    @Test
+    void testShardIdMatchesOpensearchRouting() {
+        final IndexMetadata indexMetadata = createIndexMetadata(6, 768, 1);
+        final ShardTopology topology = createTopology(6, 768, 1);
+
+        for (int i = 0; i < 1000; i++) {
+            final String id = "id-" + i;
+            assertThat(topology.shardId(id, null))
+                    .isEqualTo(OperationRouting.generateShardId(indexMetadata, id, null));
+            assertThat(topology.shardId(id, "routing-" + (i % 7)))
+                    .isEqualTo(
+                            OperationRouting.generateShardId(
+                                    indexMetadata, id, "routing-" + (i % 7)));
+        }
+    }
+
+    @Test
+    void testShardIdMatchesOpensearchRoutingOfPartitionedIndex() {
+        final IndexMetadata indexMetadata = createIndexMetadata(8, 8, 3);
+        final ShardTopology topology = createTopology(8, 8, 3);
+
+        for (int i = 0; i < 1000; i++) {
+            final String id = "id-" + i;
+            final String routing = "routing-" + (i % 5);
+            assertThat(topology.shardId(id, routing))
+                    .isEqualTo(OperationRouting.generateShardId(indexMetadata, id, routing));
+        }
+    }
+
+    @Test
+    void testParseClusterState() {
+        final ShardTopology topology =
+                ShardTopology.parse(toMap(CLUSTER_STATE), toMap(NODES_INFO), "https");
+
+        assertThat(topology.getIndex()).isEqualTo("index");
+        assertThat(topology.getNumberOfShards()).isEqualTo(3);
+        assertThat(topology.getPrimaryHost(0)).isEqualTo(HttpHost.create("https://10.0.0.1:9200"));
+        assertThat(topology.getPrimaryHost(1)).isEqualTo(HttpHost.create("https://10.0.0.2:9200"));
+        assertThat(topology.getPrimaryHost(2)).isNull();
+        assertThat(topology.shardId("id", null))
+                .isEqualTo(
+                        OperationRouting.generateShardId(
+                                createIndexMetadata(3, 768, 1), "id", null));
+    }
+
+    @Test
+    void testThrowIfAliasPointsToSeveralIndices() {
+        final String clusterState =
+                "{\"metadata\":{\"indices\":{"
+                        + "\"index-1\":{\"settings\":{\"index.number_of_shards\":\"1\"}},"
+                        + "\"index-2\":{\"settings\":{\"index.number_of_shards\":\"1\"}}"
+                        + "}}}";
+
+        assertThatThrownBy(
+                        () ->
+                                ShardTopology.parse(
+                                        toMap(clusterState), toMap(NODES_INFO), "http"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testSelectPrimaryHostsOfAssignedShards() {
+        final ShardTopology topology =
+                ShardTopology.parse(toMap(CLUSTER_STATE), toMap(NODES_INFO), "http");
+        final HttpHost configuredHost = HttpHost.create("http://localhost:9200");
+
+        assertThat(createTargeting(configuredHost, 0, 2).selectHosts(topology))
+                .containsExactly(HttpHost.create("http://10.0.0.1:9200"));
+        assertThat(createTargeting(configuredHost, 1, 2).selectHosts(topology))
+                .containsExactly(HttpHost.create("http://10.0.0.2:9200"));
+        assertThat(createTargeting(configuredHost, 0, 1).selectHosts(topology))
+                .containsExactly(
+                        HttpHost.create("http://10.0.0.1:9200"),
+                        HttpHost.create("http://10.0.0.2:9200"));
+        // the primary of the only shard of the third writer is not assigned
+        assertThat(createTargeting(configuredHost, 2, 3).selectHosts(topology))
+                .containsExactly(configuredHost);
+    }
+
+    @Test
+    void testRefreshNodesOfClientWithoutBlocking() throws Exception {
+        final HttpServer server =
+                HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        respond(server, "/_cluster/state", CLUSTER_STATE);
+        respond(server, "/_nodes/http", NODES_INFO);
+        server.start();
+        final HttpHost serverHost =
+                new HttpHost(
+                        server.getAddress().getHostString(), server.getAddress().getPort(), "http");
+
+        try (final RestClient client = RestClient.builder(serverHost).build()) {
+            final ShardPrimaryNodeTargeting targeting = createTargeting(serverHost, 1, 2);
+            targeting.refresh(client);
+            targeting.getLastRefresh().get();
+
+            assertThat(client.getNodes())
+                    .extracting(Node::getHost)
+                    .containsExactly(HttpHost.create("http://10.0.0.2:9200"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testPartitionByShard() {
+        final ShardPartitioner partitioner = new ShardPartitioner();
+
+        assertThat(partitioner.partition(5, 4)).isEqualTo(1);
+        assertThat(partitioner.partition(3, 4)).isEqualTo(3);
+        assertThat(
+                        Arrays.asList(
+                                partitioner.partition(ShardKeySelector.UNKNOWN_SHARD, 2),
+                                partitioner.partition(ShardKeySelector.UNKNOWN_SHARD, 2)))
+                .containsExactlyInAnyOrder(0, 1);
+    }
+
+    @Test
+    void testPartitionByHashIfTopologyCannotBeFetched() throws Exception {
+        final ShardRoutingKeyExtractor<String> keyExtractor =
+                element -> element.isEmpty() ? null : element;
+        final ShardKeySelector<String> keySelector =
+                createUnreachableKeySelector(
+                        new ShardAwarePartitioningConfig<>("index", keyExtractor, false, 1000));
+
+        final int key = keySelector.getKey("id");
+
+        // the records of a document keep their key, so that they are written in order
+        assertThat(key).isNotNegative();
+        assertThat(keySelector.getKey("other-id")).isNotNegative().isNotEqualTo(key);
+        assertThat(keySelector.getKey("id")).isEqualTo(key);
+        assertThat(keySelector.getKey("")).isEqualTo(ShardKeySelector.UNKNOWN_SHARD);
+    }
+
+    @Test
+    void testFailIfTopologyCannotBeFetchedForPrimaryNodes() throws Exception {
+        final ShardRoutingKeyExtractor<String> keyExtractor = element -> element;
+        final ShardKeySelector<String> keySelector =
+                createUnreachableKeySelector(
+                        new ShardAwarePartitioningConfig<>("index", keyExtractor, true, 1000));
+
+        // the hash keys are no shards, so the writers would target the wrong primaries
+        assertThatThrownBy(() -> keySelector.getKey("id"))
+                .isInstanceOf(FlinkRuntimeException.class)
+                .hasMessageContaining("index");
+    }
+
+    private static ShardKeySelector<String> createUnreachableKeySelector(
+            ShardAwarePartitioningConfig<String> config) throws IOException {
+        final int closedPort;
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        return new ShardKeySelector<>(
+                Collections.singletonList(new HttpHost("localhost", closedPort, "http")),
+                new NetworkClientConfig(null, null, null, null, null, null, null),
+                new DefaultRestClientFactory(),
+                config);
+    }
+
+    private static void respond(HttpServer server, String path, String response) {
+        server.createContext(
+                path,
+                exchange -> {
+                    final byte[] body = response.getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (final OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                });
+    }
+
+    private static ShardPrimaryNodeTargeting createTargeting(
+            HttpHost configuredHost, int subtaskId, int numberOfSubtasks) {
+        return new ShardPrimaryNodeTargeting(
+                "index",
+                Collections.singletonList(configuredHost),
+                subtaskId,
+                numberOfSubtasks,
+                1000);
+    }
+
+    private static ShardTopology createTopology(
+            int numberOfShards, int routingNumShards, int routingPartitionSize) {
+        return new ShardTopology(
+                "index",
+                numberOfShards,
+                routingNumShards,
+                routingPartitionSize,
+                Collections.nCopies(numberOfShards, null));
+    }
+
+    private static IndexMetadata createIndexMetadata(
+            int numberOfShards, int routingNumShards, int routingPartitionSize) {
+        return IndexMetadata.builder("index")
+                .settings(
+                        Settings.builder()
+                                .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                                .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, numberOfShards)
+                                .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+                                .put(
+                                        IndexMetadata.SETTING_ROUTING_PARTITION_SIZE,
+                                        routingPartitionSize))
+                .setRoutingNumShards(routingNumShards)
+                .build();
+    }
+
+    private static Map<String, Object> toMap(String json) {
+        return XContentHelper.convertToMap(new BytesArray(json), false, XContentType.JSON).v2();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.util.TestLoggerExtension;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHost;
+import org.apache.http.message.BasicHeader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.client.RestClient;
+import org.opensearch.client.RestClientBuilder;
+import org.opensearch.common.xcontent.XContentType;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Tests for {@link SharedRestClient}. */
+@ExtendWith(TestLoggerExtension.class)
+class SharedRestClientTest {
+
+    private static final List<HttpHost> HOSTS =
+            Collections.singletonList(HttpHost.create("http://localhost:9200"));
+
+    private final AtomicInteger createdClients = new AtomicInteger();
+
+    @Test
+    void testShareClientOfEqualConfig() throws Exception {
+        final SharedRestClient first = acquire(HOSTS, createConfig("user"));
+        final SharedRestClient second = acquire(HOSTS, createConfig("user"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(createdClients).hasValue(1);
+        assertThat(SharedRestClient.getNumberOfSharedClients()).isEqualTo(1);
+
+        first.release();
+        assertThat(second.getClient().isRunning()).isTrue();
+        assertThat(second.getScheduler().isShutdown()).isFalse();
+
+        second.release();
+        assertThat(second.getClient().isRunning()).isFalse();
+        assertThat(second.getScheduler().isShutdown()).isTrue();
+        assertThat(SharedRestClient.getNumberOfSharedClients()).isZero();
+    }
+
+    @Test
+    void testCreateClientPerConfigAndHosts() throws Exception {
+        final SharedRestClient first = acquire(HOSTS, createConfig("user"));
+        final SharedRestClient otherConfig = acquire(HOSTS, createConfig("other-user"));
+        final SharedRestClient otherHosts =
+                acquire(
+                        Collections.singletonList(HttpHost.create("http://localhost:9201")),
+                        createConfig("user"));
+
+        assertThat(otherConfig).isNotSameAs(first);
+        assertThat(otherHosts).isNotSameAs(first).isNotSameAs(otherConfig);
+        assertThat(createdClients).hasValue(3);
+
+        first.release();
+        otherConfig.release();
+        otherHosts.release();
+        assertThat(SharedRestClient.getNumberOfSharedClients()).isZero();
+    }
+
+    @Test
+    void testCreateNewClientAfterLastRelease() throws Exception {
+        final SharedRestClient first = acquire(HOSTS, createConfig("user"));
+        first.release();
+
+        final SharedRestClient second = acquire(HOSTS, createConfig("user"));
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getClient().isRunning()).isTrue();
+        assertThat(createdClients).hasValue(2);
+        second.release();
+        assertThatThrownBy(second::release).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testCreateClientPerRestClientFactory() throws Exception {
+        final SharedRestClient first = acquire(HOSTS, createConfig("user"));
+        final SharedRestClient equalFactory =
+                acquire(HOSTS, createConfig("user"), new DefaultRestClientFactory());
+        final SharedRestClient otherFactory =
+                acquire(HOSTS, createConfig("user"), new InterceptingRestClientFactory());
+
+        assertThat(equalFactory).isSameAs(first);
+        assertThat(otherFactory).isNotSameAs(first);
+        assertThat(createdClients).hasValue(2);
+
+        first.release();
+        equalFactory.release();
+        otherFactory.release();
+        assertThat(SharedRestClient.getNumberOfSharedClients()).isZero();
+    }
+
+    private SharedRestClient acquire(List<HttpHost> hosts, NetworkClientConfig config) {
+        return acquire(hosts, config, new DefaultRestClientFactory());
+    }
+
+    private SharedRestClient acquire(
+            List<HttpHost> hosts, NetworkClientConfig config, RestClientFactory restClientFactory) {
+        return SharedRestClient.acquire(
+                hosts,
+                config,
+                restClientFactory,
+                (scheduler, restClientConfig) -> {
+                    createdClients.incrementAndGet();
+                    return RestClient.builder(hosts.toArray(new HttpHost[0])).build();
+                });
+    }
+
+    private static NetworkClientConfig createConfig(String username) {
+        return new NetworkClientConfig(
+                username,
+                "password",
+                null,
+                null,
+                null,
+                null,
+                null,
+                CompressionType.NONE,
+                CompressionType.DEFAULT_LEVEL,
+                null,
+                null,
+                false,
+                true,
+                ConnectionPoolConfig.defaults(),
+                XContentType.JSON);
+    }
+
+    /** A factory configuring the client differently than the {@link DefaultRestClientFactory}. */
+    private static class InterceptingRestClientFactory extends DefaultRestClientFactory {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void configureRestClientBuilder(
+                RestClientBuilder builder, RestClientConfig networkClientConfig) {
+            super.configureRestClientBuilder(builder, networkClientConfig);
+            builder.setDefaultHeaders(
+                    new Header[] {new BasicHeader("X-Opaque-Id", "intercepting")});
+        }
+    }
+}
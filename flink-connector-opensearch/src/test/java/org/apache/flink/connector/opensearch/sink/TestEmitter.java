@@ -20,8 +20,10 @@ package org.apache.flink.connector.opensearch.sink;
 import org.apache.flink.api.connector.sink2.SinkWriter;
 import org.apache.flink.api.java.tuple.Tuple2;
 
+import org.opensearch.action.DocWriteRequest;
 import org.opensearch.action.index.IndexRequest;
 import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.core.common.bytes.BytesReference;
 import org.opensearch.core.xcontent.XContentBuilder;
 
 import java.io.IOException;
@@ -34,26 +36,46 @@ class TestEmitter implements OpensearchEmitter<Tuple2<Integer, String>> {
     private final String index;
     private final XContentBuilderProvider xContentBuilderProvider;
     private final String dataFieldName;
+    private final boolean raw;
 
     public static TestEmitter jsonEmitter(String index, String dataFieldName) {
-        return new TestEmitter(index, dataFieldName, XContentFactory::jsonBuilder);
+        return new TestEmitter(index, dataFieldName, XContentFactory::jsonBuilder, false);
     }
 
     public static TestEmitter smileEmitter(String index, String dataFieldName) {
-        return new TestEmitter(index, dataFieldName, XContentFactory::smileBuilder);
+        return new TestEmitter(index, dataFieldName, XContentFactory::smileBuilder, false);
+    }
+
+    public static TestEmitter rawJsonEmitter(String index, String dataFieldName) {
+        return new TestEmitter(index, dataFieldName, XContentFactory::jsonBuilder, true);
     }
 
     private TestEmitter(
-            String index, String dataFieldName, XContentBuilderProvider xContentBuilderProvider) {
+            String index,
+            String dataFieldName,
+            XContentBuilderProvider xContentBuilderProvider,
+            boolean raw) {
         this.dataFieldName = dataFieldName;
         this.index = index;
         this.xContentBuilderProvider = xContentBuilderProvider;
+        this.raw = raw;
     }
 
     @Override
     public void emit(
             Tuple2<Integer, String> element, SinkWriter.Context context, RequestIndexer indexer) {
-        indexer.add(createIndexRequest(element));
+        if (raw) {
+            final byte[] source = BytesReference.toBytes(createIndexRequest(element).source());
+            indexer.add(
+                    index,
+                    element.f0.toString(),
+                    DocWriteRequest.OpType.INDEX,
+                    source,
+                    0,
+                    source.length);
+        } else {
+            indexer.add(createIndexRequest(element));
+        }
     }
 
     public IndexRequest createIndexRequest(Tuple2<Integer, String> element) {
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.api.common.operators.MailboxExecutor;
+import org.apache.flink.util.FlinkRuntimeException;
+import org.apache.flink.util.function.ThrowingRunnable;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/** Mailbox which runs the enqueued actions on the thread that yields, like Flink's mailbox. */
+class TestMailbox implements MailboxExecutor {
+
+    private final BlockingQueue<ThrowingRunnable<? extends Exception>> mails =
+            new LinkedBlockingQueue<>();
+
+    @Override
+    public void execute(
+            ThrowingRunnable<? extends Exception> command,
+            String descriptionFormat,
+            Object... descriptionArgs) {
+        mails.add(command);
+    }
+
+    @Override
+    public void yield() throws InterruptedException, FlinkRuntimeException {
+        final ThrowingRunnable<? extends Exception> mail = mails.poll(100, TimeUnit.MILLISECONDS);
+        if (mail != null) {
+            run(mail);
+        }
+    }
+
+    @Override
+    public boolean tryYield() throws FlinkRuntimeException {
+        final ThrowingRunnable<? extends Exception> mail = mails.poll();
+        if (mail == null) {
+            return false;
+        }
+        run(mail);
+        return true;
+    }
+
+    private static void run(ThrowingRunnable<? extends Exception> mail) {
+        try {
+            mail.run();
+        } catch (Exception e) {
+            throw new RuntimeException("Unexpected error", e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.connector.opensearch.sink;
+
+import org.apache.flink.util.TestLoggerExtension;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opensearch.client.Node;
+import org.opensearch.client.Request;
+import org.opensearch.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Tests for {@link ZoneAwareNodeSelector}. */
+@ExtendWith(TestLoggerExtension.class)
+class ZoneAwareNodeSelectorTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void testSelectNodesOfLocalZone() {
+        final Node localNode = createNode("http://10.0.0.1:9200", "zone-a");
+        final Node remoteNode = createNode("http://10.0.0.2:9200", "zone-b");
+        final Node nodeWithoutZone = new Node(HttpHost.create("http://10.0.0.3:9200"));
+        final List<Node> nodes =
+                new ArrayList<>(Arrays.asList(localNode, remoteNode, nodeWithoutZone));
+
+        new ZoneAwareNodeSelector("zone", "zone-a").select(nodes);
+
+        assertThat(nodes).containsExactly(localNode);
+    }
+
+    @Test
+    void testSelectAllNodesWithoutLocalZone() {
+        final Node remoteNode = createNode("http://10.0.0.2:9200", "zone-b");
+        final Node nodeWithoutZone = new Node(HttpHost.create("http://10.0.0.3:9200"));
+        final List<Node> nodes = new ArrayList<>(Arrays.asList(remoteNode, nodeWithoutZone));
+
+        new ZoneAwareNodeSelector("zone", "zone-a").select(nodes);
+
+        assertThat(nodes).containsExactly(remoteNode, nodeWithoutZone);
+    }
+
+    @Test
+    void testFallBackToOtherZonesWhileLocalNodesAreUnhealthy() throws Exception {
+        final AtomicInteger localRequests = new AtomicInteger();
+        final AtomicInteger remoteRequests = new AtomicInteger();
+        final HttpServer localServer = startServer(localRequests);
+        final HttpServer remoteServer = startServer(remoteRequests);
+        final HttpServer otherRemoteServer = startServer(remoteRequests);
+
+        try (final RestClient client =
+                RestClient.builder(new HttpHost("localhost", 9200))
+                        .setNodeSelector(new ZoneAwareNodeSelector("zone", "zone-a"))
+                        .build()) {
+            client.setNodes(
+                    Arrays.asList(
+                            createNode(localServer, "zone-a"),
+                            createNode(remoteServer, "zone-b"),
+                            createNode(otherRemoteServer, "zone-c")));
+
+            for (int i = 0; i < 6; i++) {
+                client.performRequest(new Request("GET", "/"));
+            }
+            assertThat(localRequests).hasValue(6);
+            assertThat(remoteRequests).hasValue(0);
+
+            // the request failing on the local node marks it as dead
+            localServer.stop(0);
+            assertThatThrownBy(() -> client.performRequest(new Request("GET", "/")))
+                    .isInstanceOf(IOException.class);
+            for (int i = 0; i < 6; i++) {
+                client.performRequest(new Request("GET", "/"));
+            }
+            assertThat(remoteRequests).hasValue(6);
+        }
+    }
+
+    private HttpServer startServer(AtomicInteger requests) throws IOException {
+        final HttpServer server =
+                HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(
+                "/",
+                exchange -> {
+                    requests.incrementAndGet();
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                });
+        server.start();
+        servers.add(server);
+        return server;
+    }
+
+    private static Node createNode(HttpServer server, String zone) {
+        return createNode(
+                "http://"
+                        + server.getAddress().getHostString()
+                        + ":"
+                        + server.getAddress().getPort(),
+                zone);
+    }
+
+    private static Node createNode(String host, String zone) {
+        final Map<String, List<String>> attributes =
+                Collections.singletonMap("zone", Collections.singletonList(zone));
+        return new Node(HttpHost.create(host), null, null, null, null, attributes);
+    }
+}